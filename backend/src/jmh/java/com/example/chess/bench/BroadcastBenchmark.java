@@ -0,0 +1,64 @@
+package com.example.chess.bench;
+
+import com.example.chess.ws.BinaryWireFormat;
+import com.example.chess.ws.JsonWireFormat;
+import com.example.chess.ws.OnlineUser;
+import com.example.chess.ws.OutboundEvent;
+import com.example.chess.ws.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of one online-users broadcast to every connected user, encoding per recipient versus once into a
+ * shared frame. Recipients alternate between the JSON and binary formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+    @Param({ "100", "1000" })
+    int users;
+
+    private final WireFormat[] formats = { new JsonWireFormat(new ObjectMapper()), new BinaryWireFormat() };
+    private List<OnlineUser> online;
+
+    @Setup
+    public void setUp() {
+        online = new ArrayList<>(users);
+        for (long id = 1; id <= users; id++) {
+            online.add(new OnlineUser(id, "player-" + id));
+        }
+    }
+
+    @Benchmark
+    public void encodePerRecipient(Blackhole blackhole) {
+        for (int i = 0; i < users; i++) {
+            blackhole.consume(formats[i & 1].onlineUsers(1L, online).message());
+        }
+    }
+
+    @Benchmark
+    public void encodeOnce(Blackhole blackhole) {
+        OutboundEvent event = new OutboundEvent(format -> format.onlineUsers(1L, online));
+        for (int i = 0; i < users; i++) {
+            blackhole.consume(event.frameFor(formats[i & 1]).message());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.ChessRules;
+import com.example.chess.game.Move;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.MoveList;
+import com.example.chess.game.Piece;
+import com.example.chess.game.Position;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+final class GameFixtures {
+    private GameFixtures() {
+    }
+
+    static List<MoveEntity> randomGame(int plies, long seed) {
+        Random random = new Random(seed);
+        while (true) {
+            List<MoveEntity> game = tryRandomGame(plies, random);
+            if (game != null) {
+                return game;
+            }
+        }
+    }
+
+    private static List<MoveEntity> tryRandomGame(int plies, Random random) {
+        Position position = Position.initial();
+        List<MoveEntity> moves = new ArrayList<>(plies);
+        for (int ply = 1; ply <= plies; ply++) {
+            MoveList legal = ChessRules.generateLegalMoves(position);
+            if (legal.isEmpty() || position.halfmoveClock() >= 100) {
+                return null;
+            }
+            int move = legal.get(random.nextInt(legal.size()));
+            String piece = Piece.name(position.pieceAt(Move.from(move)));
+            long userId = position.sideToMove() == Piece.WHITE ? 1L : 2L;
+            moves.add(new MoveEntity(1L, ply, Move.pack(move), piece, userId));
+            position.makeMove(move);
+        }
+        return moves;
+    }
+}
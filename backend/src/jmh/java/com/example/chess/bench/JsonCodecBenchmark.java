@@ -0,0 +1,77 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.MoveEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+    @Param({ "10", "40", "80", "200" })
+    int plies;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<MoveEntity> moves;
+    private String[] inbound;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        moves = GameFixtures.randomGame(plies, 42L);
+        inbound = new String[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            MoveEntity move = moves.get(i);
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "move");
+            frame.put("gameId", move.getGameId());
+            frame.put("from", move.getFromSquare());
+            frame.put("to", move.getToSquare());
+            frame.put("piece", move.getPiece());
+            inbound[i] = objectMapper.writeValueAsString(frame);
+        }
+    }
+
+    @Benchmark
+    public String decodeMove() throws Exception {
+        JsonNode payload = objectMapper.readTree(nextInbound());
+        return payload.path("type").asText(null) + payload.path("from").asText(null) + payload.path("to").asText(null);
+    }
+
+    @Benchmark
+    public String encodeMoveEvent() throws Exception {
+        MoveEntity move = moves.get(cursor++ % moves.size());
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "move");
+        event.put("gameId", move.getGameId());
+        event.put("from", move.getFromSquare());
+        event.put("to", move.getToSquare());
+        event.put("piece", move.getPiece());
+        event.put("promotion", move.getPromotion());
+        event.put("moveNumber", move.getMoveNumber());
+        event.put("byUserId", move.getByUserId());
+        return objectMapper.writeValueAsString(event);
+    }
+
+    private String nextInbound() {
+        return inbound[cursor++ % inbound.length];
+    }
+}
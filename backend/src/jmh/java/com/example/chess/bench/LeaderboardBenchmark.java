@@ -0,0 +1,67 @@
+package com.example.chess.bench;
+
+import com.example.chess.rating.Leaderboard;
+import com.example.chess.rating.LeaderboardEntry;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Leaderboard operations against {@code players} rated players: a rating change after a game, a rank
+ * lookup and a page of 50 from the middle of the ranking.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+    @Param({ "10000", "1000000" })
+    int players;
+
+    private final SplittableRandom random = new SplittableRandom(20);
+    private Leaderboard leaderboard;
+    private int[] gamesPlayed;
+
+    @Setup
+    public void setUp() {
+        leaderboard = new Leaderboard();
+        gamesPlayed = new int[players];
+        for (int userId = 0; userId < players; userId++) {
+            gamesPlayed[userId] = 1;
+            leaderboard.update(userId, "player" + userId, rating(), 1);
+        }
+    }
+
+    @Benchmark
+    public boolean update() {
+        int userId = random.nextInt(players);
+        return leaderboard.update(userId, "player" + userId, rating(), ++gamesPlayed[userId]);
+    }
+
+    @Benchmark
+    public LeaderboardEntry rank() {
+        return leaderboard.entry(random.nextInt(players));
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> page() {
+        return leaderboard.top(players / 2, 50);
+    }
+
+    private int rating() {
+        return (int) Math.round(1500 + random.nextGaussian() * 350);
+    }
+}
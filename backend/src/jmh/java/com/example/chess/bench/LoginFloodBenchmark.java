@@ -0,0 +1,213 @@
+package com.example.chess.bench;
+
+import com.example.chess.ChessApplication;
+import com.example.chess.auth.AuthRequest;
+import com.example.chess.auth.AuthResponse;
+import com.example.chess.auth.AuthService;
+import com.example.chess.auth.PasswordHasher;
+import com.example.chess.game.GameService;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.ws.BinaryProtocol;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+/**
+ * Move round trips over WebSocket while {@code floodClients} clients hammer the login endpoint. Hashing
+ * runs on one thread with a short queue, so the flood should mostly be answered with 503s; compare the
+ * sample-time percentiles of {@code floodClients=0} and the flooded run. Logins accepted and refused and
+ * the peak hash queue depth are printed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginFloodBenchmark {
+    private static final int PLIES = 40;
+
+    @Param({ "0", "32" })
+    int floodClients;
+
+    private ConfigurableApplicationContext context;
+    private GameService gameService;
+    private PasswordHasher passwordHasher;
+    private Path dataDir;
+    private List<MoveEntity> moves;
+    private Player white;
+    private Player black;
+    private Long gameId;
+    private int ply;
+    private final BinaryProtocol.Frame event = new BinaryProtocol.Frame();
+    private final ByteBuffer frame = ByteBuffer.allocate(16);
+    private final AtomicBoolean flooding = new AtomicBoolean();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicInteger refused = new AtomicInteger();
+    private ExecutorService flood;
+    private int peakDepth;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        dataDir = Files.createTempDirectory("login-flood-bench");
+        context = new SpringApplicationBuilder(ChessApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:bench-login-flood;DB_CLOSE_DELAY=-1",
+                "--chess.moves.journal-path=" + dataDir.resolve("moves.journal"),
+                "--chess.auth.hash-threads=1",
+                "--chess.auth.hash-queue-capacity=4",
+                "--chess.auth.hash-retry-after=200ms");
+        gameService = context.getBean(GameService.class);
+        passwordHasher = context.getBean(PasswordHasher.class);
+        int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+        white = connect(port, "flood-white");
+        black = connect(port, "flood-black");
+        moves = GameFixtures.randomGame(PLIES, 5L);
+        ply = PLIES;
+
+        flooding.set(true);
+        flood = Executors.newFixedThreadPool(Math.max(1, floodClients));
+        HttpClient http = HttpClient.newHttpClient();
+        HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"flood-white\",\"password\":\"secret\"}"))
+                .build();
+        for (int i = 0; i < floodClients; i++) {
+            flood.submit(() -> {
+                while (flooding.get()) {
+                    if (http.send(login, HttpResponse.BodyHandlers.discarding()).statusCode() == 503) {
+                        refused.incrementAndGet();
+                        Thread.sleep(200);
+                    } else {
+                        accepted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        flooding.set(false);
+        flood.shutdown();
+        flood.awaitTermination(30, TimeUnit.SECONDS);
+        white.session.close();
+        black.session.close();
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        accepted.set(0);
+        refused.set(0);
+        peakDepth = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLogins() {
+        System.out.printf("%nlogins accepted=%d refused=%d, peak hash queue depth %d%n", accepted.get(), refused.get(),
+                peakDepth);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextGame() {
+        if (ply == PLIES) {
+            gameId = gameService.createGame(white.user.userId(), black.user.userId()).getId();
+            ply = 0;
+        }
+        peakDepth = Math.max(peakDepth, passwordHasher.queueDepth());
+    }
+
+    @Benchmark
+    public int playMove() throws Exception {
+        MoveEntity next = moves.get(ply++);
+        Player mover = ply % 2 == 1 ? white : black;
+        frame.clear();
+        BinaryProtocol.encodeMove(frame, gameId, next.getPackedMove());
+        mover.session.sendMessage(new BinaryMessage(frame.flip()));
+        mover.client.awaitMove(event, ply);
+        return event.moveNumber();
+    }
+
+    private Player connect(int port, String username) throws Exception {
+        AuthResponse user = context.getBean(AuthService.class).register(new AuthRequest(username, "secret")).join();
+        Client client = new Client();
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setSecWebSocketProtocol(List.of(BinaryProtocol.NAME));
+        WebSocketSession session = new StandardWebSocketClient()
+                .execute(client, headers, URI.create("ws://localhost:" + port + "/ws?token=" + user.token()))
+                .get(5, TimeUnit.SECONDS);
+        return new Player(user, client, session);
+    }
+
+    private record Player(AuthResponse user, Client client, WebSocketSession session) {
+    }
+
+    private static final class Client extends AbstractWebSocketHandler {
+        private final BlockingQueue<ByteBuffer> received = new LinkedBlockingQueue<>();
+
+        @Override
+        public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) {
+            if (message instanceof BinaryMessage binary) {
+                received.add(binary.getPayload());
+            }
+        }
+
+        void awaitMove(BinaryProtocol.Frame frame, int moveNumber) throws InterruptedException, IOException {
+            while (true) {
+                ByteBuffer payload = received.poll(10, TimeUnit.SECONDS);
+                if (payload == null) {
+                    throw new IOException("No move event received");
+                }
+                BinaryProtocol.decode(payload, frame);
+                if (frame.type() == BinaryProtocol.ERROR) {
+                    throw new IOException("Server error: " + frame.text());
+                }
+                if (frame.type() == BinaryProtocol.MOVE_EVENT && frame.moveNumber() == moveNumber) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.TimeControl;
+import com.example.chess.matchmaking.MatchmakingQueue;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of pairing {@code players} arrivals spread over {@code timeControls} pools: {@code sweep} pairs
+ * whoever is still waiting after 30 seconds of arrivals, {@code join} adds one player to that queue. With
+ * 64 time controls a few thousand players are still waiting when the sweep runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchmakingBenchmark {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Param({ "1000", "10000" })
+    int players;
+
+    @Param({ "4", "64" })
+    int timeControls;
+
+    private MatchmakingQueue queue;
+    private TimeControl[] pools;
+    private Random random;
+    private long nextUserId;
+
+    @Setup(Level.Trial)
+    public void setUpPools() {
+        pools = new TimeControl[timeControls];
+        for (int i = 0; i < timeControls; i++) {
+            pools[i] = new TimeControl(60 * (1 + i / 8), i % 8);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fillQueue() {
+        queue = new MatchmakingQueue(50, 50, 25, 400);
+        random = new Random(19);
+        for (nextUserId = 1; nextUserId <= players; nextUserId++) {
+            queue.join(nextUserId, rating(), pools[random.nextInt(timeControls)], random.nextInt(30) * SECOND);
+        }
+    }
+
+    @Benchmark
+    public List<MatchmakingQueue.Match> sweep() {
+        return queue.sweep(32 * SECOND);
+    }
+
+    @Benchmark
+    public MatchmakingQueue.Match join() {
+        return queue.join(nextUserId++, rating(), pools[random.nextInt(timeControls)], 32 * SECOND);
+    }
+
+    private int rating() {
+        return (int) Math.round(1500 + random.nextGaussian() * 350);
+    }
+}
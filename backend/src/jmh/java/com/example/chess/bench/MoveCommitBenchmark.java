@@ -0,0 +1,145 @@
+package com.example.chess.bench;
+
+import com.example.chess.ChessApplication;
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameService;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.MoveStore;
+import com.example.chess.game.TimeControl;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * A move played the way the game executor plays it: the game is looked up, the move validated and
+ * committed, moves written behind are flushed at the end of each iteration. Besides the time per move,
+ * every iteration prints the SQL statements per move H2 executed, by kind, from its query statistics.
+ * Creating the next game every {@value #PLIES} plies and transaction commits are not counted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveCommitBenchmark {
+    private static final int PLIES = 40;
+    private static final TimeControl CLOCK = TimeControl.parse("10+0");
+    private static final String STATEMENTS_SQL = "select lower(sql_statement) sql, execution_count from information_schema.query_statistics";
+
+    private ConfigurableApplicationContext context;
+    private GameService gameService;
+    private MoveStore moveStore;
+    private JdbcTemplate jdbcTemplate;
+    private Path dataDir;
+    private List<MoveEntity> moves;
+    private Long gameId;
+    private int ply;
+    private long played;
+    private long[] statementsBefore;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        dataDir = Files.createTempDirectory("move-commit-bench");
+        context = new SpringApplicationBuilder(ChessApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:bench-commit;DB_CLOSE_DELAY=-1",
+                "--chess.moves.journal-path=" + dataDir.resolve("moves.journal"));
+        if (!Files.exists(dataDir.resolve("moves.journal"))) {
+            throw new IllegalStateException("The move journal is not under " + dataDir);
+        }
+        gameService = context.getBean(GameService.class);
+        moveStore = context.getBean(MoveStore.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("set query_statistics_max_entries 1000");
+        jdbcTemplate.execute("set query_statistics true");
+        moves = GameFixtures.randomGame(PLIES, 11L);
+        ply = PLIES;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        moveStore.flush();
+        played = 0;
+        statementsBefore = statements();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStatements() {
+        moveStore.flush();
+        long[] after = statements();
+        double perMove = (double) (after[0] - statementsBefore[0]) / played;
+        System.out.printf("%n%d moves, %.2f statements per move (select %.2f, update %.2f, insert %.2f)%n", played,
+                perMove,
+                (double) (after[1] - statementsBefore[1]) / played,
+                (double) (after[2] - statementsBefore[2]) / played,
+                (double) (after[3] - statementsBefore[3]) / played);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextGame() {
+        if (ply == PLIES) {
+            gameId = gameService.createGame(1L, 2L, CLOCK).getId();
+            ply = 0;
+        }
+    }
+
+    @Benchmark
+    public MoveEntity playMove() {
+        MoveEntity next = moves.get(ply++);
+        GameEntity game = gameService.getGameForCommand(gameId);
+        played++;
+        return gameService.validateAndAddMove(game, next.getFromSquare(), next.getToSquare(), next.getPromotion(),
+                next.getByUserId());
+    }
+
+    /**
+     * Total, select, update and insert statements executed so far, leaving out game creation and the
+     * statistics query itself.
+     */
+    private long[] statements() {
+        long[] counts = new long[4];
+        for (Map<String, Object> row : jdbcTemplate.queryForList(STATEMENTS_SQL)) {
+            String sql = ((String) row.get("sql")).trim();
+            if (sql.contains("query_statistics") || sql.startsWith("insert into games")) {
+                continue;
+            }
+            int kind = sql.startsWith("select") ? 1 : sql.startsWith("update") ? 2 : sql.startsWith("insert") ? 3 : 0;
+            if (kind != 0) {
+                long count = ((Number) row.get("execution_count")).longValue();
+                counts[0] += count;
+                counts[kind] += count;
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.chess.bench;
+
+import com.example.chess.ChessApplication;
+import com.example.chess.game.Move;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.MoveStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class MoveStoreBenchmark {
+    private static final long READ_GAME_ID = Long.MAX_VALUE;
+    private static final short KNIGHT_OUT = Move.pack(Move.of(6, 21, Move.QUIET));
+
+    @Param({ "jpa", "journal", "packed" })
+    String store;
+
+    private final AtomicLong nextGameId = new AtomicLong(1);
+    private ConfigurableApplicationContext context;
+    private MoveStore moveStore;
+    private Path dataDir;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        dataDir = Files.createTempDirectory("move-store-bench");
+        context = new SpringApplicationBuilder(ChessApplication.class).run(
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + store + ";DB_CLOSE_DELAY=-1",
+                "--chess.moves.store=" + store,
+                "--chess.moves.journal-path=" + dataDir.resolve("moves.journal"),
+                "--chess.moves.mapped.directory=" + dataDir.resolve("segments"));
+        moveStore = context.getBean(MoveStore.class);
+        String expected = Map.of("jpa", "JpaMoveStore", "journal", "MappedMoveStore", "packed", "PackedMoveStore")
+                .get(store);
+        if (!moveStore.getClass().getSimpleName().startsWith(expected)) {
+            throw new IllegalStateException("store=" + store + " started " + moveStore.getClass().getName());
+        }
+        for (MoveEntity move : GameFixtures.randomGame(80, 7L)) {
+            moveStore.append(new MoveEntity(READ_GAME_ID, move.getMoveNumber(), move.getPackedMove(), move.getPiece(),
+                    move.getByUserId()));
+        }
+        moveStore.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        moveStore.flush();
+        context.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        long gameId;
+        int moveNumber;
+
+        @Setup(Level.Iteration)
+        public void nextGame(MoveStoreBenchmark benchmark) {
+            gameId = benchmark.nextGameId.getAndIncrement();
+            moveNumber = 0;
+        }
+    }
+
+    @Benchmark
+    public MoveEntity append(Writer writer) {
+        MoveEntity move = new MoveEntity(writer.gameId, ++writer.moveNumber, KNIGHT_OUT, "wN", 1L);
+        moveStore.append(move);
+        return move;
+    }
+
+    @Benchmark
+    public List<MoveEntity> readGame() {
+        return moveStore.findByGameId(READ_GAME_ID);
+    }
+}
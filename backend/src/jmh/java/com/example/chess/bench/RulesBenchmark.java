@@ -0,0 +1,94 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.Bitboards;
+import com.example.chess.game.ChessRules;
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.MoveList;
+import com.example.chess.game.Position;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+    private static final int SNAPSHOT_INTERVAL = 20;
+
+    @Param({ "10", "40", "80", "200" })
+    int plies;
+
+    private List<MoveEntity> moves;
+    private Position position;
+    private GameEntity snapshot;
+    private List<MoveEntity> afterSnapshot;
+    private String legalFrom;
+    private String legalTo;
+    private String illegalFrom;
+    private String illegalTo;
+
+    @Setup
+    public void setUp() {
+        moves = GameFixtures.randomGame(plies + 1, 42L);
+        MoveEntity next = moves.remove(moves.size() - 1);
+        position = ChessRules.buildBoard(moves);
+        legalFrom = next.getFromSquare();
+        legalTo = next.getToSquare();
+        int side = position.sideToMove();
+        int king = position.kingSquare(side);
+        long ownPieces = position.occupancy(side) & ~Bitboards.bit(king);
+        illegalFrom = ChessRules.squareName(king);
+        illegalTo = ChessRules.squareName(Long.numberOfTrailingZeros(ownPieces));
+        int snapshotPly = plies - plies % SNAPSHOT_INTERVAL;
+        snapshot = new GameEntity(1L, 2L);
+        snapshot.recordSnapshot(snapshotPly, ChessRules.buildBoard(moves.subList(0, snapshotPly)));
+        afterSnapshot = moves.subList(snapshotPly, moves.size());
+    }
+
+    @Benchmark
+    public Position buildBoard() {
+        return ChessRules.buildBoard(moves);
+    }
+
+    /**
+     * Cold start of a game saved every {@value #SNAPSHOT_INTERVAL} plies: at most that many moves are replayed.
+     */
+    @Benchmark
+    public Position buildBoardFromSnapshot() {
+        return ChessRules.buildBoard(snapshot.restoreSnapshot(), afterSnapshot);
+    }
+
+    @Benchmark
+    public boolean isLegalMoveAccepted() {
+        return ChessRules.isLegalMove(position, legalFrom, legalTo);
+    }
+
+    @Benchmark
+    public boolean isLegalMoveRejected() {
+        return ChessRules.isLegalMove(position, illegalFrom, illegalTo);
+    }
+
+    @Benchmark
+    public MoveList generateLegalMoves() {
+        return ChessRules.generateLegalMoves(position);
+    }
+
+    @Benchmark
+    public ChessRules.Square parseSquare() {
+        return ChessRules.Square.parse(legalTo);
+    }
+}
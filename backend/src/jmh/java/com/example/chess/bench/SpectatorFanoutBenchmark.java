@@ -0,0 +1,208 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.GameStatus;
+import com.example.chess.game.Move;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.Piece;
+import com.example.chess.game.Position;
+import com.example.chess.ws.OutboundEvent;
+import com.example.chess.ws.OutboundSession;
+import com.example.chess.ws.SessionManager;
+import com.example.chess.ws.SpectatorHub;
+import com.example.chess.ws.WireFormats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Time from a move being broadcast until both players' sessions have written it, while the game's
+ * spectators receive the same move through {@link SpectatorHub}. Each session write costs
+ * {@code writeMicros} of CPU. The player latency should not grow with {@code spectators}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SpectatorFanoutBenchmark {
+    private static final long GAME_ID = 1L;
+
+    @Param({ "0", "1000", "10000" })
+    int spectators;
+
+    @Param({ "2" })
+    long writeMicros;
+
+    private final WireFormats wireFormats = new WireFormats();
+    private SessionManager sessions;
+    private SpectatorHub hub;
+    private Socket white;
+    private Socket black;
+    private OutboundSession whiteOut;
+    private OutboundSession blackOut;
+    private MoveEntity move;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        sessions = new SessionManager(0, 0, false, Duration.ofSeconds(10), DataSize.ofKilobytes(512), meterRegistry);
+        hub = new SpectatorHub(1, wireFormats, meterRegistry);
+        GameSnapshot snapshot = new GameSnapshot(GAME_ID, 1L, 2L, GameStatus.ACTIVE, 0, Position.START_FEN);
+        OutboundEvent snapshotEvent = new OutboundEvent(format -> format.gameSnapshot(snapshot));
+        hub.onCatchUp((gameId, session) -> hub.watch(gameId, session, snapshotEvent));
+        white = new Socket("white", writeMicros);
+        black = new Socket("black", writeMicros);
+        whiteOut = sessions.register(1L, white);
+        blackOut = sessions.register(2L, black);
+        for (int i = 0; i < spectators; i++) {
+            hub.watch(GAME_ID, sessions.register(100L + i, new Socket("spectator-" + i, writeMicros)), snapshotEvent);
+        }
+        move = new MoveEntity(GAME_ID, 1, Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH)), Piece.name(Piece.of(Piece.WHITE, Piece.PAWN)), 1L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        hub.destroy();
+        sessions.destroy();
+    }
+
+    @Benchmark
+    public void moveToPlayers() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(2);
+        white.delivered = delivered;
+        black.delivered = delivered;
+        OutboundEvent event = new OutboundEvent(format -> format.move(move));
+        whiteOut.send(event.frameFor(wireFormats.of(whiteOut)), false);
+        blackOut.send(event.frameFor(wireFormats.of(blackOut)), false);
+        hub.publish(GAME_ID, event);
+        delivered.await();
+    }
+
+    private static final class Socket implements WebSocketSession {
+        private final String id;
+        private final long writeNanos;
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        private volatile CountDownLatch delivered;
+
+        private Socket(String id, long writeMicros) {
+            this.id = id;
+            this.writeNanos = TimeUnit.MICROSECONDS.toNanos(writeMicros);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) {
+            long end = System.nanoTime() + writeNanos;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            CountDownLatch latch = delivered;
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.chess.bench;
+
+import com.example.chess.config.VirtualThreads;
+import com.example.chess.game.GameCommandExecutor;
+import com.example.chess.game.MoveGenerator;
+import com.example.chess.game.Position;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Move commands from many concurrent games on the game executor, each blocking for a simulated database
+ * round trip before running move generation. Compares the fixed platform-thread pool with one virtual
+ * thread per scheduled game; throughput and the p99 of the sample-time run are the numbers to read.
+ * The virtual model needs a Java 21+ JVM and fails its setup otherwise ({@code -p model=platform} on 17).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(64)
+@Fork(1)
+public class ThreadModelBenchmark {
+    @Param({ "platform", "virtual" })
+    String model;
+
+    @Param({ "1000" })
+    int games;
+
+    @Param({ "1000" })
+    long dbLatencyMicros;
+
+    private GameCommandExecutor executor;
+    private Position[] positions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(model);
+        if (virtual && !VirtualThreads.isSupported()) {
+            throw new UnsupportedOperationException("The virtual model needs Java 21, running on " + Runtime.version());
+        }
+        executor = new GameCommandExecutor(0, virtual);
+        positions = new Position[games];
+        for (int i = 0; i < games; i++) {
+            positions[i] = Position.initial();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Benchmark
+    public int playMove() {
+        int game = ThreadLocalRandom.current().nextInt(games);
+        int[] legalMoves = new int[1];
+        executor.submit((long) game, () -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbLatencyMicros));
+            legalMoves[0] = MoveGenerator.generateLegalMoves(positions[game]).size();
+        }).join();
+        return legalMoves[0];
+    }
+}
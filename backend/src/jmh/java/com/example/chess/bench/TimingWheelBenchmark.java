@@ -0,0 +1,88 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.TimingWheel;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of pressing a clock with {@code games} flag timers pending: the game's timer is cancelled and armed
+ * again for the opponent, 1 to 600 seconds ahead. {@code wheel} is {@link TimingWheel}; {@code executor}
+ * schedules one task per game on a {@link ScheduledThreadPoolExecutor}, whose heap makes both steps
+ * logarithmic.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingWheelBenchmark {
+    @Param({ "100000" })
+    int games;
+
+    @Param({ "wheel", "executor" })
+    String timer;
+
+    private final SplittableRandom random = new SplittableRandom(21);
+    private TimingWheel wheel;
+    private TimingWheel.Timeout[] timeouts;
+    private ScheduledThreadPoolExecutor executor;
+    private ScheduledFuture<?>[] tasks;
+
+    @Setup
+    public void setUp() {
+        if (timer.equals("wheel")) {
+            wheel = new TimingWheel(1, 512, "bench-clock", timeout -> { });
+            timeouts = new TimingWheel.Timeout[games];
+            for (int game = 0; game < games; game++) {
+                timeouts[game] = wheel.schedule(game, delay());
+            }
+        } else {
+            executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(true);
+            tasks = new ScheduledFuture<?>[games];
+            for (int game = 0; game < games; game++) {
+                tasks[game] = executor.schedule(() -> { }, delay(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (wheel != null) {
+            wheel.close();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Object pressClock() {
+        int game = random.nextInt(games);
+        if (wheel != null) {
+            timeouts[game].cancel();
+            return timeouts[game] = wheel.schedule(game, delay());
+        }
+        tasks[game].cancel(false);
+        return tasks[game] = executor.schedule(() -> { }, delay(), TimeUnit.MILLISECONDS);
+    }
+
+    private long delay() {
+        return 1_000 + random.nextLong(599_000);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.chess.bench;
+
+import com.example.chess.game.ChessRules;
+import com.example.chess.game.Move;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.ws.BinaryProtocol;
+import com.example.chess.ws.BinaryWireFormat;
+import com.example.chess.ws.EncodedFrame;
+import com.example.chess.ws.JsonWireFormat;
+import com.example.chess.ws.OnlineUser;
+import com.example.chess.ws.WireFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the JSON and binary subprotocols on the handler's hot paths: decoding an inbound move,
+ * building an outbound move event and building a 100-user online list.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class WireFormatBenchmark {
+    @Param({ "json", "binary" })
+    String format;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinaryProtocol.Frame frame = new BinaryProtocol.Frame();
+    private WireFormat wireFormat;
+    private List<MoveEntity> moves;
+    private List<OnlineUser> users;
+    private String[] jsonInbound;
+    private ByteBuffer[] binaryInbound;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws Exception {
+        wireFormat = format.equals("json") ? new JsonWireFormat(objectMapper) : new BinaryWireFormat();
+        moves = GameFixtures.randomGame(80, 42L);
+        jsonInbound = new String[moves.size()];
+        binaryInbound = new ByteBuffer[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            MoveEntity move = moves.get(i);
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "move");
+            frame.put("gameId", move.getGameId());
+            frame.put("from", move.getFromSquare());
+            frame.put("to", move.getToSquare());
+            jsonInbound[i] = objectMapper.writeValueAsString(frame);
+            binaryInbound[i] = ByteBuffer.allocate(16);
+            BinaryProtocol.encodeMove(binaryInbound[i], move.getGameId(), move.getPackedMove());
+            binaryInbound[i].flip();
+        }
+        users = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            users.add(new OnlineUser(id, "player-" + id));
+        }
+    }
+
+    @Benchmark
+    public void decodeMove(Blackhole blackhole) throws Exception {
+        int index = cursor++ % moves.size();
+        if (format.equals("json")) {
+            JsonNode payload = objectMapper.readTree(jsonInbound[index]);
+            blackhole.consume(payload.path("type").asText(null));
+            blackhole.consume(payload.path("gameId").asLong());
+            blackhole.consume(ChessRules.squareIndex(payload.path("from").asText(null)));
+            blackhole.consume(ChessRules.squareIndex(payload.path("to").asText(null)));
+        } else {
+            ByteBuffer source = binaryInbound[index];
+            source.rewind();
+            BinaryProtocol.decode(source, frame);
+            int move = Move.unpack(frame.move());
+            blackhole.consume(frame.type());
+            blackhole.consume(frame.gameId());
+            blackhole.consume(Move.from(move));
+            blackhole.consume(Move.to(move));
+        }
+    }
+
+    @Benchmark
+    public EncodedFrame encodeMoveEvent() {
+        return wireFormat.move(moves.get(cursor++ % moves.size()));
+    }
+
+    @Benchmark
+    public EncodedFrame encodeOnlineUsers() {
+        return wireFormat.onlineUsers(1L, users);
+    }
+}
@@ -1,22 +1,21 @@
 package com.example.chess.auth;
 
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import java.util.concurrent.CompletableFuture;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthService {
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-    private final Map<String, Long> tokenStore = new ConcurrentHashMap<>();
+    private final PasswordHasher passwordHasher;
+    private final TokenService tokenService;
 
-    public AuthService(UserRepository userRepository) {
+    public AuthService(UserRepository userRepository, PasswordHasher passwordHasher, TokenService tokenService) {
         this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.tokenService = tokenService;
     }
 
-    public AuthResponse register(AuthRequest request) {
+    public CompletableFuture<AuthResponse> register(AuthRequest request) {
         String username = request.username().trim();
         if (username.isEmpty() || request.password().isBlank()) {
             throw new IllegalArgumentException("Username and password are required");
@@ -24,33 +23,33 @@ public class AuthService {
         if (userRepository.findByUsername(username).isPresent()) {
             throw new IllegalArgumentException("Username already exists");
         }
-        String hash = passwordEncoder.encode(request.password());
-        UserEntity user = userRepository.save(new UserEntity(username, hash));
-        String token = createToken(user.getId());
-        return new AuthResponse(user.getId(), user.getUsername(), token);
+        return passwordHasher.encode(request.password()).thenApply(hash -> {
+            UserEntity user = userRepository.save(new UserEntity(username, hash));
+            return issue(user);
+        });
     }
 
-    public AuthResponse login(AuthRequest request) {
+    public CompletableFuture<AuthResponse> login(AuthRequest request) {
         UserEntity user = userRepository.findByUsername(request.username().trim())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid credentials"));
-        if (!passwordEncoder.matches(request.password(), user.getPasswordHash())) {
-            throw new IllegalArgumentException("Invalid credentials");
-        }
-        String token = createToken(user.getId());
-        return new AuthResponse(user.getId(), user.getUsername(), token);
+        return passwordHasher.matches(request.password(), user.getPasswordHash()).thenApply(matches -> {
+            if (!matches) {
+                throw new IllegalArgumentException("Invalid credentials");
+            }
+            return issue(user);
+        });
     }
 
-    public UserEntity requireUser(String token) {
-        Long userId = tokenStore.get(token);
-        if (userId == null) {
-            return null;
-        }
-        return userRepository.findById(userId).orElse(null);
+    public AuthenticatedUser requireUser(String token) {
+        return tokenService.verify(token);
     }
 
-    private String createToken(Long userId) {
-        String token = UUID.randomUUID().toString();
-        tokenStore.put(token, userId);
-        return token;
+    public void logout(String token) {
+        tokenService.revoke(token);
+    }
+
+    private AuthResponse issue(UserEntity user) {
+        String token = tokenService.issue(user.getId(), user.getUsername());
+        return new AuthResponse(user.getId(), user.getUsername(), token);
     }
 }
@@ -0,0 +1,4 @@
+package com.example.chess.auth;
+
+public record AuthenticatedUser(Long id, String username) {
+}
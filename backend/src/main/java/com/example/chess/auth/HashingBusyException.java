@@ -0,0 +1,18 @@
+package com.example.chess.auth;
+
+import java.time.Duration;
+
+public class HashingBusyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public HashingBusyException(Duration retryAfter) {
+        super("Too many authentication requests, try again later");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.chess.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs BCrypt on a small dedicated pool so that login and register bursts cannot occupy request threads.
+ * Work beyond the queue limit is refused immediately with {@link HashingBusyException}.
+ */
+@Component
+public class PasswordHasher implements DisposableBean {
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+    private final Timer hashLatency;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordHasher(@Value("${chess.auth.hash-threads:0}") int threads,
+                          @Value("${chess.auth.hash-queue-capacity:64}") int queueCapacity,
+                          @Value("${chess.auth.hash-retry-after:1s}") Duration retryAfter,
+                          MeterRegistry meterRegistry) {
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HasherThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+        this.hashLatency = Timer.builder("chess.auth.hash.latency")
+                .description("Time spent computing a password hash")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("chess.auth.hash.queue.wait")
+                .description("Time a hash request waited for a hasher thread")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chess.auth.hash.rejected")
+                .description("Hash requests refused because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("chess.auth.hash.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Hash requests waiting for a hasher thread")
+                .register(meterRegistry);
+        Gauge.builder("chess.auth.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String hash) {
+        return submit(() -> encoder.matches(rawPassword, hash));
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hash) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(hash.get());
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                } finally {
+                    hashLatency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new HashingBusyException(retryAfter);
+        }
+        return result;
+    }
+
+    private static final class HasherThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.chess.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues and verifies self-contained session tokens: {@code base64url(payload).base64url(HMAC-SHA256)} where
+ * the payload is {@code kid:userId:expiresAt:tokenId:username}. Any node configured with the same keys can
+ * verify a token without shared state. The first configured key signs; the others only verify, so a key
+ * can be rotated in before it becomes the signer and kept until the tokens it signed have expired.
+ * Revoked token ids are remembered locally until their expiry.
+ */
+@Component
+public class TokenService {
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+    private final Map<String, ThreadLocal<Mac>> macs = new ConcurrentHashMap<>();
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final String signingKeyId;
+    private final Duration ttl;
+    private final int maxRevoked;
+    private final Clock clock;
+
+    @Autowired
+    public TokenService(@Value("${chess.auth.signing-keys:}") String[] signingKeys,
+                        @Value("${chess.auth.token-ttl:12h}") Duration ttl,
+                        @Value("${chess.auth.max-revoked:10000}") int maxRevoked) {
+        this(signingKeys, ttl, maxRevoked, Clock.systemUTC());
+    }
+
+    TokenService(String[] signingKeys, Duration ttl, int maxRevoked, Clock clock) {
+        for (String entry : signingKeys) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Signing keys must be written as <kid>:<base64 secret>");
+            }
+            addKey(entry.substring(0, separator).trim(), Base64.getDecoder().decode(entry.substring(separator + 1).trim()));
+        }
+        if (keys.isEmpty()) {
+            log.warn("No chess.auth.signing-keys configured, using a random key; tokens will not survive a restart "
+                    + "or validate on other nodes");
+            byte[] secret = new byte[MIN_KEY_BYTES];
+            random.nextBytes(secret);
+            addKey("local", secret);
+        }
+        this.signingKeyId = keys.keySet().iterator().next();
+        this.ttl = ttl;
+        this.maxRevoked = maxRevoked;
+        this.clock = clock;
+    }
+
+    public String issue(Long userId, String username) {
+        byte[] tokenId = new byte[9];
+        random.nextBytes(tokenId);
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String payload = signingKeyId + ":" + userId + ":" + expiresAt + ":" + ENCODER.encodeToString(tokenId) + ":" + username;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(signingKeyId, payloadBytes));
+    }
+
+    public AuthenticatedUser verify(String token) {
+        Claims claims = parse(token);
+        if (claims == null || revoked.containsKey(claims.tokenId)) {
+            return null;
+        }
+        return new AuthenticatedUser(claims.userId, claims.username);
+    }
+
+    public boolean revoke(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return false;
+        }
+        if (revoked.size() >= maxRevoked) {
+            pruneRevoked();
+            if (revoked.size() >= maxRevoked) {
+                throw new IllegalStateException("Revocation list is full");
+            }
+        }
+        revoked.put(claims.tokenId, claims.expiresAt);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${chess.auth.revocation-sweep-interval:5m}")
+    public void pruneRevoked() {
+        long now = clock.instant().getEpochSecond();
+        revoked.values().removeIf(expiresAt -> expiresAt < now);
+    }
+
+    private Claims parse(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(":", 5);
+            if (fields.length != 5 || !keys.containsKey(fields[0])) {
+                return null;
+            }
+            if (!MessageDigest.isEqual(signature, sign(fields[0], payloadBytes))) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(fields[2]);
+            if (expiresAt < clock.instant().getEpochSecond()) {
+                return null;
+            }
+            return new Claims(Long.parseLong(fields[1]), fields[4], expiresAt, fields[3]);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String keyId, byte[] payload) {
+        Mac mac = macs.get(keyId).get();
+        return mac.doFinal(payload);
+    }
+
+    private void addKey(String keyId, byte[] secret) {
+        if (secret.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("Signing key " + keyId + " must be at least " + MIN_KEY_BYTES + " bytes");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        keys.put(keyId, key);
+        macs.put(keyId, ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC is not available", ex);
+            }
+        }));
+    }
+
+    private record Claims(Long userId, String username, long expiresAt, String tokenId) {
+    }
+}
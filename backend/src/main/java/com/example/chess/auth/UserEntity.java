@@ -20,6 +20,12 @@ public class UserEntity {
     @Column(nullable = false)
     private String passwordHash;
 
+    @Column(nullable = false)
+    private int rating = 1500;
+
+    @Column(nullable = false)
+    private int gamesPlayed;
+
     protected UserEntity() {
     }
 
@@ -39,4 +45,17 @@ public class UserEntity {
     public String getPasswordHash() {
         return passwordHash;
     }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    public void recordGame(int newRating) {
+        this.rating = newRating;
+        this.gamesPlayed++;
+    }
 }
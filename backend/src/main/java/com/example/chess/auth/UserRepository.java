@@ -1,8 +1,20 @@
 package com.example.chess.auth;
 
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByUsername(String username);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from UserEntity u where u.id in :ids order by u.id")
+    List<UserEntity> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    List<UserEntity> findByGamesPlayedGreaterThan(int gamesPlayed);
 }
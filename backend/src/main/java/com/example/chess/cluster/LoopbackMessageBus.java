@@ -0,0 +1,102 @@
+package com.example.chess.cluster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process bus. Buses created with the same {@code chess.cluster.loopback.hub} name exchange messages,
+ * which lets several application contexts in one JVM act as a cluster; without a hub name the node is
+ * alone and publishing is a no-op. Each node delivers on its own dispatcher thread.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.cluster.transport", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackMessageBus implements MessageBus, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(LoopbackMessageBus.class);
+    private static final Map<String, Set<LoopbackMessageBus>> HUBS = new ConcurrentHashMap<>();
+
+    private final String nodeId;
+    private final String hub;
+    private final Map<String, List<Consumer<byte[]>>> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+
+    public LoopbackMessageBus(@Value("${chess.cluster.node-id:}") String nodeId,
+                              @Value("${chess.cluster.loopback.hub:}") String hub) {
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.hub = hub;
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bus-" + this.nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!hub.isBlank()) {
+            HUBS.computeIfAbsent(hub, name -> ConcurrentHashMap.newKeySet()).add(this);
+        }
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        if (hub.isBlank()) {
+            return;
+        }
+        for (LoopbackMessageBus member : HUBS.getOrDefault(hub, Set.of())) {
+            if (member != this) {
+                member.deliver(channel, message);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        listeners.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void destroy() {
+        if (!hub.isBlank()) {
+            HUBS.computeIfPresent(hub, (name, members) -> {
+                members.remove(this);
+                return members.isEmpty() ? null : members;
+            });
+        }
+        dispatcher.shutdownNow();
+    }
+
+    private void deliver(String channel, byte[] message) {
+        List<Consumer<byte[]>> subscribed = listeners.get(channel);
+        if (subscribed == null) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                for (Consumer<byte[]> listener : subscribed) {
+                    try {
+                        listener.accept(message);
+                    } catch (RuntimeException ex) {
+                        log.warn("Listener on {} failed", channel, ex);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.debug("Node {} is shut down, dropping message on {}", nodeId, channel);
+        }
+    }
+}
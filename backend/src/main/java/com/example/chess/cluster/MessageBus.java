@@ -0,0 +1,23 @@
+package com.example.chess.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Publish/subscribe transport between chess nodes. A message published on a channel is delivered to that
+ * channel's listeners on every other node, asynchronously and in publish order per publisher, at most once.
+ * Nodes that are not reachable at publish time miss the message. Only the node named by a
+ * {@link #nodeChannel(String) node channel} listens on it, so a transport may send it to that node alone.
+ */
+public interface MessageBus {
+    String NODE_CHANNEL_PREFIX = "chess.node.";
+
+    static String nodeChannel(String nodeId) {
+        return NODE_CHANNEL_PREFIX + nodeId;
+    }
+
+    String nodeId();
+
+    void publish(String channel, byte[] message);
+
+    void subscribe(String channel, Consumer<byte[]> listener);
+}
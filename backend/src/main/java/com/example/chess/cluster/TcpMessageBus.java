@@ -0,0 +1,389 @@
+package com.example.chess.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Broker-less bus for running several JVMs on one machine or a small LAN. Every node listens on
+ * {@code chess.cluster.tcp.bind-address} (loopback by default) and {@code chess.cluster.tcp.port}, and keeps
+ * one outbound connection to each configured peer, so the nodes form a full mesh. Each peer has a bounded
+ * send queue and a writer thread that reconnects after failures, dropping frames that arrive while the
+ * queue is full.
+ *
+ * <p>Nodes share the HMAC-SHA256 key {@code chess.cluster.tcp.key}. A connecting node sends a nonce; the
+ * listening node answers with its own nonce and node id, signed together with the first nonce. Every frame
+ * is then {@code [length][mac][channel][payload]}, the mac covering the listener's nonce, the frame's
+ * sequence number on the connection and the frame, so frames cannot be forged, replayed or reordered by
+ * anyone without the key. Messages on a node channel go only to the peer that announced that node id.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.cluster.transport", havingValue = "tcp")
+public class TcpMessageBus implements MessageBus, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(TcpMessageBus.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+    private static final int MAC_BYTES = 32;
+    private static final int NONCE_BYTES = 16;
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+    private static final long RECONNECT_DELAY_MILLIS = 500;
+
+    private final String nodeId;
+    private final InetAddress bindAddress;
+    private final int port;
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+    private final List<Peer> peers = new ArrayList<>();
+    private final Map<String, List<Consumer<byte[]>>> listeners = new ConcurrentHashMap<>();
+    private final List<Socket> inbound = new CopyOnWriteArrayList<>();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public TcpMessageBus(@Value("${chess.cluster.node-id:}") String nodeId,
+                         @Value("${chess.cluster.tcp.bind-address:127.0.0.1}") String bindAddress,
+                         @Value("${chess.cluster.tcp.port:7400}") int port,
+                         @Value("${chess.cluster.tcp.key:}") String key,
+                         @Value("${chess.cluster.tcp.peers:}") List<String> peers,
+                         @Value("${chess.cluster.tcp.queue-capacity:10000}") int queueCapacity) {
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        try {
+            this.bindAddress = InetAddress.getByName(bindAddress);
+        } catch (UnknownHostException ex) {
+            throw new IllegalArgumentException("Unknown chess.cluster.tcp.bind-address " + bindAddress, ex);
+        }
+        this.port = port;
+        if (key.isBlank()) {
+            throw new IllegalArgumentException("chess.cluster.tcp.key must be set to a shared base64 secret");
+        }
+        byte[] secret = Base64.getDecoder().decode(key.trim());
+        if (secret.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("chess.cluster.tcp.key must be at least " + MIN_KEY_BYTES + " bytes");
+        }
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        for (String peer : peers) {
+            if (peer.isBlank()) {
+                continue;
+            }
+            int colon = peer.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Peer must be host:port, got " + peer);
+            }
+            String host = peer.substring(0, colon).trim();
+            int peerPort = Integer.parseInt(peer.substring(colon + 1).trim());
+            this.peers.add(new Peer(InetSocketAddress.createUnresolved(host, peerPort), queueCapacity));
+        }
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        byte[] name = channel.getBytes(StandardCharsets.UTF_8);
+        byte[] frame = ByteBuffer.allocate(2 + name.length + message.length)
+                .putShort((short) name.length)
+                .put(name)
+                .put(message)
+                .array();
+        String target = channel.startsWith(NODE_CHANNEL_PREFIX) ? channel.substring(NODE_CHANNEL_PREFIX.length()) : null;
+        boolean addressed = target != null && peers.stream().anyMatch(peer -> target.equals(peer.remoteNodeId));
+        for (Peer peer : peers) {
+            // until the target node has answered a handshake, send to the peers not identified yet
+            if (target == null || (addressed ? target.equals(peer.remoteNodeId) : peer.remoteNodeId == null)) {
+                peer.offer(frame);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        listeners.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void start() {
+        try {
+            serverSocket = new ServerSocket(port, 50, bindAddress);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not listen on cluster address " + bindAddress + ":" + port, ex);
+        }
+        running = true;
+        daemon("bus-accept-" + port, this::accept).start();
+        for (Peer peer : peers) {
+            daemon("bus-peer-" + peer.address, peer::run).start();
+        }
+        log.info("Cluster node {} listening on {}:{} with peers {}", nodeId, bindAddress.getHostAddress(), port,
+                peers.stream().map(p -> p.address).toList());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        for (Socket socket : inbound) {
+            closeQuietly(socket);
+        }
+        for (Peer peer : peers) {
+            peer.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                inbound.add(socket);
+                daemon("bus-read-" + socket.getRemoteSocketAddress(), () -> read(socket)).start();
+            } catch (IOException ex) {
+                if (running) {
+                    log.warn("Cluster accept failed", ex);
+                }
+            }
+        }
+    }
+
+    private void read(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            Mac mac = newMac();
+            byte[] nonce = answerHandshake(socket, in, mac);
+            for (long sequence = 0; running; sequence++) {
+                int length = in.readInt();
+                if (length < MAC_BYTES + 2 || length > MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid cluster frame length " + length);
+                }
+                byte[] signature = new byte[MAC_BYTES];
+                in.readFully(signature);
+                byte[] frame = new byte[length - MAC_BYTES];
+                in.readFully(frame);
+                if (!MessageDigest.isEqual(signature, sign(mac, nonce, sequence, frame))) {
+                    throw new IOException("Cluster frame signature mismatch");
+                }
+                dispatch(ByteBuffer.wrap(frame));
+            }
+        } catch (EOFException ex) {
+            log.debug("Cluster peer {} disconnected", socket.getRemoteSocketAddress());
+        } catch (IOException ex) {
+            if (running) {
+                log.info("Cluster connection from {} failed: {}", socket.getRemoteSocketAddress(), ex.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Reads the connecting node's nonce and answers with this node's nonce and id, signed with both nonces.
+     *
+     * @return the nonce the connecting node signs its frames with
+     */
+    private byte[] answerHandshake(Socket socket, DataInputStream in, Mac mac) throws IOException {
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        byte[] peerNonce = new byte[NONCE_BYTES];
+        in.readFully(peerNonce);
+        byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+        byte[] id = nodeId.getBytes(StandardCharsets.UTF_8);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.write(nonce);
+        out.writeShort(id.length);
+        out.write(id);
+        out.write(signHello(mac, peerNonce, nonce, id));
+        out.flush();
+        socket.setSoTimeout(0);
+        return nonce;
+    }
+
+    private void dispatch(ByteBuffer frame) {
+        byte[] name = new byte[frame.getShort() & 0xFFFF];
+        frame.get(name);
+        String channel = new String(name, StandardCharsets.UTF_8);
+        List<Consumer<byte[]>> subscribed = listeners.get(channel);
+        if (subscribed == null) {
+            return;
+        }
+        byte[] message = new byte[frame.remaining()];
+        frame.get(message);
+        for (Consumer<byte[]> listener : subscribed) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException ex) {
+                log.warn("Listener on {} failed", channel, ex);
+            }
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC is not available", ex);
+        }
+    }
+
+    private static byte[] signHello(Mac mac, byte[] peerNonce, byte[] nonce, byte[] id) {
+        mac.update(peerNonce);
+        mac.update(nonce);
+        mac.update(id);
+        return mac.doFinal();
+    }
+
+    private static byte[] sign(Mac mac, byte[] nonce, long sequence, byte[] frame) {
+        mac.update(nonce);
+        mac.update(ByteBuffer.allocate(8).putLong(sequence).array());
+        mac.update(frame);
+        return mac.doFinal();
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already closing
+        }
+    }
+
+    private final class Peer {
+        private final InetSocketAddress address;
+        private final BlockingQueue<byte[]> queue;
+        private volatile Socket socket;
+        private volatile String remoteNodeId;
+
+        private Peer(InetSocketAddress address, int queueCapacity) {
+            this.address = address;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void offer(byte[] frame) {
+            if (!queue.offer(frame)) {
+                log.debug("Send queue to {} is full, dropping frame", address);
+            }
+        }
+
+        private void run() {
+            Mac mac = newMac();
+            while (running) {
+                try (Socket connection = new Socket(address.getHostString(), address.getPort())) {
+                    socket = connection;
+                    connection.setTcpNoDelay(true);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                    byte[] nonce = handshake(connection, out, mac);
+                    log.info("Connected to cluster peer {} ({})", address, remoteNodeId);
+                    for (long sequence = 0; running; ) {
+                        byte[] frame = queue.poll(1, TimeUnit.SECONDS);
+                        if (frame == null) {
+                            continue;
+                        }
+                        do {
+                            out.writeInt(MAC_BYTES + frame.length);
+                            out.write(sign(mac, nonce, sequence++, frame));
+                            out.write(frame);
+                        } while ((frame = queue.poll()) != null);
+                        out.flush();
+                    }
+                } catch (IOException ex) {
+                    if (running) {
+                        log.debug("Cluster peer {} unavailable: {}", address, ex.getMessage());
+                        sleep();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Sends a nonce and checks the peer's signed answer.
+         *
+         * @return the peer's nonce, which signs the frames sent on this connection
+         */
+        private byte[] handshake(Socket connection, DataOutputStream out, Mac mac) throws IOException {
+            byte[] challenge = new byte[NONCE_BYTES];
+            random.nextBytes(challenge);
+            out.write(challenge);
+            out.flush();
+            connection.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            byte[] nonce = new byte[NONCE_BYTES];
+            in.readFully(nonce);
+            byte[] id = new byte[in.readUnsignedShort()];
+            in.readFully(id);
+            byte[] signature = new byte[MAC_BYTES];
+            in.readFully(signature);
+            if (!MessageDigest.isEqual(signature, signHello(mac, challenge, nonce, id))) {
+                throw new IOException("Cluster peer " + address + " does not share the cluster key");
+            }
+            connection.setSoTimeout(0);
+            remoteNodeId = new String(id, StandardCharsets.UTF_8);
+            return nonce;
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void close() {
+            Socket current = socket;
+            if (current != null) {
+                closeQuietly(current);
+            }
+        }
+    }
+}
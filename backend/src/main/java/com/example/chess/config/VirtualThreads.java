@@ -0,0 +1,83 @@
+package com.example.chess.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads for builds that still compile for Java 17. The Java 21 API is looked up at runtime, so
+ * {@link #isSupported()} is false on older JVMs and callers keep their platform-thread pools.
+ */
+public final class VirtualThreads {
+    private static final MethodHandle OF_VIRTUAL;
+    private static final MethodHandle NAME;
+    private static final MethodHandle FACTORY;
+    private static final MethodHandle THREAD_PER_TASK;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle factory = null;
+        MethodHandle threadPerTask = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtualType = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualType));
+            name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class, long.class));
+            factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+            threadPerTask = lookup.findStatic(java.util.concurrent.Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ReflectiveOperationException ex) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        THREAD_PER_TASK = threadPerTask;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Returns a factory for virtual threads named {@code prefix0}, {@code prefix1}, ...
+     *
+     * @throws UnsupportedOperationException below Java 21
+     */
+    public static ThreadFactory factory(String prefix) {
+        requireSupported();
+        try {
+            Object builder = OF_VIRTUAL.invoke();
+            return (ThreadFactory) FACTORY.invoke(NAME.invoke(builder, prefix, 0L));
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Could not create virtual thread factory", ex);
+        }
+    }
+
+    /**
+     * Returns an executor that starts one virtual thread per task.
+     *
+     * @throws UnsupportedOperationException below Java 21
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        ThreadFactory factory = factory(prefix);
+        try {
+            return (ExecutorService) THREAD_PER_TASK.invoke(factory);
+        } catch (Throwable ex) {
+            throw new IllegalStateException("Could not create virtual thread executor", ex);
+        }
+    }
+
+    private static void requireSupported() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+    }
+}
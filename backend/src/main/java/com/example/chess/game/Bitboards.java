@@ -0,0 +1,120 @@
+package com.example.chess.game;
+
+/**
+ * Precomputed attack tables on a little-endian rank-file board (a1 = 0, h8 = 63).
+ * Sliding attacks use classical rays cut at the first blocker.
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    private static final int[] DIR_RANK = { 1, 0, 1, 1, -1, 0, -1, -1 };
+    private static final int[] DIR_FILE = { 0, 1, 1, -1, 0, -1, -1, 1 };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    private static final long[][] RAYS = new long[8][64];
+
+    static {
+        int[][] knightSteps = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+        for (int sq = 0; sq < 64; sq++) {
+            int rank = sq >>> 3;
+            int file = sq & 7;
+            for (int[] step : knightSteps) {
+                KNIGHT_ATTACKS[sq] |= bitAt(rank + step[0], file + step[1]);
+            }
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int df = -1; df <= 1; df++) {
+                    if (dr != 0 || df != 0) {
+                        KING_ATTACKS[sq] |= bitAt(rank + dr, file + df);
+                    }
+                }
+            }
+            PAWN_ATTACKS[Piece.WHITE][sq] = bitAt(rank + 1, file - 1) | bitAt(rank + 1, file + 1);
+            PAWN_ATTACKS[Piece.BLACK][sq] = bitAt(rank - 1, file - 1) | bitAt(rank - 1, file + 1);
+            for (int dir = 0; dir < 8; dir++) {
+                int r = rank + DIR_RANK[dir];
+                int f = file + DIR_FILE[dir];
+                while (r >= 0 && r < 8 && f >= 0 && f < 8) {
+                    RAYS[dir][sq] |= 1L << (r * 8 + f);
+                    r += DIR_RANK[dir];
+                    f += DIR_FILE[dir];
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return positiveRay(NORTH, square, occupied)
+                | positiveRay(EAST, square, occupied)
+                | negativeRay(SOUTH, square, occupied)
+                | negativeRay(WEST, square, occupied);
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return positiveRay(NORTH_EAST, square, occupied)
+                | positiveRay(NORTH_WEST, square, occupied)
+                | negativeRay(SOUTH_WEST, square, occupied)
+                | negativeRay(SOUTH_EAST, square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    private static long positiveRay(int dir, int square, long occupied) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long negativeRay(int dir, int square, long occupied) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long bitAt(int rank, int file) {
+        if (rank < 0 || rank > 7 || file < 0 || file > 7) {
+            return 0L;
+        }
+        return 1L << (rank * 8 + file);
+    }
+}
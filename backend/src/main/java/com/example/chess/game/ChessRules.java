@@ -3,126 +3,168 @@ package com.example.chess.game;
 import java.util.List;
 
 public final class ChessRules {
+    private static final ThreadLocal<MoveList> SCRATCH = ThreadLocal.withInitial(MoveList::new);
+    private static final String SAN_LETTERS = "PNBRQK";
+
     private ChessRules() {
     }
 
-    public static BoardState buildBoard(List<MoveEntity> moves) {
-        BoardState state = BoardState.initial();
+    public static Position buildBoard(List<MoveEntity> moves) {
+        return buildBoard(Position.initial(), moves);
+    }
+
+    /**
+     * Plays {@code moves} on {@code position}, which is returned.
+     */
+    public static Position buildBoard(Position position, List<MoveEntity> moves) {
         for (MoveEntity move : moves) {
-            state.applyMove(move.getFromSquare(), move.getToSquare(), move.getPiece());
+            replay(position, Move.unpack(move.getPackedMove()));
         }
-        return state;
+        return position;
     }
 
-    public static boolean isLegalMove(BoardState state, String from, String to) {
-        Square fromSq = Square.parse(from);
-        Square toSq = Square.parse(to);
-        if (fromSq == null || toSq == null) {
-            return false;
-        }
-        if (fromSq.row() == toSq.row() && fromSq.col() == toSq.col()) {
-            return false;
-        }
-        String piece = state.getPiece(fromSq);
-        if (piece == null || piece.isEmpty()) {
-            return false;
-        }
-        String target = state.getPiece(toSq);
-        if (target != null && !target.isEmpty() && sameColor(piece, target)) {
-            return false;
-        }
-
-        char type = piece.charAt(1);
-        int dr = toSq.row() - fromSq.row();
-        int dc = toSq.col() - fromSq.col();
-
-        return switch (type) {
-            case 'P' -> pawnMove(state, piece, fromSq, toSq, dr, dc, target);
-            case 'R' -> rookMove(state, fromSq, toSq, dr, dc);
-            case 'N' -> knightMove(dr, dc);
-            case 'B' -> bishopMove(state, fromSq, toSq, dr, dc);
-            case 'Q' -> queenMove(state, fromSq, toSq, dr, dc);
-            case 'K' -> kingMove(dr, dc);
-            default -> false;
-        };
+    private static void replay(Position position, int move) {
+        int piece = position.pieceAt(Move.from(move));
+        if (piece == Piece.NONE || Piece.color(piece) != position.sideToMove()) {
+            throw new IllegalStateException("Stored move " + Move.toUci(move) + " does not fit the position");
+        }
+        position.makeMove(move);
     }
 
-    private static boolean pawnMove(BoardState state, String piece, Square from, Square to, int dr, int dc, String target) {
-        int direction = piece.startsWith("w") ? -1 : 1;
-        int startRow = piece.startsWith("w") ? 6 : 1;
+    public static MoveList generateLegalMoves(Position position) {
+        return MoveGenerator.generateLegalMoves(position);
+    }
 
-        if (dc == 0) {
-            if (dr == direction && isEmpty(target)) {
-                return true;
+    public static boolean isLegalMove(Position position, String from, String to) {
+        return findLegalMove(position, squareIndex(from), squareIndex(to), Piece.QUEEN) != Move.NONE;
+    }
+
+    public static int findLegalMove(Position position, int from, int to, int promotionType) {
+        if (from < 0 || to < 0 || from == to) {
+            return Move.NONE;
+        }
+        if (promotionType == Piece.NONE) {
+            promotionType = Piece.QUEEN;
+        }
+        MoveList candidates = SCRATCH.get();
+        MoveGenerator.generatePseudoLegalMoves(position, candidates, Bitboards.bit(from));
+        for (int i = 0; i < candidates.size(); i++) {
+            int move = candidates.get(i);
+            if (Move.to(move) != to) {
+                continue;
             }
-            if (dr == 2 * direction && from.row() == startRow) {
-                Square mid = new Square(from.row() + direction, from.col());
-                return isEmpty(state.getPiece(mid)) && isEmpty(target);
+            if (Move.isPromotion(move) && Move.promotionType(move) != promotionType) {
+                continue;
+            }
+            if (MoveGenerator.isLegal(position, move)) {
+                return move;
             }
-            return false;
-        }
-        if (Math.abs(dc) == 1 && dr == direction) {
-            return !isEmpty(target) && !sameColor(piece, target);
         }
-        return false;
+        return Move.NONE;
     }
 
-    private static boolean rookMove(BoardState state, Square from, Square to, int dr, int dc) {
-        if (dr != 0 && dc != 0) {
-            return false;
+    /**
+     * Standard algebraic notation of the legal {@code move} in {@code position}, such as {@code Nbd7},
+     * {@code exd8=Q+} or {@code O-O#}. The position is left as it was.
+     */
+    public static String toSan(Position position, int move) {
+        StringBuilder san = new StringBuilder(8);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int type = Piece.type(position.pieceAt(from));
+        if (Move.flags(move) == Move.KING_CASTLE) {
+            san.append("O-O");
+        } else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+            san.append("O-O-O");
+        } else if (type == Piece.PAWN) {
+            if (Move.isCapture(move)) {
+                san.append((char) ('a' + (from & 7))).append('x');
+            }
+            san.append(squareName(to));
+            if (Move.isPromotion(move)) {
+                san.append('=').append(SAN_LETTERS.charAt(Move.promotionType(move)));
+            }
+        } else {
+            san.append(SAN_LETTERS.charAt(type));
+            appendDisambiguation(position, move, type, san);
+            if (Move.isCapture(move)) {
+                san.append('x');
+            }
+            san.append(squareName(to));
         }
-        return state.isPathClear(from, to);
-    }
-
-    private static boolean bishopMove(BoardState state, Square from, Square to, int dr, int dc) {
-        if (Math.abs(dr) != Math.abs(dc)) {
-            return false;
+        position.makeMove(move);
+        if (position.inCheck()) {
+            MoveList replies = SCRATCH.get();
+            MoveGenerator.generateLegalMoves(position, replies);
+            san.append(replies.isEmpty() ? '#' : '+');
         }
-        return state.isPathClear(from, to);
+        position.unmakeMove(move);
+        return san.toString();
     }
 
-    private static boolean queenMove(BoardState state, Square from, Square to, int dr, int dc) {
-        if (dr == 0 || dc == 0) {
-            return state.isPathClear(from, to);
+    /**
+     * Adds the file, the rank or both of the origin square when another piece of the same type could also
+     * reach the target square.
+     */
+    private static void appendDisambiguation(Position position, int move, int type, StringBuilder san) {
+        int from = Move.from(move);
+        long others = position.pieces(position.sideToMove(), type) & ~Bitboards.bit(from);
+        if (others == 0) {
+            return;
+        }
+        MoveList candidates = SCRATCH.get();
+        MoveGenerator.generatePseudoLegalMoves(position, candidates, others);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < candidates.size(); i++) {
+            int other = candidates.get(i);
+            if (Move.to(other) != Move.to(move) || !MoveGenerator.isLegal(position, other)) {
+                continue;
+            }
+            ambiguous = true;
+            sameFile |= (Move.from(other) & 7) == (from & 7);
+            sameRank |= (Move.from(other) >>> 3) == (from >>> 3);
         }
-        if (Math.abs(dr) == Math.abs(dc)) {
-            return state.isPathClear(from, to);
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            san.append((char) ('a' + (from & 7)));
+        } else if (!sameRank) {
+            san.append((char) ('1' + (from >>> 3)));
+        } else {
+            san.append(squareName(from));
         }
-        return false;
-    }
-
-    private static boolean knightMove(int dr, int dc) {
-        int adr = Math.abs(dr);
-        int adc = Math.abs(dc);
-        return (adr == 2 && adc == 1) || (adr == 1 && adc == 2);
-    }
-
-    private static boolean kingMove(int dr, int dc) {
-        return Math.abs(dr) <= 1 && Math.abs(dc) <= 1;
     }
 
-    private static boolean sameColor(String a, String b) {
-        return a.charAt(0) == b.charAt(0);
+    public static int squareIndex(String square) {
+        if (square == null || square.length() != 2) {
+            return -1;
+        }
+        char file = square.charAt(0);
+        char rank = square.charAt(1);
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return -1;
+        }
+        return (rank - '1') * 8 + (file - 'a');
     }
 
-    private static boolean isEmpty(String value) {
-        return value == null || value.isEmpty();
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
     }
 
     public record Square(int row, int col) {
         public static Square parse(String square) {
-            if (square == null || square.length() != 2) {
+            int index = squareIndex(square);
+            if (index < 0) {
                 return null;
             }
-            char file = square.charAt(0);
-            char rankChar = square.charAt(1);
-            if (file < 'a' || file > 'h' || rankChar < '1' || rankChar > '8') {
-                return null;
-            }
-            int col = file - 'a';
-            int rank = rankChar - '0';
-            int row = 8 - rank;
-            return new Square(row, col);
+            return new Square(7 - (index >>> 3), index & 7);
+        }
+
+        public int index() {
+            return (7 - row) * 8 + col;
         }
 
         public String toNotation() {
@@ -131,59 +173,4 @@ public final class ChessRules {
             return "" + file + rank;
         }
     }
-
-    public static final class BoardState {
-        private final String[][] board;
-
-        private BoardState(String[][] board) {
-            this.board = board;
-        }
-
-        public static BoardState initial() {
-            String[][] board = new String[8][8];
-            for (int row = 0; row < 8; row++) {
-                for (int col = 0; col < 8; col++) {
-                    board[row][col] = "";
-                }
-            }
-            board[0] = new String[] { "bR", "bN", "bB", "bQ", "bK", "bB", "bN", "bR" };
-            board[1] = new String[] { "bP", "bP", "bP", "bP", "bP", "bP", "bP", "bP" };
-            board[6] = new String[] { "wP", "wP", "wP", "wP", "wP", "wP", "wP", "wP" };
-            board[7] = new String[] { "wR", "wN", "wB", "wQ", "wK", "wB", "wN", "wR" };
-            return new BoardState(board);
-        }
-
-        public String getPiece(Square square) {
-            return board[square.row()][square.col()];
-        }
-
-        public void applyMove(String from, String to, String piece) {
-            Square fromSq = Square.parse(from);
-            Square toSq = Square.parse(to);
-            if (fromSq == null || toSq == null) {
-                return;
-            }
-            String moving = piece;
-            if (moving == null || moving.isEmpty()) {
-                moving = getPiece(fromSq);
-            }
-            board[fromSq.row()][fromSq.col()] = "";
-            board[toSq.row()][toSq.col()] = moving;
-        }
-
-        public boolean isPathClear(Square from, Square to) {
-            int dr = Integer.signum(to.row() - from.row());
-            int dc = Integer.signum(to.col() - from.col());
-            int r = from.row() + dr;
-            int c = from.col() + dc;
-            while (r != to.row() || c != to.col()) {
-                if (!board[r][c].isEmpty()) {
-                    return false;
-                }
-                r += dr;
-                c += dc;
-            }
-            return true;
-        }
-    }
 }
@@ -0,0 +1,9 @@
+package com.example.chess.game;
+
+import java.time.Instant;
+
+/**
+ * When the side to move in an active timed game runs out of time, as rescheduled on startup.
+ */
+public record FlagDeadline(Long gameId, Instant flagAt) {
+}
@@ -0,0 +1,87 @@
+package com.example.chess.game;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Flag-fall timers of the games owned by this node, one per game, all on a single {@link TimingWheel}.
+ * Scheduling a game replaces its previous timer. When a timer expires the flag listener is told the game
+ * id; it is expected to check the clock on the game's command executor, since a move may have raced the
+ * timer.
+ */
+@Component
+public class GameClocks implements DisposableBean {
+    private final Map<Long, TimingWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+    private final TimingWheel wheel;
+    private final Timer lateness;
+    private final Counter expired;
+    private volatile Consumer<Long> flagListener = gameId -> { };
+
+    public GameClocks(@Value("${chess.clocks.tick:1ms}") Duration tick,
+                      @Value("${chess.clocks.wheel-size:512}") int wheelSize,
+                      MeterRegistry meterRegistry) {
+        this.wheel = new TimingWheel(Math.max(1, tick.toMillis()), wheelSize, "game-clock", this::expired);
+        this.lateness = Timer.builder("chess.clocks.lateness")
+                .description("Delay between a flag deadline and the timer firing")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(meterRegistry);
+        this.expired = Counter.builder("chess.clocks.expired")
+                .description("Flag timers that fired")
+                .register(meterRegistry);
+        Gauge.builder("chess.clocks.scheduled", wheel, TimingWheel::size)
+                .description("Games with a running clock on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets who checks a game whose timer has expired.
+     */
+    public void onFlag(Consumer<Long> listener) {
+        this.flagListener = listener;
+    }
+
+    /**
+     * Arms the game's timer to expire in {@code remainingMillis}, replacing any earlier one.
+     */
+    public void schedule(Long gameId, long remainingMillis) {
+        TimingWheel.Timeout previous = timeouts.put(gameId, wheel.schedule(gameId, remainingMillis));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    public void cancel(Long gameId) {
+        TimingWheel.Timeout timeout = timeouts.remove(gameId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    public int size() {
+        return wheel.size();
+    }
+
+    @Override
+    public void destroy() {
+        wheel.close();
+    }
+
+    private void expired(TimingWheel.Timeout timeout) {
+        if (!timeouts.remove(timeout.key(), timeout)) {
+            return;
+        }
+        expired.increment();
+        lateness.record(Math.max(0, wheel.nowMillis() - timeout.deadline()), TimeUnit.MILLISECONDS);
+        flagListener.accept(timeout.key());
+    }
+}
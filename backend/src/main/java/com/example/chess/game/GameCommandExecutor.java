@@ -0,0 +1,120 @@
+package com.example.chess.game;
+
+import com.example.chess.config.VirtualThreads;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs commands for the same game one at a time and in submission order, while different games share a
+ * fixed worker pool. Each game gets a mailbox that is scheduled on the pool only while it has pending work.
+ * With {@code spring.threads.virtual.enabled} on Java 21+, each scheduled mailbox runs on its own virtual
+ * thread instead, so commands blocked on the database no longer hold one of a few platform workers.
+ */
+@Component
+public class GameCommandExecutor implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(GameCommandExecutor.class);
+    private static final int BATCH_SIZE = 32;
+
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+
+    public GameCommandExecutor(@Value("${chess.game-executor.threads:0}") int threads,
+                               @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads && VirtualThreads.isSupported()) {
+            this.workers = VirtualThreads.newThreadPerTaskExecutor("game-worker-");
+        } else {
+            if (virtualThreads) {
+                log.info("Virtual threads need Java 21, game commands stay on platform threads");
+            }
+            int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            this.workers = Executors.newFixedThreadPool(size, new WorkerThreadFactory());
+        }
+    }
+
+    public CompletableFuture<Void> submit(Long gameId, GameCommand command) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                command.run();
+                result.complete(null);
+            } catch (Throwable ex) {
+                log.warn("Command for game {} failed", gameId, ex);
+                result.completeExceptionally(ex);
+            }
+        };
+        Mailbox[] toSchedule = new Mailbox[1];
+        mailboxes.compute(gameId, (id, mailbox) -> {
+            Mailbox target = mailbox != null ? mailbox : new Mailbox(id);
+            target.queue.add(task);
+            if (target.pending++ == 0) {
+                toSchedule[0] = target;
+            }
+            return target;
+        });
+        if (toSchedule[0] != null) {
+            workers.execute(toSchedule[0]);
+        }
+        return result;
+    }
+
+    public int activeMailboxes() {
+        return mailboxes.size();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @FunctionalInterface
+    public interface GameCommand {
+        void run() throws Exception;
+    }
+
+    private final class Mailbox implements Runnable {
+        private final Long gameId;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private int pending;
+
+        private Mailbox(Long gameId) {
+            this.gameId = gameId;
+        }
+
+        @Override
+        public void run() {
+            for (int processed = 0; processed < BATCH_SIZE; processed++) {
+                queue.poll().run();
+                Mailbox remaining = mailboxes.computeIfPresent(gameId, (id, mailbox) -> --mailbox.pending == 0 ? null : mailbox);
+                if (remaining == null) {
+                    return;
+                }
+            }
+            workers.execute(this);
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "game-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,56 +1,160 @@
 package com.example.chess.game;
 
 import com.example.chess.auth.AuthService;
-import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.AuthenticatedUser;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api/games")
 public class GameController {
+    private static final int MAX_MOVES_PAGE = 500;
+    private static final MediaType PGN = MediaType.parseMediaType("application/x-chess-pgn;charset=UTF-8");
+
     private final AuthService authService;
     private final GameService gameService;
+    private final PgnExportService pgnExport;
 
-    public GameController(AuthService authService, GameService gameService) {
+    public GameController(AuthService authService, GameService gameService, PgnExportService pgnExport) {
         this.authService = authService;
         this.gameService = gameService;
+        this.pgnExport = pgnExport;
     }
 
     @GetMapping("/active")
-    public ResponseEntity<GameStateDto> activeGame(@RequestHeader("Authorization") String authorization) {
-        UserEntity user = requireUser(authorization);
+    public ResponseEntity<GameStateDto> activeGame(@RequestHeader("Authorization") String authorization,
+                                                   @RequestParam(defaultValue = "0") int since) {
+        AuthenticatedUser user = requireUser(authorization);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        GameStateDto state = gameService.getActiveGame(user.getId());
+        if (since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        GameStateDto state = gameService.getActiveGame(user.id(), since);
         return ResponseEntity.ok(state);
     }
 
+    /**
+     * Moves after {@code since}, all of them or a page of {@code limit}. A full page links to the next one,
+     * whose cursor is the last move number returned. The ETag only changes when the game does, so a client
+     * polling with {@code If-None-Match} gets an empty {@code 304} until there is something new.
+     */
     @GetMapping("/{gameId}/moves")
     public ResponseEntity<List<MoveDto>> moves(@RequestHeader("Authorization") String authorization,
-                                               @PathVariable Long gameId) {
-        UserEntity user = requireUser(authorization);
+                                               @PathVariable Long gameId,
+                                               @RequestParam(defaultValue = "0") int since,
+                                               @RequestParam(required = false) Integer limit,
+                                               WebRequest request) {
+        AuthenticatedUser user = requireUser(authorization);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        if (since < 0 || (limit != null && limit < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
         GameEntity game = gameService.getGame(gameId);
-        if (game == null || (!game.getWhiteUserId().equals(user.getId()) && !game.getBlackUserId().equals(user.getId()))) {
+        if (game == null || (!game.getWhiteUserId().equals(user.id()) && !game.getBlackUserId().equals(user.id()))) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        return ResponseEntity.ok(gameService.getMoves(gameId));
+        String etag = "\"" + gameService.movesVersion(game) + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (limit == null) {
+            return ResponseEntity.ok().eTag(etag).body(gameService.getMoves(gameId, since, Integer.MAX_VALUE));
+        }
+        int pageSize = Math.min(limit, MAX_MOVES_PAGE);
+        List<MoveDto> moves = gameService.getMoves(gameId, since, pageSize + 1);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (moves.size() > pageSize) {
+            moves = moves.subList(0, pageSize);
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("since", moves.get(pageSize - 1).moveNumber())
+                    .replaceQueryParam("limit", pageSize)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(moves);
     }
 
-    private UserEntity requireUser(String authorization) {
+    @GetMapping("/{gameId}/pgn")
+    public ResponseEntity<StreamingResponseBody> pgn(@RequestHeader("Authorization") String authorization,
+                                                     @PathVariable Long gameId) {
+        if (requireUser(authorization) == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        GameEntity game = gameService.getGame(gameId);
+        if (game == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return pgnResponse("game-" + gameId + ".pgn", out -> pgnExport.exportGame(game, out));
+    }
+
+    /**
+     * Streams either the finished games of {@code userId} or every game created between {@code from} and
+     * {@code to}, both inclusive days in UTC.
+     */
+    @GetMapping("/pgn")
+    public ResponseEntity<StreamingResponseBody> pgnArchive(@RequestHeader("Authorization") String authorization,
+                                                            @RequestParam(required = false) Long userId,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (requireUser(authorization) == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (userId != null) {
+            return pgnResponse("user-" + userId + ".pgn", out -> pgnExport.exportFinishedGames(userId, out));
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return pgnResponse("games-" + from + "-" + to + ".pgn", out -> pgnExport.exportCreatedBetween(
+                from.atStartOfDay(ZoneOffset.UTC).toInstant(), to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant(), out));
+    }
+
+    private ResponseEntity<StreamingResponseBody> pgnResponse(String filename, PgnBody body) {
+        StreamingResponseBody stream = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            body.writeTo(writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(PGN)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(stream);
+    }
+
+    private AuthenticatedUser requireUser(String authorization) {
         if (authorization == null || !authorization.startsWith("Bearer ")) {
             return null;
         }
         String token = authorization.substring("Bearer ".length()).trim();
         return authService.requireUser(token);
     }
+
+    private interface PgnBody {
+        void writeTo(Writer out) throws IOException;
+    }
 }
@@ -7,11 +7,18 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 
 @Entity
-@Table(name = "games")
+@Table(name = "games", indexes = {
+        @Index(name = "idx_games_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_games_status_white", columnList = "status, white_user_id"),
+        @Index(name = "idx_games_status_black", columnList = "status, black_user_id")
+})
 public class GameEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -42,6 +49,39 @@ public class GameEntity {
     @Column
     private Instant endedAt;
 
+    @Column
+    private Integer baseSeconds;
+
+    @Column
+    private Integer incrementSeconds;
+
+    @Column
+    private Long whiteClockMillis;
+
+    @Column
+    private Long blackClockMillis;
+
+    @Column
+    private Instant flagAt;
+
+    @Column(nullable = false)
+    private int moveCount;
+
+    @Column(nullable = false, length = 1)
+    private String sideToMove = "w";
+
+    @Version
+    private Long version;
+
+    @Column
+    private Integer snapshotPly;
+
+    @Column(length = 100)
+    private String snapshotFen;
+
+    @Column(length = 800)
+    private byte[] snapshotHashes;
+
     protected GameEntity() {
     }
 
@@ -50,6 +90,18 @@ public class GameEntity {
         this.blackUserId = blackUserId;
     }
 
+    /**
+     * Creates a timed game; white's clock starts running right away.
+     */
+    public GameEntity(Long whiteUserId, Long blackUserId, TimeControl timeControl) {
+        this(whiteUserId, blackUserId);
+        this.baseSeconds = timeControl.baseSeconds();
+        this.incrementSeconds = timeControl.incrementSeconds();
+        this.whiteClockMillis = timeControl.baseSeconds() * 1000L;
+        this.blackClockMillis = whiteClockMillis;
+        this.flagAt = createdAt.plusMillis(whiteClockMillis);
+    }
+
     public Long getId() {
         return id;
     }
@@ -91,6 +143,124 @@ public class GameEntity {
         this.updatedAt = this.endedAt;
     }
 
+    public boolean isTimed() {
+        return flagAt != null;
+    }
+
+    public TimeControl getTimeControl() {
+        return baseSeconds == null ? null : new TimeControl(baseSeconds, incrementSeconds);
+    }
+
+    /**
+     * White's time as of white's last move, or as of the game start; while white is to move the clock is
+     * running down towards {@link #getFlagAt()}.
+     */
+    public Long getWhiteClockMillis() {
+        return whiteClockMillis;
+    }
+
+    public Long getBlackClockMillis() {
+        return blackClockMillis;
+    }
+
+    /**
+     * When the side to move runs out of time, or {@code null} for an untimed game.
+     */
+    public Instant getFlagAt() {
+        return flagAt;
+    }
+
+    /**
+     * Charges the side that just moved for its thinking time, adds the increment and starts the opponent's
+     * clock.
+     *
+     * @return milliseconds left on the opponent's clock
+     */
+    public long pressClock(boolean whiteMoved, Instant now) {
+        long left = Math.max(0, flagAt.toEpochMilli() - now.toEpochMilli()) + incrementSeconds * 1000L;
+        long opponent = whiteMoved ? blackClockMillis : whiteClockMillis;
+        if (whiteMoved) {
+            whiteClockMillis = left;
+        } else {
+            blackClockMillis = left;
+        }
+        flagAt = now.plusMillis(opponent);
+        return opponent;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * {@code w} or {@code b}, as in FEN.
+     */
+    public String getSideToMove() {
+        return sideToMove;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Records that {@code moveCount} plies have been played and {@code sideToMove} is next, and moves the
+     * entity on to the next version.
+     *
+     * @return the version the row must still have for the move to be committed
+     */
+    long recordMove(int moveCount, int sideToMove, Instant now) {
+        this.moveCount = moveCount;
+        this.sideToMove = sideToMove == Piece.WHITE ? "w" : "b";
+        this.updatedAt = now;
+        return version++;
+    }
+
+    /**
+     * Number of plies played in the saved position, 0 when no position has been saved yet.
+     */
+    public int getSnapshotPly() {
+        return snapshotPly == null ? 0 : snapshotPly;
+    }
+
+    public String getSnapshotFen() {
+        return snapshotFen;
+    }
+
+    public byte[] getSnapshotHashes() {
+        return snapshotHashes;
+    }
+
+    /**
+     * Saves {@code position}, reached after {@code ply} plies, as FEN plus the hashes of the positions it
+     * could still repeat, eight bytes each.
+     */
+    public void recordSnapshot(int ply, Position position) {
+        long[] hashes = position.recentHashes();
+        ByteBuffer packed = ByteBuffer.allocate(hashes.length * Long.BYTES);
+        packed.asLongBuffer().put(hashes);
+        this.snapshotPly = ply;
+        this.snapshotFen = position.toFen();
+        this.snapshotHashes = packed.array();
+    }
+
+    /**
+     * The saved position, or the initial one when there is none; moves numbered after
+     * {@link #getSnapshotPly()} apply to it.
+     */
+    public Position restoreSnapshot() {
+        return restoreSnapshot(snapshotFen, snapshotHashes);
+    }
+
+    static Position restoreSnapshot(String fen, byte[] packedHashes) {
+        if (fen == null) {
+            return Position.initial();
+        }
+        long[] hashes = new long[packedHashes.length / Long.BYTES];
+        ByteBuffer.wrap(packedHashes).asLongBuffer().get(hashes);
+        return Position.fromFen(fen, hashes);
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,71 @@
+package com.example.chess.game;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Up to {@link #CHUNK_PLIES} consecutive moves of a game, as 16-bit {@link Move} codes. Chunk {@code c}
+ * holds moves {@code c * CHUNK_PLIES + 1} onwards, so appending a move rewrites one short chunk only.
+ */
+@Entity
+@Table(name = "game_moves")
+@IdClass(GameMovesEntity.Key.class)
+public class GameMovesEntity {
+    static final int CHUNK_PLIES = 64;
+
+    @Id
+    private Long gameId;
+
+    @Id
+    private int chunk;
+
+    @Column(nullable = false, length = CHUNK_PLIES * 2)
+    private byte[] moves;
+
+    @Column(nullable = false)
+    private int moveCount;
+
+    protected GameMovesEntity() {
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    public int getChunk() {
+        return chunk;
+    }
+
+    public byte[] getMoves() {
+        return moves;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Long gameId;
+        private int chunk;
+
+        protected Key() {
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && chunk == key.chunk && Objects.equals(gameId, key.gameId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(gameId, chunk);
+        }
+    }
+}
@@ -1,11 +1,64 @@
 package com.example.chess.game;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface GameRepository extends JpaRepository<GameEntity, Long> {
     @Query("select g from GameEntity g where g.status = 'ACTIVE' and (g.whiteUserId = :userId or g.blackUserId = :userId)")
     Optional<GameEntity> findActiveByUserId(@Param("userId") Long userId);
+
+    @Query("select count(g) > 0 from GameEntity g where g.status = 'ACTIVE' and (g.whiteUserId = :userId or g.blackUserId = :userId)")
+    boolean existsActiveByUserId(@Param("userId") Long userId);
+
+    @Query("select new com.example.chess.game.GameResult(g.whiteUserId, g.blackUserId, g.winnerUserId) from GameEntity g "
+            + "where g.status = 'FINISHED' order by g.endedAt, g.id")
+    List<GameResult> findFinishedResults();
+
+    @Query("select g from GameEntity g where g.status = 'FINISHED' and (g.whiteUserId = :userId or g.blackUserId = :userId) "
+            + "and g.id > :afterId order by g.id")
+    List<GameEntity> findFinishedByUserAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+
+    @Query("select g from GameEntity g where g.createdAt >= :from and g.createdAt < :to "
+            + "and (g.createdAt > :afterCreatedAt or (g.createdAt = :afterCreatedAt and g.id > :afterId)) "
+            + "order by g.createdAt, g.id")
+    List<GameEntity> findCreatedBetweenAfter(@Param("from") Instant from,
+                                             @Param("to") Instant to,
+                                             @Param("afterCreatedAt") Instant afterCreatedAt,
+                                             @Param("afterId") Long afterId,
+                                             Limit limit);
+
+    @Query("select new com.example.chess.game.FlagDeadline(g.id, g.flagAt) from GameEntity g "
+            + "where g.status = 'ACTIVE' and g.flagAt is not null")
+    List<FlagDeadline> findActiveFlagDeadlines();
+
+    /**
+     * Commits a move to the games row: the turn, the clocks and the saved position, provided the row is
+     * still at {@code version}.
+     *
+     * @return 0 if the row has moved on since the game was read
+     */
+    @Modifying
+    @Transactional
+    @Query("update GameEntity g set g.moveCount = :moveCount, g.sideToMove = :sideToMove, "
+            + "g.whiteClockMillis = :whiteClockMillis, g.blackClockMillis = :blackClockMillis, g.flagAt = :flagAt, "
+            + "g.snapshotPly = :snapshotPly, g.snapshotFen = :snapshotFen, g.snapshotHashes = :snapshotHashes, "
+            + "g.updatedAt = :updatedAt, g.version = g.version + 1 where g.id = :gameId and g.version = :version")
+    int updateTurn(@Param("gameId") Long gameId,
+                   @Param("version") long version,
+                   @Param("moveCount") int moveCount,
+                   @Param("sideToMove") String sideToMove,
+                   @Param("whiteClockMillis") Long whiteClockMillis,
+                   @Param("blackClockMillis") Long blackClockMillis,
+                   @Param("flagAt") Instant flagAt,
+                   @Param("snapshotPly") int snapshotPly,
+                   @Param("snapshotFen") String snapshotFen,
+                   @Param("snapshotHashes") byte[] snapshotHashes,
+                   @Param("updatedAt") Instant updatedAt);
 }
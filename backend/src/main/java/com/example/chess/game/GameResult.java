@@ -0,0 +1,7 @@
+package com.example.chess.game;
+
+/**
+ * Outcome of a finished game, as replayed by the rating recompute.
+ */
+public record GameResult(Long whiteUserId, Long blackUserId, Long winnerUserId) {
+}
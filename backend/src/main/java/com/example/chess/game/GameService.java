@@ -1,35 +1,138 @@
 package com.example.chess.game;
 
+import com.example.chess.rating.RatingService;
+import java.time.Instant;
 import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class GameService {
     private final GameRepository gameRepository;
-    private final MoveRepository moveRepository;
+    private final MoveStore moveStore;
+    private final LiveGameStore liveGames;
+    private final RatingService ratings;
+    private final GameClocks clocks;
+    private final TransactionTemplate transactionTemplate;
+    private final TimeControl defaultTimeControl;
+    private final int snapshotInterval;
 
-    public GameService(GameRepository gameRepository, MoveRepository moveRepository) {
+    public GameService(GameRepository gameRepository,
+                       MoveStore moveStore,
+                       LiveGameStore liveGames,
+                       RatingService ratings,
+                       GameClocks clocks,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${chess.games.default-time-control:}") String defaultTimeControl,
+                       @Value("${chess.games.snapshot-interval:20}") int snapshotInterval) {
         this.gameRepository = gameRepository;
-        this.moveRepository = moveRepository;
+        this.moveStore = moveStore;
+        this.liveGames = liveGames;
+        this.ratings = ratings;
+        this.clocks = clocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTimeControl = defaultTimeControl.isBlank() ? null : TimeControl.parse(defaultTimeControl);
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("chess.games.snapshot-interval must be positive");
+        }
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Re-arms the flag timers of the games that were running when the node stopped. A flag that fell in the
+     * meantime expires right away.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleClocks() {
+        long now = System.currentTimeMillis();
+        for (FlagDeadline deadline : gameRepository.findActiveFlagDeadlines()) {
+            clocks.schedule(deadline.gameId(), deadline.flagAt().toEpochMilli() - now);
+        }
     }
 
     public GameEntity createGame(Long whiteUserId, Long blackUserId) {
-        GameEntity game = new GameEntity(whiteUserId, blackUserId);
-        return gameRepository.save(game);
+        return createGame(whiteUserId, blackUserId, defaultTimeControl);
+    }
+
+    /**
+     * Creates an active game, timed when {@code timeControl} is set and untimed when it is {@code null}.
+     */
+    public GameEntity createGame(Long whiteUserId, Long blackUserId, TimeControl timeControl) {
+        if (timeControl == null) {
+            return gameRepository.save(new GameEntity(whiteUserId, blackUserId));
+        }
+        GameEntity game = gameRepository.save(new GameEntity(whiteUserId, blackUserId, timeControl));
+        clocks.schedule(game.getId(), game.getWhiteClockMillis());
+        return game;
     }
 
     public GameEntity getGame(Long gameId) {
         return gameRepository.findById(gameId).orElse(null);
     }
 
+    /**
+     * The game for a command run on its executor. An active game is read once and kept with its position
+     * while it is played, so a move does not read the games row again; the version checked when the move
+     * is committed catches a row changed elsewhere.
+     */
+    public GameEntity getGameForCommand(Long gameId) {
+        LiveGame live = liveGames.getIfPresent(gameId);
+        if (live != null) {
+            return live.getGame();
+        }
+        GameEntity game = getGame(gameId);
+        if (game == null || game.getStatus() == GameStatus.FINISHED) {
+            return game;
+        }
+        return liveGame(game).getGame();
+    }
+
     public List<MoveDto> getMoves(Long gameId) {
-        return moveRepository.findByGameIdOrderByMoveNumber(gameId)
+        return moveStore.findByGameId(gameId)
                 .stream()
                 .map(MoveDto::fromEntity)
                 .toList();
     }
 
+    /**
+     * Up to {@code limit} moves numbered after {@code sinceMoveNumber}, so a client that already has the
+     * first moves only fetches the rest.
+     */
+    public List<MoveDto> getMoves(Long gameId, int sinceMoveNumber, int limit) {
+        return moveStore.findByGameId(gameId, sinceMoveNumber, limit)
+                .stream()
+                .map(MoveDto::fromEntity)
+                .toList();
+    }
+
+    /**
+     * Changes whenever a move is played in {@code game} or the game ends; used as the ETag of its move list.
+     * Finished games are never loaded to compute it.
+     */
+    public String movesVersion(GameEntity game) {
+        return game.getStatus() == GameStatus.FINISHED ? game.getId() + "-final" : game.getId() + "-" + game.getMoveCount();
+    }
+
+    public boolean hasActiveGame(Long userId) {
+        return gameRepository.existsActiveByUserId(userId);
+    }
+
     public GameStateDto getActiveGame(Long userId) {
+        return getActiveGame(userId, 0);
+    }
+
+    /**
+     * The user's game in progress, with its current position and the moves after {@code sinceMoveNumber}
+     * only. A client can draw the board from the position alone.
+     */
+    public GameStateDto getActiveGame(Long userId, int sinceMoveNumber) {
         return gameRepository.findActiveByUserId(userId)
                 .map(game -> new GameStateDto(
                         game.getId(),
@@ -38,29 +141,52 @@ public class GameService {
                         game.getStatus(),
                         game.getWinnerUserId(),
                         game.getEndReason(),
-                        getMoves(game.getId())))
+                        game.isTimed() ? game.getTimeControl().toString() : null,
+                        game.getWhiteClockMillis(),
+                        game.getBlackClockMillis(),
+                        game.getFlagAt(),
+                        snapshot(game),
+                        getMoves(game.getId(), sinceMoveNumber, Integer.MAX_VALUE)))
                 .orElse(null);
     }
 
-    public MoveEntity addMove(Long gameId, String fromSquare, String toSquare, String piece, Long byUserId) {
-        long count = moveRepository.countByGameId(gameId);
-        MoveEntity move = new MoveEntity(gameId, (int) count + 1, fromSquare, toSquare, piece, byUserId);
-        return moveRepository.save(move);
+    /**
+     * Captures the current position of {@code game}. Callers that need the snapshot to line up with the
+     * move stream take it on the game's command executor.
+     */
+    public GameSnapshot snapshot(GameEntity game) {
+        LiveGame live = game.getStatus() == GameStatus.FINISHED ? loadLiveGame(game) : liveGame(game);
+        live.lock().lock();
+        try {
+            return new GameSnapshot(game.getId(), game.getWhiteUserId(), game.getBlackUserId(), game.getStatus(),
+                    live.getMoveCount(), live.getPosition().toFen());
+        } finally {
+            live.lock().unlock();
+        }
     }
 
-    public long countMoves(Long gameId) {
-        return moveRepository.countByGameId(gameId);
+    public MoveEntity validateAndAddMove(GameEntity game, String fromSquare, String toSquare, String promotion, Long byUserId) {
+        LiveGame live = liveGame(game);
+        live.lock().lock();
+        try {
+            return validateAndAddMove(live, game, fromSquare, toSquare, promotion, byUserId);
+        } finally {
+            live.lock().unlock();
+        }
     }
 
-    public MoveEntity validateAndAddMove(GameEntity game, String fromSquare, String toSquare, Long byUserId) {
-        List<MoveEntity> moves = moveRepository.findByGameIdOrderByMoveNumber(game.getId());
-        ChessRules.BoardState state = ChessRules.buildBoard(moves);
-        ChessRules.Square from = ChessRules.Square.parse(fromSquare);
-        ChessRules.Square to = ChessRules.Square.parse(toSquare);
-        if (from == null || to == null) {
+    private MoveEntity validateAndAddMove(LiveGame live, GameEntity game, String fromSquare, String toSquare, String promotion, Long byUserId) {
+        Position position = live.getPosition();
+        int from = ChessRules.squareIndex(fromSquare);
+        int to = ChessRules.squareIndex(toSquare);
+        if (from < 0 || to < 0) {
             throw new IllegalArgumentException("Invalid square notation");
         }
-        String piece = state.getPiece(from);
+        Long toMove = live.getSideToMove() == Piece.WHITE ? game.getWhiteUserId() : game.getBlackUserId();
+        if (!byUserId.equals(toMove)) {
+            throw new IllegalArgumentException("Not your turn");
+        }
+        String piece = Piece.name(position.pieceAt(from));
         if (piece == null || piece.isEmpty()) {
             throw new IllegalArgumentException("No piece on source square");
         }
@@ -70,15 +196,138 @@ public class GameService {
         if (piece.startsWith("b") && !byUserId.equals(game.getBlackUserId())) {
             throw new IllegalArgumentException("Not your piece");
         }
-        if (!ChessRules.isLegalMove(state, fromSquare, toSquare)) {
+        if (promotion != null && Move.parsePromotion(promotion) == Piece.NONE) {
+            throw new IllegalArgumentException("Invalid promotion piece");
+        }
+        int encoded = ChessRules.findLegalMove(position, from, to, Move.parsePromotion(promotion));
+        if (encoded == Move.NONE) {
             throw new IllegalArgumentException("Illegal move");
         }
-        MoveEntity move = new MoveEntity(game.getId(), moves.size() + 1, fromSquare, toSquare, piece, byUserId);
-        return moveRepository.save(move);
+        MoveEntity move = new MoveEntity(game.getId(), live.getMoveCount() + 1, Move.pack(encoded), piece, byUserId);
+        live.applyMove(encoded);
+        try {
+            commitMove(live, game, move, piece.startsWith("w"));
+        } catch (RuntimeException ex) {
+            liveGames.evict(game.getId());
+            throw ex;
+        }
+        adjudicate(game, position, byUserId);
+        return move;
+    }
+
+    /**
+     * Writes a move applied to {@code live} with one conditional update of the games row, carrying the
+     * turn, the clocks and every {@code snapshotInterval} plies the position, and appends the move to the
+     * store in the same transaction, so a move the store rejects leaves the games row as it was. Only the
+     * packed store inserts the move in that transaction; the jpa and journal stores make it durable in
+     * their journal and the jpa store inserts it later, in a batch. If the transaction rolls back after
+     * the append, the store discards the move.
+     */
+    private void commitMove(LiveGame live, GameEntity game, MoveEntity move, boolean whiteMoved) {
+        Instant now = Instant.now();
+        long opponentMillis = game.isTimed() ? game.pressClock(whiteMoved, now) : 0;
+        if (live.getMoveCount() % snapshotInterval == 0) {
+            game.recordSnapshot(live.getMoveCount(), live.getPosition());
+        }
+        long version = game.recordMove(live.getMoveCount(), live.getSideToMove(), now);
+        transactionTemplate.executeWithoutResult(status -> {
+            int updated = gameRepository.updateTurn(game.getId(), version, game.getMoveCount(), game.getSideToMove(),
+                    game.getWhiteClockMillis(), game.getBlackClockMillis(), game.getFlagAt(), game.getSnapshotPly(),
+                    game.getSnapshotFen(), game.getSnapshotHashes(), now);
+            if (updated == 0) {
+                throw new OptimisticLockingFailureException("Game " + game.getId() + " was changed concurrently");
+            }
+            moveStore.append(move);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        moveStore.discard(move);
+                    }
+                }
+            });
+        });
+        live.setGame(game);
+        if (game.isTimed()) {
+            clocks.schedule(game.getId(), opponentMillis);
+            move.setClocks(game.getWhiteClockMillis(), game.getBlackClockMillis());
+        }
+    }
+
+    /**
+     * Ends {@code game} as a loss on time if the side to move has run out. Callers run it on the game's
+     * command executor, so it cannot race a move.
+     *
+     * @return whether the game was finished
+     */
+    public boolean finishIfFlagFell(GameEntity game) {
+        if (game.getStatus() != GameStatus.ACTIVE || !game.isTimed()
+                || game.getFlagAt().isAfter(Instant.now())) {
+            return false;
+        }
+        LiveGame live = liveGame(game);
+        live.lock().lock();
+        try {
+            boolean whiteFlagged = live.getSideToMove() == Piece.WHITE;
+            finishGame(game, whiteFlagged ? game.getBlackUserId() : game.getWhiteUserId(), "timeout");
+            return true;
+        } finally {
+            live.lock().unlock();
+        }
     }
 
+    private void adjudicate(GameEntity game, Position position, Long moverUserId) {
+        if (MoveGenerator.generateLegalMoves(position).isEmpty()) {
+            if (position.inCheck()) {
+                finishGame(game, moverUserId, "checkmate");
+            } else {
+                finishGame(game, null, "stalemate");
+            }
+        } else if (position.isThreefoldRepetition()) {
+            finishGame(game, null, "threefold_repetition");
+        } else if (position.isFiftyMoveDraw()) {
+            finishGame(game, null, "fifty_move_rule");
+        }
+    }
+
+    /**
+     * Handles an expired flag timer: finishes the game on time, or re-arms the timer when it ran ahead of
+     * the wall clock the deadline is stored in.
+     *
+     * @return whether the game was finished
+     */
+    public boolean flagTimerExpired(GameEntity game) {
+        if (finishIfFlagFell(game)) {
+            return true;
+        }
+        if (game.getStatus() == GameStatus.ACTIVE && game.isTimed()) {
+            clocks.schedule(game.getId(), game.getFlagAt().toEpochMilli() - System.currentTimeMillis());
+        }
+        return false;
+    }
+
+    /**
+     * Records the result and updates both players' ratings in the same transaction.
+     */
     public GameEntity finishGame(GameEntity game, Long winnerUserId, String endReason) {
         game.finish(winnerUserId, endReason);
-        return gameRepository.save(game);
+        GameEntity saved = ratings.recordResult(game, () -> gameRepository.save(game));
+        clocks.cancel(game.getId());
+        liveGames.evict(game.getId());
+        return saved;
+    }
+
+    private LiveGame liveGame(GameEntity game) {
+        return liveGames.get(game.getId(), gameId -> loadLiveGame(game));
+    }
+
+    /**
+     * Rebuilds the position from the last saved snapshot and the moves played since, so the cost does not
+     * grow with the length of the game.
+     */
+    private LiveGame loadLiveGame(GameEntity game) {
+        int ply = game.getSnapshotPly();
+        List<MoveEntity> moves = moveStore.findByGameId(game.getId(), ply, Integer.MAX_VALUE);
+        return new LiveGame(game, ChessRules.buildBoard(game.restoreSnapshot(), moves), ply + moves.size());
     }
 }
@@ -0,0 +1,13 @@
+package com.example.chess.game;
+
+/**
+ * Compact view of a game at one ply: the position as FEN plus the number of moves played, so that moves
+ * numbered after {@code moveCount} can be applied to it.
+ */
+public record GameSnapshot(Long gameId,
+                           Long whiteUserId,
+                           Long blackUserId,
+                           GameStatus status,
+                           int moveCount,
+                           String fen) {
+}
@@ -1,12 +1,23 @@
 package com.example.chess.game;
 
+import java.time.Instant;
 import java.util.List;
 
+/**
+ * A game as a reconnecting player sees it. {@code snapshot} holds the current position, enough to draw
+ * the board without replaying {@code moves}. The clock of the side to move runs down towards
+ * {@code flagAt}; the clock fields are {@code null} for untimed games.
+ */
 public record GameStateDto(Long gameId,
                            Long whiteUserId,
                            Long blackUserId,
                            GameStatus status,
                            Long winnerUserId,
                            String endReason,
+                           String timeControl,
+                           Long whiteClockMillis,
+                           Long blackClockMillis,
+                           Instant flagAt,
+                           GameSnapshot snapshot,
                            List<MoveDto> moves) {
 }
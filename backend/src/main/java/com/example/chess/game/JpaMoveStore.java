@@ -0,0 +1,70 @@
+package com.example.chess.game;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "chess.moves.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaMoveStore implements MoveStore {
+    private final MoveRepository moveRepository;
+    private final MoveWriteBehind moveWriteBehind;
+
+    public JpaMoveStore(MoveRepository moveRepository, MoveWriteBehind moveWriteBehind) {
+        this.moveRepository = moveRepository;
+        this.moveWriteBehind = moveWriteBehind;
+    }
+
+    @Override
+    public void append(MoveEntity move) {
+        moveWriteBehind.enqueue(move);
+    }
+
+    @Override
+    public void discard(MoveEntity move) {
+        moveWriteBehind.discard(move);
+    }
+
+    @Override
+    public List<MoveEntity> findByGameId(Long gameId) {
+        List<MoveEntity> pending = moveWriteBehind.pendingMoves(gameId);
+        List<MoveEntity> stored = moveRepository.findByGameIdOrderByMoveNumber(gameId);
+        return MoveWriteBehind.merge(stored, pending);
+    }
+
+    @Override
+    public List<MoveEntity> findByGameId(Long gameId, int afterMoveNumber, int limit) {
+        List<MoveEntity> pending = moveWriteBehind.pendingMoves(gameId).stream()
+                .filter(move -> move.getMoveNumber() > afterMoveNumber)
+                .toList();
+        List<MoveEntity> stored = moveRepository.findByGameIdAndMoveNumberGreaterThanOrderByMoveNumber(gameId, afterMoveNumber,
+                Limit.of(limit));
+        List<MoveEntity> merged = MoveWriteBehind.merge(stored, pending);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    @Override
+    public Map<Long, List<MoveEntity>> findByGameIds(Collection<Long> gameIds) {
+        Map<Long, List<MoveEntity>> pending = new LinkedHashMap<>();
+        Map<Long, List<MoveEntity>> moves = new LinkedHashMap<>();
+        for (Long gameId : gameIds) {
+            pending.put(gameId, moveWriteBehind.pendingMoves(gameId));
+            moves.put(gameId, new ArrayList<>());
+        }
+        for (MoveEntity move : moveRepository.findByGameIdInOrderByGameIdAscMoveNumberAsc(gameIds)) {
+            moves.get(move.getGameId()).add(move);
+        }
+        moves.replaceAll((gameId, stored) -> MoveWriteBehind.merge(stored, pending.get(gameId)));
+        return moves;
+    }
+
+    @Override
+    public void flush() {
+        moveWriteBehind.flush();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.chess.game;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class LiveGame {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Long gameId;
+    private final Position position;
+    private GameEntity game;
+    private int moveCount;
+    private volatile long lastAccess;
+
+    LiveGame(GameEntity game, Position position, int moveCount) {
+        this.gameId = game.getId();
+        this.game = game;
+        this.position = position;
+        this.moveCount = moveCount;
+        this.lastAccess = System.nanoTime();
+    }
+
+    public Long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * The games row as of the last move committed from this node.
+     */
+    public GameEntity getGame() {
+        return game;
+    }
+
+    void setGame(GameEntity game) {
+        this.game = game;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getSideToMove() {
+        return position.sideToMove();
+    }
+
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    void applyMove(int move) {
+        position.makeMove(move);
+        moveCount++;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.chess.game;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LiveGameStore {
+    private final Map<Long, LiveGame> games = new ConcurrentHashMap<>();
+    private final int maxGames;
+    private final long idleTimeoutNanos;
+
+    public LiveGameStore(@Value("${chess.live-games.max-size:10000}") int maxGames,
+                         @Value("${chess.live-games.idle-timeout:30m}") Duration idleTimeout) {
+        this.maxGames = maxGames;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    public LiveGame get(Long gameId, Function<Long, LiveGame> loader) {
+        LiveGame game = games.get(gameId);
+        if (game == null) {
+            LiveGame loaded = loader.apply(gameId);
+            LiveGame existing = games.putIfAbsent(gameId, loaded);
+            game = existing != null ? existing : loaded;
+            if (games.size() > maxGames) {
+                evictOldest(gameId);
+            }
+        }
+        game.touch();
+        return game;
+    }
+
+    /**
+     * The game if it is loaded, without loading it.
+     */
+    public LiveGame getIfPresent(Long gameId) {
+        LiveGame game = games.get(gameId);
+        if (game != null) {
+            game.touch();
+        }
+        return game;
+    }
+
+    public void evict(Long gameId) {
+        games.remove(gameId);
+    }
+
+    public int size() {
+        return games.size();
+    }
+
+    @Scheduled(fixedDelayString = "${chess.live-games.sweep-interval:60s}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        games.values().removeIf(game -> now - game.getLastAccess() > idleTimeoutNanos);
+    }
+
+    private void evictOldest(Long keep) {
+        while (games.size() > maxGames) {
+            LiveGame oldest = null;
+            for (LiveGame game : games.values()) {
+                if (!game.getGameId().equals(keep) && (oldest == null || game.getLastAccess() < oldest.getLastAccess())) {
+                    oldest = game;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            games.remove(oldest.getGameId(), oldest);
+        }
+    }
+}
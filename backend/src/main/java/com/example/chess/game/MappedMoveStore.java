@@ -0,0 +1,236 @@
+package com.example.chess.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Move store backed by append-only, memory-mapped segment files of fixed-width {@link MoveJournal} records.
+ * Each game keeps an in-memory list of record addresses, rebuilt on startup by scanning every segment up
+ * to the first record whose checksum does not match.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.moves.store", havingValue = "journal")
+public class MappedMoveStore implements MoveStore, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(MappedMoveStore.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnAppend;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<Long, AddressList> index = new HashMap<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MoveJournal.RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ReentrantLock lock = new ReentrantLock();
+    private int writeOffset;
+
+    public MappedMoveStore(@Value("${chess.moves.mapped.directory:data/moves}") Path directory,
+                           @Value("${chess.moves.mapped.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${chess.moves.mapped.sync-on-append:true}") boolean syncOnAppend) throws IOException {
+        this.directory = directory;
+        this.segmentSize = (int) (segmentSize.toBytes() / MoveJournal.RECORD_SIZE * MoveJournal.RECORD_SIZE);
+        this.syncOnAppend = syncOnAppend;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Appends the game's next move. A move numbered like one already stored replaces it and every later
+     * one, since reads take the index position as the move number; a move past the next is rejected.
+     */
+    @Override
+    public void append(MoveEntity move) {
+        lock.lock();
+        try {
+            AddressList addresses = index.computeIfAbsent(move.getGameId(), id -> new AddressList());
+            if (move.getMoveNumber() < 1 || move.getMoveNumber() > addresses.size + 1) {
+                throw new IllegalStateException("Move " + move.getMoveNumber() + " is out of sequence for game " + move.getGameId());
+            }
+            addresses.set(move.getMoveNumber(), write(move, (byte) 0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops {@code move} from its game's index and writes a record taking it back, so it stays out of the
+     * index rebuilt on startup.
+     */
+    @Override
+    public void discard(MoveEntity move) {
+        lock.lock();
+        try {
+            AddressList addresses = index.get(move.getGameId());
+            if (addresses != null && addresses.size == move.getMoveNumber()) {
+                write(move, MoveJournal.DISCARD);
+                addresses.size--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<MoveEntity> findByGameId(Long gameId) {
+        return findByGameId(gameId, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<MoveEntity> findByGameId(Long gameId, int afterMoveNumber, int limit) {
+        lock.lock();
+        try {
+            AddressList addresses = index.get(gameId);
+            if (addresses == null || afterMoveNumber >= addresses.size) {
+                return List.of();
+            }
+            int from = Math.max(0, afterMoveNumber);
+            int to = from + Math.min(limit, addresses.size - from);
+            List<MoveEntity> moves = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                long address = addresses.values[i];
+                MappedByteBuffer segment = segments.get((int) (address >>> 32));
+                moves.add(MoveJournal.read(segment.slice((int) address, MoveJournal.RECORD_SIZE), crc));
+            }
+            return moves;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the segment being written; earlier segments were forced when they filled up.
+     */
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            if (!segments.isEmpty()) {
+                segments.get(segments.size() - 1).force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (Path file : files) {
+            MappedByteBuffer segment = map(file);
+            int segmentIndex = segments.size();
+            segments.add(segment);
+            writeOffset = 0;
+            while (writeOffset + MoveJournal.RECORD_SIZE <= segment.capacity()) {
+                ByteBuffer record = segment.slice(writeOffset, MoveJournal.RECORD_SIZE);
+                MoveEntity move = MoveJournal.read(record.duplicate(), crc);
+                if (move == null) {
+                    break;
+                }
+                AddressList addresses = index.computeIfAbsent(move.getGameId(), id -> new AddressList());
+                if (!MoveJournal.isDiscard(record)) {
+                    if (move.getMoveNumber() <= addresses.size + 1) {
+                        addresses.set(move.getMoveNumber(), address(segmentIndex, writeOffset));
+                    }
+                } else if (addresses.size == move.getMoveNumber()) {
+                    addresses.size--;
+                }
+                writeOffset += MoveJournal.RECORD_SIZE;
+            }
+        }
+        if (!files.isEmpty()) {
+            log.info("Recovered {} games from {} move segments", index.size(), files.size());
+        }
+    }
+
+    /**
+     * Writes one record at the end of the current segment, starting a new segment when it is full, and
+     * returns its address. Called with {@link #lock} held.
+     */
+    private long write(MoveEntity move, byte flag) {
+        if (segments.isEmpty() || writeOffset + MoveJournal.RECORD_SIZE > segmentSize) {
+            rollover();
+        }
+        MappedByteBuffer segment = segments.get(segments.size() - 1);
+        scratch.clear();
+        MoveJournal.write(scratch, move, flag, crc);
+        scratch.flip();
+        segment.put(writeOffset, scratch, 0, MoveJournal.RECORD_SIZE);
+        if (syncOnAppend) {
+            segment.force(writeOffset, MoveJournal.RECORD_SIZE);
+        }
+        long address = address(segments.size() - 1, writeOffset);
+        writeOffset += MoveJournal.RECORD_SIZE;
+        return address;
+    }
+
+    private void rollover() {
+        if (!segments.isEmpty() && !syncOnAppend) {
+            segments.get(segments.size() - 1).force();
+        }
+        Path file = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segments.size(), SEGMENT_SUFFIX));
+        try {
+            segments.add(map(file));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create move segment " + file, ex);
+        }
+        writeOffset = 0;
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private static long address(int segment, int offset) {
+        return ((long) segment << 32) | offset;
+    }
+
+    private static final class AddressList {
+        private long[] values = new long[16];
+        private int size;
+
+        /**
+         * Stores the address of move {@code moveNumber}, at most one past the last, dropping the moves
+         * after it.
+         */
+        private void set(int moveNumber, long address) {
+            size = moveNumber - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = address;
+        }
+    }
+}
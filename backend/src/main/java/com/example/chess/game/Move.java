@@ -0,0 +1,77 @@
+package com.example.chess.game;
+
+public final class Move {
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final String PROMOTION_LETTERS = "nbrq";
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int promotion(int from, int to, int promotionType, boolean capture) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | (promotionType - Piece.KNIGHT);
+        return of(from, to, flags);
+    }
+
+    public static short pack(int move) {
+        return (short) move;
+    }
+
+    public static int unpack(short packed) {
+        return packed & 0xFFFF;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static int promotionType(int move) {
+        return isPromotion(move) ? Piece.KNIGHT + (flags(move) & 3) : Piece.NONE;
+    }
+
+    public static int parsePromotion(String promotion) {
+        if (promotion == null || promotion.length() != 1) {
+            return Piece.NONE;
+        }
+        int index = PROMOTION_LETTERS.indexOf(Character.toLowerCase(promotion.charAt(0)));
+        return index < 0 ? Piece.NONE : Piece.KNIGHT + index;
+    }
+
+    public static String promotionLetter(int move) {
+        return isPromotion(move) ? String.valueOf(PROMOTION_LETTERS.charAt(flags(move) & 3)) : null;
+    }
+
+    public static String toUci(int move) {
+        String uci = ChessRules.squareName(from(move)) + ChessRules.squareName(to(move));
+        return isPromotion(move) ? uci + promotionLetter(move) : uci;
+    }
+}
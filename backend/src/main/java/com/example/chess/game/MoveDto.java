@@ -2,7 +2,7 @@ package com.example.chess.game;
 
 import java.time.Instant;
 
-public record MoveDto(Long id, int moveNumber, String fromSquare, String toSquare, String piece, Long byUserId, Instant createdAt) {
+public record MoveDto(Long id, int moveNumber, String fromSquare, String toSquare, String piece, String promotion, Long byUserId, Instant createdAt) {
     public static MoveDto fromEntity(MoveEntity entity) {
         return new MoveDto(
                 entity.getId(),
@@ -10,6 +10,7 @@ public record MoveDto(Long id, int moveNumber, String fromSquare, String toSquar
                 entity.getFromSquare(),
                 entity.getToSquare(),
                 entity.getPiece(),
+                entity.getPromotion(),
                 entity.getByUserId(),
                 entity.getCreatedAt());
     }
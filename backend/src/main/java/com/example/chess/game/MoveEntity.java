@@ -6,10 +6,16 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import java.time.Instant;
 
+/**
+ * A stored move. The row keeps the 16-bit {@link Move} code and the moving piece as a small integer;
+ * squares and promotion are decoded from the code when read.
+ */
 @Entity
-@Table(name = "moves")
+@Table(name = "moves", uniqueConstraints = @UniqueConstraint(name = "uk_moves_game_move", columnNames = { "game_id", "move_number" }))
 public class MoveEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,14 +27,11 @@ public class MoveEntity {
     @Column(nullable = false)
     private int moveNumber;
 
-    @Column(nullable = false, length = 2)
-    private String fromSquare;
-
-    @Column(nullable = false, length = 2)
-    private String toSquare;
+    @Column(nullable = false)
+    private byte piece;
 
-    @Column(nullable = false, length = 2)
-    private String piece;
+    @Column(nullable = false)
+    private short packedMove;
 
     @Column(nullable = false)
     private Long byUserId;
@@ -36,18 +39,28 @@ public class MoveEntity {
     @Column(nullable = false)
     private Instant createdAt = Instant.now();
 
+    @Transient
+    private Long whiteClockMillis;
+
+    @Transient
+    private Long blackClockMillis;
+
     protected MoveEntity() {
     }
 
-    public MoveEntity(Long gameId, int moveNumber, String fromSquare, String toSquare, String piece, Long byUserId) {
+    public MoveEntity(Long gameId, int moveNumber, short packedMove, String piece, Long byUserId) {
         this.gameId = gameId;
         this.moveNumber = moveNumber;
-        this.fromSquare = fromSquare;
-        this.toSquare = toSquare;
-        this.piece = piece;
+        this.packedMove = packedMove;
+        this.piece = (byte) Piece.parse(piece);
         this.byUserId = byUserId;
     }
 
+    MoveEntity(Long gameId, int moveNumber, short packedMove, String piece, Long byUserId, Instant createdAt) {
+        this(gameId, moveNumber, packedMove, piece, byUserId);
+        this.createdAt = createdAt;
+    }
+
     public Long getId() {
         return id;
     }
@@ -61,17 +74,32 @@ public class MoveEntity {
     }
 
     public String getFromSquare() {
-        return fromSquare;
+        return ChessRules.squareName(Move.from(Move.unpack(packedMove)));
     }
 
     public String getToSquare() {
-        return toSquare;
+        return ChessRules.squareName(Move.to(Move.unpack(packedMove)));
     }
 
     public String getPiece() {
+        return Piece.name(piece);
+    }
+
+    /**
+     * Piece code as in {@link Piece}, the stored form of {@link #getPiece()}.
+     */
+    public int getPieceCode() {
         return piece;
     }
 
+    public String getPromotion() {
+        return Move.promotionLetter(Move.unpack(packedMove));
+    }
+
+    public short getPackedMove() {
+        return packedMove;
+    }
+
     public Long getByUserId() {
         return byUserId;
     }
@@ -79,4 +107,21 @@ public class MoveEntity {
     public Instant getCreatedAt() {
         return createdAt;
     }
+
+    /**
+     * Both clocks right after this move, or {@code null} for untimed games and for moves read back from
+     * the store.
+     */
+    public Long getWhiteClockMillis() {
+        return whiteClockMillis;
+    }
+
+    public Long getBlackClockMillis() {
+        return blackClockMillis;
+    }
+
+    void setClocks(Long whiteClockMillis, Long blackClockMillis) {
+        this.whiteClockMillis = whiteClockMillis;
+        this.blackClockMillis = blackClockMillis;
+    }
 }
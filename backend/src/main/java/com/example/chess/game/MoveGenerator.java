@@ -0,0 +1,168 @@
+package com.example.chess.game;
+
+public final class MoveGenerator {
+    private static final long RANK_3 = Bitboards.RANK_1 << 16;
+    private static final long RANK_6 = Bitboards.RANK_1 << 40;
+    private static final long PROMOTION_RANKS = Bitboards.RANK_1 | Bitboards.RANK_8;
+    private static final long WHITE_KINGSIDE_PATH = 0x60L;
+    private static final long WHITE_QUEENSIDE_PATH = 0x0EL;
+    private static final long BLACK_KINGSIDE_PATH = WHITE_KINGSIDE_PATH << 56;
+    private static final long BLACK_QUEENSIDE_PATH = WHITE_QUEENSIDE_PATH << 56;
+
+    private MoveGenerator() {
+    }
+
+    public static MoveList generateLegalMoves(Position position) {
+        MoveList moves = new MoveList();
+        generateLegalMoves(position, moves);
+        return moves;
+    }
+
+    public static void generateLegalMoves(Position position, MoveList moves) {
+        generatePseudoLegalMoves(position, moves, -1L);
+        int kept = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (isLegal(position, move)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    public static boolean isLegal(Position position, int move) {
+        int us = position.sideToMove();
+        position.makeMove(move);
+        boolean legal = !position.isAttacked(position.kingSquare(us), us ^ 1);
+        position.unmakeMove(move);
+        return legal;
+    }
+
+    public static void generatePseudoLegalMoves(Position position, MoveList moves, long fromMask) {
+        moves.clear();
+        int us = position.sideToMove();
+        int them = us ^ 1;
+        long own = position.occupancy(us);
+        long enemy = position.occupancy(them);
+        long occupied = position.occupied();
+        long targets = ~own;
+
+        generatePawnMoves(position, moves, us, enemy, occupied, fromMask);
+
+        long knights = position.pieces(us, Piece.KNIGHT) & fromMask;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            addMoves(moves, from, Bitboards.knightAttacks(from) & targets, enemy);
+        }
+        long bishops = (position.pieces(us, Piece.BISHOP) | position.pieces(us, Piece.QUEEN)) & fromMask;
+        while (bishops != 0) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            addMoves(moves, from, Bitboards.bishopAttacks(from, occupied) & targets, enemy);
+        }
+        long rooks = (position.pieces(us, Piece.ROOK) | position.pieces(us, Piece.QUEEN)) & fromMask;
+        while (rooks != 0) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            addMoves(moves, from, Bitboards.rookAttacks(from, occupied) & targets, enemy);
+        }
+        long king = position.pieces(us, Piece.KING) & fromMask;
+        if (king != 0) {
+            int from = Long.numberOfTrailingZeros(king);
+            addMoves(moves, from, Bitboards.kingAttacks(from) & targets, enemy);
+            generateCastling(position, moves, us, from, occupied);
+        }
+    }
+
+    private static void generatePawnMoves(Position position, MoveList moves, int us, long enemy, long occupied, long fromMask) {
+        long pawns = position.pieces(us, Piece.PAWN) & fromMask;
+        long empty = ~occupied;
+        int forward = us == Piece.WHITE ? 8 : -8;
+        long singles;
+        long doubles;
+        if (us == Piece.WHITE) {
+            singles = (pawns << 8) & empty;
+            doubles = ((singles & RANK_3) << 8) & empty;
+        } else {
+            singles = (pawns >>> 8) & empty;
+            doubles = ((singles & RANK_6) >>> 8) & empty;
+        }
+        while (singles != 0) {
+            int to = Long.numberOfTrailingZeros(singles);
+            singles &= singles - 1;
+            addPawnMove(moves, to - forward, to, false);
+        }
+        while (doubles != 0) {
+            int to = Long.numberOfTrailingZeros(doubles);
+            doubles &= doubles - 1;
+            moves.add(Move.of(to - 2 * forward, to, Move.DOUBLE_PAWN_PUSH));
+        }
+        long attackers = pawns;
+        while (attackers != 0) {
+            int from = Long.numberOfTrailingZeros(attackers);
+            attackers &= attackers - 1;
+            long captures = Bitboards.pawnAttacks(us, from) & enemy;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMove(moves, from, to, true);
+            }
+        }
+        int epSquare = position.enPassantSquare();
+        if (epSquare >= 0) {
+            long epAttackers = Bitboards.pawnAttacks(us ^ 1, epSquare) & pawns;
+            while (epAttackers != 0) {
+                int from = Long.numberOfTrailingZeros(epAttackers);
+                epAttackers &= epAttackers - 1;
+                moves.add(Move.of(from, epSquare, Move.EN_PASSANT));
+            }
+        }
+    }
+
+    private static void addPawnMove(MoveList moves, int from, int to, boolean capture) {
+        if ((Bitboards.bit(to) & PROMOTION_RANKS) != 0) {
+            for (int type = Piece.QUEEN; type >= Piece.KNIGHT; type--) {
+                moves.add(Move.promotion(from, to, type, capture));
+            }
+        } else {
+            moves.add(Move.of(from, to, capture ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+
+    private static void generateCastling(Position position, MoveList moves, int us, int kingSquare, long occupied) {
+        int rights = position.castlingRights();
+        int them = us ^ 1;
+        if (us == Piece.WHITE) {
+            if ((rights & Position.WHITE_KINGSIDE) != 0 && (occupied & WHITE_KINGSIDE_PATH) == 0
+                    && canCastleThrough(position, them, kingSquare, kingSquare + 1, kingSquare + 2)) {
+                moves.add(Move.of(kingSquare, kingSquare + 2, Move.KING_CASTLE));
+            }
+            if ((rights & Position.WHITE_QUEENSIDE) != 0 && (occupied & WHITE_QUEENSIDE_PATH) == 0
+                    && canCastleThrough(position, them, kingSquare, kingSquare - 1, kingSquare - 2)) {
+                moves.add(Move.of(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE));
+            }
+        } else {
+            if ((rights & Position.BLACK_KINGSIDE) != 0 && (occupied & BLACK_KINGSIDE_PATH) == 0
+                    && canCastleThrough(position, them, kingSquare, kingSquare + 1, kingSquare + 2)) {
+                moves.add(Move.of(kingSquare, kingSquare + 2, Move.KING_CASTLE));
+            }
+            if ((rights & Position.BLACK_QUEENSIDE) != 0 && (occupied & BLACK_QUEENSIDE_PATH) == 0
+                    && canCastleThrough(position, them, kingSquare, kingSquare - 1, kingSquare - 2)) {
+                moves.add(Move.of(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE));
+            }
+        }
+    }
+
+    private static boolean canCastleThrough(Position position, int them, int a, int b, int c) {
+        return !position.isAttacked(a, them) && !position.isAttacked(b, them) && !position.isAttacked(c, them);
+    }
+
+    private static void addMoves(MoveList moves, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.of(from, to, (enemy & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+}
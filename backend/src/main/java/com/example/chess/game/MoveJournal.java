@@ -0,0 +1,170 @@
+package com.example.chess.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-width, fsync'd log of accepted moves that have not reached the database yet.
+ * A record whose checksum does not match marks a torn write and ends the readable log.
+ * Guarded by a {@link ReentrantLock} rather than a monitor so a virtual thread waiting on fsync does not
+ * pin its carrier.
+ */
+final class MoveJournal implements AutoCloseable {
+    static final int RECORD_SIZE = 40;
+    /** Flag of a record that takes back the game's move with the same number. */
+    static final byte DISCARD = 1;
+    private static final int FLAG_OFFSET = 15;
+
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final ReentrantLock lock = new ReentrantLock();
+    private ByteBuffer unsynced = ByteBuffer.allocate(64 * RECORD_SIZE);
+
+    MoveJournal(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    void append(MoveEntity move) throws IOException {
+        appendUnsynced(move);
+        sync();
+    }
+
+    /**
+     * Buffers a record in memory, so the appends made while another fsync runs share the next {@link
+     * #sync()}.
+     */
+    void appendUnsynced(MoveEntity move) {
+        lock.lock();
+        try {
+            if (unsynced.remaining() < RECORD_SIZE) {
+                unsynced = ByteBuffer.allocate(unsynced.capacity() * 2).put(unsynced.flip());
+            }
+            write(unsynced, move, crc);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the buffered records and forces the file. The force runs without the lock so appends can go
+     * on meanwhile; a journal closed during it throws {@link java.nio.channels.ClosedChannelException}.
+     */
+    void sync() throws IOException {
+        lock.lock();
+        try {
+            unsynced.flip();
+            while (unsynced.hasRemaining()) {
+                channel.write(unsynced);
+            }
+            unsynced.clear();
+        } finally {
+            lock.unlock();
+        }
+        channel.force(false);
+    }
+
+    List<MoveEntity> readAll() throws IOException {
+        lock.lock();
+        try {
+            List<MoveEntity> moves = new ArrayList<>();
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            long offset = 0;
+            long size = channel.size();
+            while (offset + RECORD_SIZE <= size) {
+                record.clear();
+                channel.read(record, offset);
+                record.flip();
+                MoveEntity move = read(record, crc);
+                if (move == null) {
+                    break;
+                }
+                moves.add(move);
+                offset += RECORD_SIZE;
+            }
+            if (offset != size) {
+                channel.truncate(offset);
+            }
+            channel.position(offset);
+            return moves;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void truncate() throws IOException {
+        lock.lock();
+        try {
+            unsynced.clear();
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static void write(ByteBuffer target, MoveEntity move, CRC32 crc) {
+        write(target, move, (byte) 0, crc);
+    }
+
+    static void write(ByteBuffer target, MoveEntity move, byte flag, CRC32 crc) {
+        int start = target.position();
+        target.putLong(move.getGameId());
+        target.putInt(move.getMoveNumber());
+        target.putShort(move.getPackedMove());
+        target.put((byte) move.getPieceCode());
+        target.put(flag);
+        target.putLong(move.getByUserId());
+        target.putLong(move.getCreatedAt().getEpochSecond());
+        target.putInt(move.getCreatedAt().getNano());
+        crc.reset();
+        crc.update(target.duplicate().position(start).limit(target.position()));
+        target.putInt((int) crc.getValue());
+    }
+
+    static boolean isDiscard(ByteBuffer record) {
+        return record.get(record.position() + FLAG_OFFSET) == DISCARD;
+    }
+
+    static MoveEntity read(ByteBuffer source, CRC32 crc) {
+        int start = source.position();
+        crc.reset();
+        crc.update(source.duplicate().position(start).limit(start + RECORD_SIZE - 4));
+        if (source.getInt(start + RECORD_SIZE - 4) != (int) crc.getValue()) {
+            return null;
+        }
+        long gameId = source.getLong();
+        int moveNumber = source.getInt();
+        short packedMove = source.getShort();
+        String piece = Piece.name(source.get());
+        source.get();
+        long byUserId = source.getLong();
+        Instant createdAt = Instant.ofEpochSecond(source.getLong(), source.getInt());
+        source.getInt();
+        return new MoveEntity(gameId, moveNumber, packedMove, piece, byUserId, createdAt);
+    }
+}
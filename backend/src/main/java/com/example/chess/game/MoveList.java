@@ -0,0 +1,34 @@
+package com.example.chess.game;
+
+public final class MoveList {
+    private final int[] moves = new int[256];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    void add(int move) {
+        moves[size++] = move;
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    void truncate(int newSize) {
+        size = newSize;
+    }
+}
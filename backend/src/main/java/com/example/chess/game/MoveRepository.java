@@ -1,10 +1,16 @@
 package com.example.chess.game;
 
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface MoveRepository extends JpaRepository<MoveEntity, Long> {
     List<MoveEntity> findByGameIdOrderByMoveNumber(Long gameId);
 
     long countByGameId(Long gameId);
+
+    List<MoveEntity> findByGameIdAndMoveNumberGreaterThanOrderByMoveNumber(Long gameId, int moveNumber, Limit limit);
+
+    List<MoveEntity> findByGameIdInOrderByGameIdAscMoveNumberAsc(Collection<Long> gameIds);
 }
@@ -0,0 +1,43 @@
+package com.example.chess.game;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public interface MoveStore {
+    void append(MoveEntity move);
+
+    /**
+     * Takes back a move appended in a transaction that then rolled back. Stores that write in the caller's
+     * transaction have nothing to undo.
+     */
+    default void discard(MoveEntity move) {
+    }
+
+    List<MoveEntity> findByGameId(Long gameId);
+
+    /**
+     * Up to {@code limit} moves numbered after {@code afterMoveNumber}, in order. Move numbers start at 1
+     * and have no gaps, so the default reads the whole game and slices it.
+     */
+    default List<MoveEntity> findByGameId(Long gameId, int afterMoveNumber, int limit) {
+        List<MoveEntity> moves = findByGameId(gameId);
+        int from = Math.min(moves.size(), Math.max(0, afterMoveNumber));
+        return moves.subList(from, from + Math.min(limit, moves.size() - from));
+    }
+
+    /**
+     * Moves of several games at once, keyed by game id in the order given. Stores that can read a batch in
+     * one query override this.
+     */
+    default Map<Long, List<MoveEntity>> findByGameIds(Collection<Long> gameIds) {
+        Map<Long, List<MoveEntity>> moves = new LinkedHashMap<>();
+        for (Long gameId : gameIds) {
+            moves.put(gameId, findByGameId(gameId));
+        }
+        return moves;
+    }
+
+    void flush();
+}
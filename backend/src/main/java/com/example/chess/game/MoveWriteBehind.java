@@ -0,0 +1,445 @@
+package com.example.chess.game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Write-behind pipeline for accepted moves. A move is fsync'd to the local journal before it is
+ * acknowledged, then inserted into the database in JDBC batches by a background flusher. Journal
+ * records left over from a crash are replayed on startup.
+ *
+ * <p>The journal is truncated whenever every journaled move has been flushed. Under steady traffic that
+ * may never happen, so a journal past {@code chess.moves.journal-segment-size} is sealed and a new one
+ * started; the sealed file is deleted once the flusher has passed its last move. Moves are journaled and
+ * queued under one lock, so they are flushed in journal order; the fsync happens after the lock is
+ * released and is shared by the moves appended meanwhile.
+ *
+ * <p>A batch the database rejects is written again move by move; a move that still violates a
+ * constraint goes to the dead-letter journal next to the journal instead of blocking the flusher. While
+ * the database is down the flusher keeps retrying, and once {@code chess.moves.queue-capacity} moves are
+ * waiting, new moves fail after {@code chess.moves.enqueue-timeout} instead of stalling game threads.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.moves.store", havingValue = "jpa", matchIfMissing = true)
+public class MoveWriteBehind implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MoveWriteBehind.class);
+    private static final String INSERT_SQL = "insert into moves (game_id, move_number, piece, packed_move, by_user_id, created_at) "
+            + "values (?, ?, ?, ?, ?, ?)";
+    private static final String REPLAY_SQL = "insert into moves (game_id, move_number, piece, packed_move, by_user_id, created_at) "
+            + "select ?, ?, ?, ?, ?, ? where not exists (select 1 from moves where game_id = ? and move_number = ?)";
+    private static final String DELETE_SQL = "delete from moves where game_id = ? and move_number = ?";
+    private static final String DELETE_ORPHANS_SQL = "delete from moves where game_id = ? "
+            + "and move_number > (select move_count from games where id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path journalPath;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long enqueueTimeoutNanos;
+    private final long segmentRecords;
+    private final BlockingQueue<MoveEntity> queue;
+    private final Semaphore capacity;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Map<Long, Queue<MoveEntity>> pendingByGame = new ConcurrentHashMap<>();
+    private final AtomicLong unflushed = new AtomicLong();
+    private final Object flushLock = new Object();
+    private final List<MoveEntity> batch = new ArrayList<>();
+    private final Set<MoveEntity> discarded = Collections.newSetFromMap(new IdentityHashMap<>());
+    private MoveJournal journal;
+    private SyncGroup syncGroup = new SyncGroup();
+    private MoveJournal deadLetters;
+    private long journalRecords;
+    private long appendedMoves;
+    private long flushedMoves;
+    private long sealedUpTo = -1;
+    private Thread flusher;
+    private volatile boolean running;
+
+    public MoveWriteBehind(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${chess.moves.journal-path:data/moves.journal}") Path journalPath,
+                           @Value("${chess.moves.batch-size:128}") int batchSize,
+                           @Value("${chess.moves.flush-interval:50ms}") Duration flushInterval,
+                           @Value("${chess.moves.queue-capacity:10000}") int queueCapacity,
+                           @Value("${chess.moves.enqueue-timeout:1s}") Duration enqueueTimeout,
+                           @Value("${chess.moves.journal-segment-size:4MB}") DataSize segmentSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journalPath = journalPath;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.segmentRecords = Math.max(1, segmentSize.toBytes() / MoveJournal.RECORD_SIZE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.capacity = new Semaphore(queueCapacity);
+        this.syncGroup.turn.complete(null);
+    }
+
+    public void enqueue(MoveEntity move) {
+        if (!running) {
+            insertBatch(List.of(move));
+            return;
+        }
+        try {
+            if (!capacity.tryAcquire(enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Move queue is full");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing move", ex);
+        }
+        SyncGroup group;
+        boolean leader;
+        appendLock.lock();
+        try {
+            unflushed.incrementAndGet();
+            journal.appendUnsynced(move);
+            appendedMoves++;
+            group = syncGroup;
+            leader = !group.led;
+            group.led = true;
+            journalRecords++;
+            pendingByGame.computeIfAbsent(move.getGameId(), id -> new ConcurrentLinkedQueue<>()).add(move);
+            queue.add(move);
+            if (journalRecords >= segmentRecords && sealedUpTo < 0) {
+                sealJournal();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        if (leader) {
+            sync(group);
+        }
+        try {
+            group.synced.join();
+        } catch (CompletionException ex) {
+            discard(move);
+            throw new UncheckedIOException("Could not journal move", (IOException) ex.getCause());
+        }
+    }
+
+    /**
+     * Takes back a move whose transaction rolled back: a move still waiting is skipped by the flusher, one
+     * already written is deleted. If the process dies first, the replay on startup deletes moves numbered
+     * past their game's move count.
+     */
+    public void discard(MoveEntity move) {
+        synchronized (flushLock) {
+            Queue<MoveEntity> pending = pendingByGame.get(move.getGameId());
+            if (pending != null && pending.remove(move)) {
+                discarded.add(move);
+                if (pending.isEmpty()) {
+                    pendingByGame.remove(move.getGameId(), pending);
+                }
+            } else {
+                jdbcTemplate.update(DELETE_SQL, move.getGameId(), move.getMoveNumber());
+            }
+        }
+    }
+
+    public List<MoveEntity> pendingMoves(Long gameId) {
+        Queue<MoveEntity> pending = pendingByGame.get(gameId);
+        return pending == null ? List.of() : List.copyOf(pending);
+    }
+
+    static List<MoveEntity> merge(List<MoveEntity> stored, List<MoveEntity> pending) {
+        if (pending.isEmpty()) {
+            return stored;
+        }
+        int lastStored = stored.isEmpty() ? 0 : stored.get(stored.size() - 1).getMoveNumber();
+        List<MoveEntity> merged = new ArrayList<>(stored);
+        pending.stream()
+                .filter(move -> move.getMoveNumber() > lastStored)
+                .sorted(Comparator.comparingInt(MoveEntity::getMoveNumber))
+                .forEach(merged::add);
+        return merged;
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            queue.drainTo(batch, batchSize - batch.size());
+            while (!batch.isEmpty()) {
+                writeBatch();
+                queue.drainTo(batch, batchSize);
+            }
+            releaseJournal();
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            Path sealed = sealedPath();
+            if (Files.exists(sealed)) {
+                try (MoveJournal previous = new MoveJournal(sealed)) {
+                    replay(previous.readAll());
+                }
+                Files.delete(sealed);
+            }
+            journal = new MoveJournal(journalPath);
+            replay(journal.readAll());
+            journal.truncate();
+            deadLetters = new MoveJournal(journalPath.resolveSibling(journalPath.getFileName() + ".dead"));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open move journal " + journalPath, ex);
+        }
+        running = true;
+        flusher = new Thread(this::runFlusher, "move-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        try {
+            journal.close();
+            deadLetters.close();
+        } catch (IOException ex) {
+            log.warn("Could not close move journal", ex);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void runFlusher() {
+        while (running) {
+            try {
+                MoveEntity first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null && batch.isEmpty()) {
+                    continue;
+                }
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                long remaining;
+                while (running && queue.size() + 1 < batchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+                synchronized (flushLock) {
+                    if (first != null) {
+                        batch.add(first);
+                    }
+                    flush();
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Move flush failed, retrying", ex);
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private void writeBatch() {
+        List<MoveEntity> rows = discarded.isEmpty() ? batch : batch.stream().filter(move -> !discarded.contains(move)).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(rows));
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Batch of {} moves rejected, writing them one by one", rows.size(), ex);
+            for (MoveEntity move : rows) {
+                try {
+                    jdbcTemplate.update(REPLAY_SQL, statement -> bindReplay(statement, move));
+                } catch (DataIntegrityViolationException rejected) {
+                    deadLetter(move, rejected);
+                }
+            }
+        }
+        for (MoveEntity move : batch) {
+            Queue<MoveEntity> pending = pendingByGame.get(move.getGameId());
+            if (pending != null) {
+                pending.remove(move);
+                if (pending.isEmpty()) {
+                    pendingByGame.remove(move.getGameId(), pending);
+                }
+            }
+        }
+        if (rows != batch) {
+            discarded.removeAll(batch);
+        }
+        unflushed.addAndGet(-batch.size());
+        flushedMoves += batch.size();
+        capacity.release(batch.size());
+        batch.clear();
+    }
+
+    private void deadLetter(MoveEntity move, RuntimeException cause) {
+        log.error("Move {} of game {} cannot be written, keeping it in the dead-letter journal",
+                move.getMoveNumber(), move.getGameId(), cause);
+        try {
+            deadLetters.append(move);
+        } catch (IOException ex) {
+            log.error("Could not write dead letter for move {} of game {}", move.getMoveNumber(), move.getGameId(), ex);
+        }
+    }
+
+    /**
+     * Forces the journal for every move in {@code group} once the previous group's fsync is done, and
+     * opens the next group for the moves appended meanwhile. Called by the group's first move.
+     */
+    private void sync(SyncGroup group) {
+        group.turn.join();
+        MoveJournal current;
+        appendLock.lock();
+        try {
+            current = journal;
+            group.next = syncGroup = new SyncGroup();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            current.sync();
+            group.synced.complete(null);
+        } catch (ClosedChannelException sealed) {
+            // sealJournal synced the file before closing it
+            group.synced.complete(null);
+        } catch (IOException | RuntimeException ex) {
+            group.synced.completeExceptionally(ex);
+        } finally {
+            group.next.turn.complete(null);
+        }
+    }
+
+    /**
+     * Starts a new journal file, keeping the current one until the moves in it are flushed. Called with
+     * {@link #appendLock} held.
+     */
+    private void sealJournal() {
+        try {
+            journal.sync();
+            journal.close();
+            Files.move(journalPath, sealedPath());
+            journal = new MoveJournal(journalPath);
+            journalRecords = 0;
+            sealedUpTo = appendedMoves;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not rotate move journal " + journalPath, ex);
+        }
+    }
+
+    /**
+     * Drops journal records that are all in the database: the sealed file once the flusher has passed its
+     * last move, the current one when nothing is left to flush. Called with {@link #flushLock} held.
+     */
+    private void releaseJournal() {
+        appendLock.lock();
+        try {
+            if (sealedUpTo >= 0 && flushedMoves >= sealedUpTo) {
+                Files.deleteIfExists(sealedPath());
+                sealedUpTo = -1;
+            }
+            if (unflushed.get() == 0 && journalRecords > 0) {
+                journal.truncate();
+                journalRecords = 0;
+            }
+        } catch (IOException ex) {
+            log.warn("Could not release move journal", ex);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private Path sealedPath() {
+        return journalPath.resolveSibling(journalPath.getFileName() + ".sealed");
+    }
+
+    private void replay(List<MoveEntity> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        log.info("Replaying {} journaled moves", moves.size());
+        jdbcTemplate.batchUpdate(REPLAY_SQL, moves, batchSize, this::bindReplay);
+        // a move whose transaction rolled back is in the journal but past the move count of its game
+        List<Long> gameIds = moves.stream().map(MoveEntity::getGameId).distinct().toList();
+        jdbcTemplate.batchUpdate(DELETE_ORPHANS_SQL, gameIds, batchSize, (statement, gameId) -> {
+            statement.setLong(1, gameId);
+            statement.setLong(2, gameId);
+        });
+    }
+
+    /**
+     * Moves journaled while the previous fsync ran; one fsync makes them all durable. The group's first
+     * move leads it: it waits for its {@code turn}, then syncs the journal for the whole group.
+     */
+    private static final class SyncGroup {
+        private final CompletableFuture<Void> turn = new CompletableFuture<>();
+        private final CompletableFuture<Void> synced = new CompletableFuture<>();
+        private boolean led;
+        private SyncGroup next;
+    }
+
+    private void bindReplay(PreparedStatement statement, MoveEntity move) throws SQLException {
+        bind(statement, move);
+        statement.setLong(7, move.getGameId());
+        statement.setInt(8, move.getMoveNumber());
+    }
+
+    private void insertBatch(List<MoveEntity> moves) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, moves, batchSize, this::bind);
+    }
+
+    private void bind(PreparedStatement statement, MoveEntity move) throws SQLException {
+        statement.setLong(1, move.getGameId());
+        statement.setInt(2, move.getMoveNumber());
+        statement.setByte(3, (byte) move.getPieceCode());
+        statement.setShort(4, move.getPackedMove());
+        statement.setLong(5, move.getByUserId());
+        statement.setTimestamp(6, Timestamp.from(move.getCreatedAt()));
+    }
+}
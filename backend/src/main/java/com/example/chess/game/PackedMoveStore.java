@@ -0,0 +1,143 @@
+package com.example.chess.game;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Move store that keeps a game as a few rows of binary 16-bit {@link Move} codes, {@link
+ * GameMovesEntity#CHUNK_PLIES} to a row, appended with a conditional update on the row's ply count.
+ * Piece names and movers are rebuilt by replaying the moves; per-move timestamps are not kept. A read
+ * after a given move starts from the game's position snapshot when there is one at or before it, and
+ * fetches only the rows from the snapshot's onwards.
+ */
+@Component
+@ConditionalOnProperty(name = "chess.moves.store", havingValue = "packed")
+public class PackedMoveStore implements MoveStore {
+    private static final String FIRST_CHUNK_SQL = "insert into game_moves (game_id, chunk, moves, move_count) values (?, 0, ?, 1)";
+    private static final String NEXT_CHUNK_SQL = "insert into game_moves (game_id, chunk, moves, move_count) select ?, ?, ?, 1 "
+            + "where exists (select 1 from game_moves where game_id = ? and chunk = ? and move_count = ?)";
+    private static final String APPEND_SQL = "update game_moves set moves = moves || cast(? as varbinary), move_count = move_count + 1 "
+            + "where game_id = ? and chunk = ? and move_count = ?";
+    private static final String SELECT_SQL = "select m.chunk, m.moves, g.white_user_id, g.black_user_id, "
+            + "case when g.snapshot_ply <= ? then g.snapshot_ply end as snapshot_ply, g.snapshot_fen, g.snapshot_hashes "
+            + "from game_moves m left join games g on g.id = m.game_id where m.game_id = ? "
+            + "and m.chunk between coalesce(case when g.snapshot_ply <= ? then g.snapshot_ply end, 0) / "
+            + GameMovesEntity.CHUNK_PLIES + " and ? order by m.chunk";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PackedMoveStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void append(MoveEntity move) {
+        int chunk = (move.getMoveNumber() - 1) / GameMovesEntity.CHUNK_PLIES;
+        int plies = (move.getMoveNumber() - 1) % GameMovesEntity.CHUNK_PLIES;
+        byte[] encoded = encode(new short[] { move.getPackedMove() }, 1);
+        int updated;
+        if (plies > 0) {
+            updated = jdbcTemplate.update(APPEND_SQL, encoded, move.getGameId(), chunk, plies);
+        } else if (chunk == 0) {
+            updated = jdbcTemplate.update(FIRST_CHUNK_SQL, move.getGameId(), encoded);
+        } else {
+            updated = jdbcTemplate.update(NEXT_CHUNK_SQL, move.getGameId(), chunk, encoded, move.getGameId(), chunk - 1,
+                    GameMovesEntity.CHUNK_PLIES);
+        }
+        if (updated != 1) {
+            throw new IllegalStateException("Move " + move.getMoveNumber() + " is out of sequence for game " + move.getGameId());
+        }
+    }
+
+    @Override
+    public List<MoveEntity> findByGameId(Long gameId) {
+        return findByGameId(gameId, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<MoveEntity> findByGameId(Long gameId, int afterMoveNumber, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        int after = Math.max(0, afterMoveNumber);
+        long lastChunk = Math.min(Integer.MAX_VALUE, ((long) after + limit - 1) / GameMovesEntity.CHUNK_PLIES);
+        Chunks chunks = new Chunks();
+        jdbcTemplate.query(SELECT_SQL, chunks::add, after, gameId, after, lastChunk);
+        return chunks.replay(gameId, after, limit);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    static byte[] encode(short[] moves, int count) {
+        byte[] bytes = new byte[count * 2];
+        for (int i = 0; i < count; i++) {
+            bytes[i * 2] = (byte) (moves[i] >>> 8);
+            bytes[i * 2 + 1] = (byte) moves[i];
+        }
+        return bytes;
+    }
+
+    static short[] decode(byte[] bytes) {
+        short[] moves = new short[bytes.length / 2];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = (short) ((bytes[i * 2] << 8) | (bytes[i * 2 + 1] & 0xFF));
+        }
+        return moves;
+    }
+
+    /**
+     * Consecutive chunk rows of one game, concatenated, with the game's players and the snapshot the
+     * replay starts from, if the rows were read from one.
+     */
+    private static final class Chunks {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int firstChunk = -1;
+        private Long whiteUserId;
+        private Long blackUserId;
+        private int snapshotPly;
+        private String snapshotFen;
+        private byte[] snapshotHashes;
+
+        private void add(ResultSet rs) throws SQLException {
+            if (firstChunk < 0) {
+                firstChunk = rs.getInt("chunk");
+                whiteUserId = rs.getObject("white_user_id", Long.class);
+                blackUserId = rs.getObject("black_user_id", Long.class);
+                snapshotPly = rs.getInt("snapshot_ply");
+                snapshotFen = snapshotPly > 0 ? rs.getString("snapshot_fen") : null;
+                snapshotHashes = snapshotPly > 0 ? rs.getBytes("snapshot_hashes") : null;
+            }
+            bytes.writeBytes(rs.getBytes("moves"));
+        }
+
+        /**
+         * Replays the moves from the snapshot, or from the start when there is none, and returns up to
+         * {@code limit} moves numbered after {@code afterMoveNumber}.
+         */
+        private List<MoveEntity> replay(Long gameId, int afterMoveNumber, int limit) {
+            short[] packed = decode(bytes.toByteArray());
+            Position position = GameEntity.restoreSnapshot(snapshotFen, snapshotHashes);
+            int firstPly = Math.max(firstChunk, 0) * GameMovesEntity.CHUNK_PLIES;
+            List<MoveEntity> moves = new ArrayList<>(Math.min(limit, packed.length));
+            for (int i = Math.max(0, snapshotPly - firstPly); i < packed.length && moves.size() < limit; i++) {
+                int moveNumber = firstPly + i + 1;
+                int move = Move.unpack(packed[i]);
+                if (moveNumber > afterMoveNumber) {
+                    int piece = position.pieceAt(Move.from(move));
+                    Long byUserId = Piece.color(piece) == Piece.WHITE ? whiteUserId : blackUserId;
+                    moves.add(new MoveEntity(gameId, moveNumber, packed[i], Piece.name(piece), byUserId, null));
+                }
+                position.makeMove(move);
+            }
+            return moves;
+        }
+    }
+}
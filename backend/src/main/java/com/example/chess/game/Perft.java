@@ -0,0 +1,33 @@
+package com.example.chess.game;
+
+public final class Perft {
+    private Perft() {
+    }
+
+    public static long perft(Position position, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList[] lists = new MoveList[depth];
+        for (int i = 0; i < depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(position, depth, lists);
+    }
+
+    private static long perft(Position position, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth - 1];
+        MoveGenerator.generateLegalMoves(position, moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            position.makeMove(move);
+            nodes += perft(position, depth - 1, lists);
+            position.unmakeMove(move);
+        }
+        return nodes;
+    }
+}
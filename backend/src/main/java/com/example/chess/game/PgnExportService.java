@@ -0,0 +1,173 @@
+package com.example.chess.game;
+
+import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.UserRepository;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes games as PGN, with moves in standard algebraic notation from {@link ChessRules#toSan}. Bulk
+ * exports read one page of games at a time by keyset (after the last game id, or the last creation time
+ * and id) and fetch the moves and player names of a page with one query each, so memory use depends on
+ * the page size only, whatever the number of games exported. The writer is flushed after every page.
+ */
+@Service
+public class PgnExportService {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy.MM.dd").withZone(ZoneOffset.UTC);
+    private static final int LINE_LENGTH = 80;
+
+    private final GameRepository gameRepository;
+    private final MoveStore moveStore;
+    private final UserRepository userRepository;
+    private final int pageSize;
+
+    public PgnExportService(GameRepository gameRepository,
+                            MoveStore moveStore,
+                            UserRepository userRepository,
+                            @Value("${chess.pgn.page-size:200}") int pageSize) {
+        this.gameRepository = gameRepository;
+        this.moveStore = moveStore;
+        this.userRepository = userRepository;
+        this.pageSize = pageSize;
+    }
+
+    public void exportGame(GameEntity game, Writer out) throws IOException {
+        writePage(List.of(game), out);
+    }
+
+    /**
+     * Writes every finished game of {@code userId}, oldest first.
+     *
+     * @return the number of games written
+     */
+    public long exportFinishedGames(Long userId, Writer out) throws IOException {
+        long written = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<GameEntity> page = gameRepository.findFinishedByUserAfter(userId, afterId, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                return written;
+            }
+            writePage(page, out);
+            written += page.size();
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Writes every game created from {@code from} inclusive to {@code to} exclusive, in creation order.
+     * Games still in progress end with the {@code *} result.
+     *
+     * @return the number of games written
+     */
+    public long exportCreatedBetween(Instant from, Instant to, Writer out) throws IOException {
+        long written = 0;
+        Instant afterCreatedAt = from;
+        Long afterId = 0L;
+        while (true) {
+            List<GameEntity> page = gameRepository.findCreatedBetweenAfter(from, to, afterCreatedAt, afterId, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                return written;
+            }
+            writePage(page, out);
+            written += page.size();
+            GameEntity last = page.get(page.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+        }
+    }
+
+    private void writePage(List<GameEntity> games, Writer out) throws IOException {
+        Set<Long> userIds = new HashSet<>();
+        List<Long> gameIds = games.stream().map(GameEntity::getId).toList();
+        for (GameEntity game : games) {
+            userIds.add(game.getWhiteUserId());
+            userIds.add(game.getBlackUserId());
+        }
+        Map<Long, String> usernames = new HashMap<>();
+        for (UserEntity user : userRepository.findAllById(userIds)) {
+            usernames.put(user.getId(), user.getUsername());
+        }
+        Map<Long, List<MoveEntity>> moves = moveStore.findByGameIds(gameIds);
+        StringBuilder pgn = new StringBuilder(1024);
+        for (GameEntity game : games) {
+            pgn.setLength(0);
+            write(game, usernames.getOrDefault(game.getWhiteUserId(), "?"),
+                    usernames.getOrDefault(game.getBlackUserId(), "?"), moves.get(game.getId()), pgn);
+            out.write(pgn.toString());
+        }
+        out.flush();
+    }
+
+    static void write(GameEntity game, String white, String black, List<MoveEntity> moves, StringBuilder out) {
+        String result = result(game);
+        tag(out, "Event", "Online game");
+        tag(out, "Site", "chess");
+        tag(out, "Date", DATE.format(game.getCreatedAt()));
+        tag(out, "Round", "-");
+        tag(out, "White", white);
+        tag(out, "Black", black);
+        tag(out, "Result", result);
+        TimeControl timeControl = game.getTimeControl();
+        if (timeControl != null) {
+            tag(out, "TimeControl", timeControl.baseSeconds() + "+" + timeControl.incrementSeconds());
+        }
+        if (game.getStatus() == GameStatus.FINISHED) {
+            tag(out, "Termination", "timeout".equals(game.getEndReason()) ? "Time forfeit" : "Normal");
+        }
+        out.append('\n');
+
+        Position position = Position.initial();
+        int lineStart = out.length();
+        for (MoveEntity stored : moves) {
+            int move = Move.unpack(stored.getPackedMove());
+            String token = position.sideToMove() == Piece.WHITE
+                    ? position.fullmoveNumber() + ". " + ChessRules.toSan(position, move)
+                    : ChessRules.toSan(position, move);
+            lineStart = append(out, token, lineStart);
+            position.makeMove(move);
+        }
+        append(out, result, lineStart);
+        out.append("\n\n");
+    }
+
+    private static int append(StringBuilder out, String token, int lineStart) {
+        if (out.length() > lineStart) {
+            if (out.length() - lineStart + 1 + token.length() > LINE_LENGTH) {
+                out.append('\n');
+                lineStart = out.length();
+            } else {
+                out.append(' ');
+            }
+        }
+        out.append(token);
+        return lineStart;
+    }
+
+    private static void tag(StringBuilder out, String name, String value) {
+        out.append('[').append(name).append(" \"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\""))
+                .append("\"]\n");
+    }
+
+    private static String result(GameEntity game) {
+        if (game.getStatus() != GameStatus.FINISHED) {
+            return "*";
+        }
+        if (game.getWinnerUserId() == null) {
+            return "1/2-1/2";
+        }
+        return game.getWinnerUserId().equals(game.getWhiteUserId()) ? "1-0" : "0-1";
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.chess.game;
+
+public final class Piece {
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int NONE = -1;
+    public static final int COUNT = 12;
+
+    private static final String[] NAMES = {
+            "wP", "wN", "wB", "wR", "wQ", "wK",
+            "bP", "bN", "bB", "bR", "bQ", "bK"
+    };
+    private static final String TYPE_LETTERS = "PNBRQK";
+
+    private Piece() {
+    }
+
+    public static int of(int color, int type) {
+        return color * 6 + type;
+    }
+
+    public static int color(int piece) {
+        return piece < 6 ? WHITE : BLACK;
+    }
+
+    public static int type(int piece) {
+        return piece < 6 ? piece : piece - 6;
+    }
+
+    public static String name(int piece) {
+        return piece == NONE ? "" : NAMES[piece];
+    }
+
+    public static int parse(String name) {
+        if (name == null || name.length() != 2) {
+            return NONE;
+        }
+        int color;
+        char c = name.charAt(0);
+        if (c == 'w') {
+            color = WHITE;
+        } else if (c == 'b') {
+            color = BLACK;
+        } else {
+            return NONE;
+        }
+        int type = TYPE_LETTERS.indexOf(name.charAt(1));
+        return type < 0 ? NONE : of(color, type);
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.chess.game;
+
+import java.util.Arrays;
+
+public final class Position {
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 0xF);
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+    }
+
+    private final long[] pieces = new long[Piece.COUNT];
+    private final long[] colors = new long[2];
+    private final int[] board = new int[64];
+    private long occupied;
+    private int sideToMove = Piece.WHITE;
+    private int castlingRights;
+    private int enPassantSquare = -1;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private long hash;
+    private int[] history = new int[256];
+    private long[] hashHistory = new long[256];
+    private int ply;
+
+    private Position() {
+        Arrays.fill(board, Piece.NONE);
+    }
+
+    public static Position initial() {
+        return fromFen(START_FEN);
+    }
+
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        Position position = new Position();
+        int rank = 7;
+        int file = 0;
+        for (int i = 0; i < fields[0].length(); i++) {
+            char c = fields[0].charAt(i);
+            if (c == '/') {
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                int type = "PNBRQK".indexOf(Character.toUpperCase(c));
+                if (type < 0 || rank < 0 || file > 7) {
+                    throw new IllegalArgumentException("Invalid FEN: " + fen);
+                }
+                int color = Character.isUpperCase(c) ? Piece.WHITE : Piece.BLACK;
+                position.put(Piece.of(color, type), rank * 8 + file);
+                file++;
+            }
+        }
+        position.sideToMove = fields[1].equals("b") ? Piece.BLACK : Piece.WHITE;
+        for (char c : fields[2].toCharArray()) {
+            switch (c) {
+                case 'K' -> position.castlingRights |= WHITE_KINGSIDE;
+                case 'Q' -> position.castlingRights |= WHITE_QUEENSIDE;
+                case 'k' -> position.castlingRights |= BLACK_KINGSIDE;
+                case 'q' -> position.castlingRights |= BLACK_QUEENSIDE;
+                default -> {
+                }
+            }
+        }
+        position.enPassantSquare = fields[3].equals("-") ? -1 : ChessRules.squareIndex(fields[3]);
+        if (fields.length > 4) {
+            position.halfmoveClock = Integer.parseInt(fields[4]);
+        }
+        if (fields.length > 5) {
+            position.fullmoveNumber = Integer.parseInt(fields[5]);
+        }
+        position.hash ^= Zobrist.castling(position.castlingRights) ^ Zobrist.enPassant(position.enPassantSquare);
+        if (position.sideToMove == Piece.BLACK) {
+            position.hash ^= Zobrist.sideToMove();
+        }
+        return position;
+    }
+
+    /**
+     * Restores a position saved as {@link #toFen()} plus {@link #recentHashes()}, so that repetitions of
+     * positions reached before the save are still detected.
+     */
+    public static Position fromFen(String fen, long[] recentHashes) {
+        Position position = fromFen(fen);
+        if (recentHashes.length > position.hashHistory.length) {
+            position.history = new int[recentHashes.length * 2];
+            position.hashHistory = new long[recentHashes.length * 2];
+        }
+        System.arraycopy(recentHashes, 0, position.hashHistory, 0, recentHashes.length);
+        position.ply = recentHashes.length;
+        return position;
+    }
+
+    /**
+     * Hashes of the earlier positions that can still repeat, those since the last capture or pawn move,
+     * oldest first.
+     */
+    public long[] recentHashes() {
+        return Arrays.copyOfRange(hashHistory, Math.max(0, ply - halfmoveClock), ply);
+    }
+
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                int piece = board[rank * 8 + file];
+                if (piece == Piece.NONE) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char letter = "PNBRQK".charAt(Piece.type(piece));
+                fen.append(Piece.color(piece) == Piece.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(sideToMove == Piece.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) {
+                fen.append('K');
+            }
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) {
+                fen.append('Q');
+            }
+            if ((castlingRights & BLACK_KINGSIDE) != 0) {
+                fen.append('k');
+            }
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) {
+                fen.append('q');
+            }
+        }
+        fen.append(' ').append(enPassantSquare < 0 ? "-" : ChessRules.squareName(enPassantSquare));
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    public int pieceAt(int square) {
+        return board[square];
+    }
+
+    public String getPiece(ChessRules.Square square) {
+        return Piece.name(board[square.index()]);
+    }
+
+    public long pieces(int piece) {
+        return pieces[piece];
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[Piece.of(color, type)];
+    }
+
+    public long occupancy(int color) {
+        return colors[color];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int fullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    public long hash() {
+        return hash;
+    }
+
+    public int repetitionCount() {
+        int count = 0;
+        int oldest = Math.max(0, ply - halfmoveClock);
+        for (int i = ply - 4; i >= oldest; i -= 2) {
+            if (hashHistory[i] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isThreefoldRepetition() {
+        return repetitionCount() >= 2;
+    }
+
+    public boolean isFiftyMoveDraw() {
+        return halfmoveClock >= 100;
+    }
+
+    public int kingSquare(int color) {
+        return Long.numberOfTrailingZeros(pieces[Piece.of(color, Piece.KING)]);
+    }
+
+    public boolean inCheck() {
+        return isAttacked(kingSquare(sideToMove), sideToMove ^ 1);
+    }
+
+    public boolean isAttacked(int square, int byColor) {
+        if ((Bitboards.pawnAttacks(byColor ^ 1, square) & pieces(byColor, Piece.PAWN)) != 0) {
+            return true;
+        }
+        if ((Bitboards.knightAttacks(square) & pieces(byColor, Piece.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((Bitboards.kingAttacks(square) & pieces(byColor, Piece.KING)) != 0) {
+            return true;
+        }
+        long queens = pieces(byColor, Piece.QUEEN);
+        if ((Bitboards.bishopAttacks(square, occupied) & (pieces(byColor, Piece.BISHOP) | queens)) != 0) {
+            return true;
+        }
+        return (Bitboards.rookAttacks(square, occupied) & (pieces(byColor, Piece.ROOK) | queens)) != 0;
+    }
+
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = board[from];
+        int captured = Piece.NONE;
+
+        if (ply == history.length) {
+            history = Arrays.copyOf(history, ply * 2);
+            hashHistory = Arrays.copyOf(hashHistory, ply * 2);
+        }
+        hashHistory[ply] = hash;
+        history[ply++] = castlingRights | ((enPassantSquare + 1) << 4) | (halfmoveClock << 11);
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+
+        if (flags == Move.EN_PASSANT) {
+            int capturedSquare = sideToMove == Piece.WHITE ? to - 8 : to + 8;
+            captured = board[capturedSquare];
+            remove(capturedSquare);
+        } else if ((flags & Move.CAPTURE) != 0) {
+            captured = board[to];
+            remove(to);
+        }
+        remove(from);
+        put(Move.isPromotion(move) ? Piece.of(sideToMove, Move.promotionType(move)) : piece, to);
+
+        if (flags == Move.KING_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to - 2, to + 1);
+        }
+
+        history[ply - 1] |= (captured + 1) << 27;
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        enPassantSquare = -1;
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            int skipped = (from + to) >>> 1;
+            if ((Bitboards.pawnAttacks(sideToMove, skipped) & pieces(sideToMove ^ 1, Piece.PAWN)) != 0) {
+                enPassantSquare = skipped;
+            }
+        }
+        halfmoveClock = Piece.type(piece) == Piece.PAWN || captured != Piece.NONE ? 0 : halfmoveClock + 1;
+        if (sideToMove == Piece.BLACK) {
+            fullmoveNumber++;
+        }
+        sideToMove ^= 1;
+        hash ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare) ^ Zobrist.sideToMove();
+    }
+
+    public void unmakeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int state = history[--ply];
+
+        sideToMove ^= 1;
+        if (sideToMove == Piece.BLACK) {
+            fullmoveNumber--;
+        }
+        castlingRights = state & 0xF;
+        enPassantSquare = ((state >>> 4) & 0x7F) - 1;
+        halfmoveClock = (state >>> 11) & 0xFFFF;
+        int captured = (state >>> 27) - 1;
+
+        if (flags == Move.KING_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+        int moved = Move.isPromotion(move) ? Piece.of(sideToMove, Piece.PAWN) : board[to];
+        remove(to);
+        put(moved, from);
+        if (flags == Move.EN_PASSANT) {
+            put(captured, sideToMove == Piece.WHITE ? to - 8 : to + 8);
+        } else if (captured != Piece.NONE) {
+            put(captured, to);
+        }
+        hash = hashHistory[ply];
+    }
+
+    private void movePiece(int from, int to) {
+        int piece = board[from];
+        remove(from);
+        put(piece, to);
+    }
+
+    private void put(int piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        colors[Piece.color(piece)] |= bit;
+        occupied |= bit;
+        board[square] = piece;
+        hash ^= Zobrist.piece(piece, square);
+    }
+
+    private void remove(int square) {
+        int piece = board[square];
+        long bit = 1L << square;
+        pieces[piece] &= ~bit;
+        colors[Piece.color(piece)] &= ~bit;
+        occupied &= ~bit;
+        board[square] = Piece.NONE;
+        hash ^= Zobrist.piece(piece, square);
+    }
+}
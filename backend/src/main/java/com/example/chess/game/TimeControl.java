@@ -0,0 +1,44 @@
+package com.example.chess.game;
+
+/**
+ * Base time plus a per-move increment, both in seconds. Written the usual way as minutes and seconds:
+ * {@code "5+3"} is five minutes with three seconds added after each move; a base under a minute is
+ * written in seconds, as in {@code "30s+0"}.
+ */
+public record TimeControl(int baseSeconds, int incrementSeconds) {
+    private static final int MAX_BASE_SECONDS = 3 * 60 * 60;
+    private static final int MAX_INCREMENT_SECONDS = 180;
+
+    public TimeControl {
+        if (baseSeconds <= 0 || baseSeconds > MAX_BASE_SECONDS || incrementSeconds < 0
+                || incrementSeconds > MAX_INCREMENT_SECONDS) {
+            throw new IllegalArgumentException("Invalid time control");
+        }
+    }
+
+    /**
+     * Parses {@code "<minutes>+<seconds>"} or {@code "<seconds>s+<seconds>"}.
+     *
+     * @throws IllegalArgumentException if {@code value} is not a supported time control
+     */
+    public static TimeControl parse(String value) {
+        int plus = value == null ? -1 : value.indexOf('+');
+        if (plus <= 0 || plus == value.length() - 1) {
+            throw new IllegalArgumentException("Invalid time control");
+        }
+        String base = value.substring(0, plus).trim();
+        try {
+            int baseSeconds = base.endsWith("s")
+                    ? Integer.parseInt(base.substring(0, base.length() - 1))
+                    : Math.multiplyExact(Integer.parseInt(base), 60);
+            return new TimeControl(baseSeconds, Integer.parseInt(value.substring(plus + 1).trim()));
+        } catch (NumberFormatException | ArithmeticException ex) {
+            throw new IllegalArgumentException("Invalid time control", ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (baseSeconds % 60 == 0 ? String.valueOf(baseSeconds / 60) : baseSeconds + "s") + "+" + incrementSeconds;
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.chess.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hierarchical timing wheel for many one-shot timeouts. The first level has {@code wheelSize} buckets of
+ * one tick each; every further level has buckets as wide as the whole level below, and is created only
+ * when a deadline is too far away for the levels so far. Adding and cancelling a timeout is O(1).
+ *
+ * <p>Only non-empty buckets sit in a {@link DelayQueue}, so a single thread sleeps until the earliest
+ * bucket is due instead of ticking: with nothing scheduled it stays parked. A due bucket of an upper level
+ * is emptied into the levels below, so every timeout ends up firing from a first-level bucket, within one
+ * tick of its deadline. Expired timeouts are handed to the callback on the wheel thread, outside the lock,
+ * so the callback should only hand off work.
+ */
+public final class TimingWheel implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private final long origin = System.nanoTime();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final DelayQueue<Bucket> queue = new DelayQueue<>();
+    private final Level root;
+    private final Consumer<Timeout> onExpiry;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private int size;
+
+    public TimingWheel(long tickMillis, int wheelSize, String threadName, Consumer<Timeout> onExpiry) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms and the wheel at least 2 buckets");
+        }
+        this.root = new Level(tickMillis, wheelSize, nowMillis());
+        this.onExpiry = onExpiry;
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Schedules {@code key} to expire after {@code delayMillis}; a delay of zero or less expires within a tick.
+     */
+    public Timeout schedule(long key, long delayMillis) {
+        Timeout timeout = new Timeout(key, nowMillis() + Math.max(0, delayMillis));
+        lock.lock();
+        try {
+            timeout.deadline = Math.max(timeout.deadline, root.currentTime + root.tick);
+            root.add(timeout);
+            size++;
+        } finally {
+            lock.unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * Number of timeouts that are scheduled and have neither fired nor been cancelled.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Milliseconds on the wheel's monotonic clock, the time base of {@link Timeout#deadline()}.
+     */
+    public long nowMillis() {
+        return (System.nanoTime() - origin) / 1_000_000;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    private void run() {
+        List<Timeout> expired = new ArrayList<>();
+        while (running) {
+            try {
+                Bucket bucket = queue.take();
+                lock.lock();
+                try {
+                    while (bucket != null) {
+                        root.advance(bucket.expiration);
+                        for (Timeout timeout = bucket.flush(); timeout != null; ) {
+                            Timeout next = timeout.next;
+                            timeout.next = null;
+                            if (!root.add(timeout)) {
+                                timeout.bucket = null;
+                                size--;
+                                expired.add(timeout);
+                            }
+                            timeout = next;
+                        }
+                        bucket = queue.poll();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                for (Timeout timeout : expired) {
+                    try {
+                        onExpiry.accept(timeout);
+                    } catch (RuntimeException ex) {
+                        log.warn("Timeout callback for {} failed", timeout.key, ex);
+                    }
+                }
+                expired.clear();
+            } catch (InterruptedException ex) {
+                if (running) {
+                    log.warn("Timing wheel thread interrupted, continuing");
+                }
+            }
+        }
+    }
+
+    /**
+     * A scheduled expiry of {@code key}. Cancelling is O(1) and is a no-op once the timeout has fired.
+     */
+    public final class Timeout {
+        private final long key;
+        private long deadline;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(long key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        public long key() {
+            return key;
+        }
+
+        /**
+         * When the timeout is due, on the {@link #nowMillis()} clock.
+         */
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * @return whether the timeout was still pending
+         */
+        public boolean cancel() {
+            lock.lock();
+            try {
+                if (bucket == null) {
+                    return false;
+                }
+                bucket.remove(this);
+                size--;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final class Level {
+        private final long tick;
+        private final long interval;
+        private final Bucket[] buckets;
+        private long currentTime;
+        private Level overflow;
+
+        private Level(long tick, int wheelSize, long startMillis) {
+            this.tick = tick;
+            this.interval = tick * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.currentTime = startMillis - startMillis % tick;
+        }
+
+        /**
+         * @return false if the timeout is already due and was not placed
+         */
+        private boolean add(Timeout timeout) {
+            if (timeout.deadline < currentTime + tick) {
+                return false;
+            }
+            if (timeout.deadline < currentTime + interval) {
+                long slot = timeout.deadline / tick;
+                Bucket bucket = buckets[(int) (slot % buckets.length)];
+                bucket.add(timeout);
+                if (bucket.setExpiration(slot * tick)) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(interval, buckets.length, currentTime);
+            }
+            return overflow.add(timeout);
+        }
+
+        private void advance(long time) {
+            if (time >= currentTime + tick) {
+                currentTime = time - time % tick;
+                if (overflow != null) {
+                    overflow.advance(currentTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list of timeouts due in the same tick of one level. Guarded by the wheel lock,
+     * except {@link #expiration}, which the delay queue reads.
+     */
+    private final class Bucket implements Delayed {
+        private final Timeout head = new Timeout(-1, -1);
+        private volatile long expiration = -1;
+
+        private Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * @return whether the expiration changed, meaning the bucket has to be queued again
+         */
+        private boolean setExpiration(long expiration) {
+            if (this.expiration == expiration) {
+                return false;
+            }
+            this.expiration = expiration;
+            return true;
+        }
+
+        /**
+         * Detaches every timeout and returns them as a singly linked list through {@code next}.
+         */
+        private Timeout flush() {
+            Timeout first = head.next == head ? null : head.next;
+            head.prev.next = null;
+            for (Timeout timeout = first; timeout != null; timeout = timeout.next) {
+                timeout.prev = null;
+                timeout.bucket = null;
+            }
+            head.prev = head;
+            head.next = head;
+            expiration = -1;
+            return first;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiration - nowMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiration, ((Bucket) other).expiration);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.chess.matchmaking;
+
+import com.example.chess.game.TimeControl;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Players waiting for a game, pooled by time control and indexed by rating bucket. Two players can be
+ * paired when their rating gap fits inside both of their search windows; a window starts at
+ * {@code initialWindow} rating points and widens by {@code widenPerSecond} while the player waits, up to
+ * {@code maxWindow}. A partner is looked up only in the buckets the window covers, nearest rating first.
+ *
+ * <p>A joining player is paired at once when someone fits, so with {@code initialWindow} at least the
+ * bucket width a bucket never holds two players of the same time control: they would have been paired.
+ * A sweep still visits every waiting player, oldest first, but each visit only scans the few buckets its
+ * window covers, each holding at most one player, so a sweep is linear in the number of waiting players.
+ *
+ * <p>Not thread-safe; {@link MatchmakingService} serializes access.
+ */
+public final class MatchmakingQueue {
+    private final int bucketWidth;
+    private final int initialWindow;
+    private final int widenPerSecond;
+    private final int maxWindow;
+    private final Map<Long, Ticket> tickets = new LinkedHashMap<>();
+    private final Map<TimeControl, NavigableMap<Integer, Set<Ticket>>> pools = new HashMap<>();
+
+    public MatchmakingQueue(int bucketWidth, int initialWindow, int widenPerSecond, int maxWindow) {
+        if (bucketWidth <= 0 || initialWindow < 0 || widenPerSecond < 0 || maxWindow < initialWindow) {
+            throw new IllegalArgumentException("Invalid matchmaking windows");
+        }
+        this.bucketWidth = bucketWidth;
+        this.initialWindow = initialWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * Queues the player, replacing any earlier ticket, or pairs them right away with the closest waiting
+     * player that fits.
+     *
+     * @return the pairing, or {@code null} if the player is now waiting
+     */
+    public Match join(long userId, int rating, TimeControl timeControl, long nowNanos) {
+        leave(userId);
+        return enqueue(new Ticket(userId, rating, timeControl, nowNanos), nowNanos);
+    }
+
+    /**
+     * Puts back a player from a match that could not start, keeping the time they joined so their window
+     * and wait time carry on.
+     */
+    Match requeue(Ticket ticket, long nowNanos) {
+        leave(ticket.userId);
+        ticket.queued = true;
+        return enqueue(ticket, nowNanos);
+    }
+
+    private Match enqueue(Ticket ticket, long nowNanos) {
+        Ticket partner = findPartner(ticket, nowNanos);
+        if (partner != null) {
+            remove(partner);
+            return partner.joinedNanos <= ticket.joinedNanos ? new Match(partner, ticket) : new Match(ticket, partner);
+        }
+        tickets.put(ticket.userId, ticket);
+        pools.computeIfAbsent(ticket.timeControl, key -> new TreeMap<>())
+                .computeIfAbsent(bucket(ticket.rating), key -> new LinkedHashSet<>())
+                .add(ticket);
+        return null;
+    }
+
+    public boolean leave(long userId) {
+        Ticket ticket = tickets.get(userId);
+        if (ticket == null) {
+            return false;
+        }
+        remove(ticket);
+        return true;
+    }
+
+    /**
+     * Pairs the players whose widened windows now overlap, oldest ticket first.
+     */
+    public List<Match> sweep(long nowNanos) {
+        List<Match> matches = new ArrayList<>();
+        for (Ticket ticket : tickets.values().toArray(new Ticket[0])) {
+            if (!ticket.queued) {
+                continue;
+            }
+            Ticket partner = findPartner(ticket, nowNanos);
+            if (partner != null) {
+                remove(ticket);
+                remove(partner);
+                matches.add(new Match(ticket, partner));
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return tickets.size();
+    }
+
+    public boolean contains(long userId) {
+        return tickets.containsKey(userId);
+    }
+
+    int window(Ticket ticket, long nowNanos) {
+        long widened = initialWindow + Math.max(0, nowNanos - ticket.joinedNanos) / 1_000_000L * widenPerSecond / 1_000L;
+        return (int) Math.min(maxWindow, widened);
+    }
+
+    private Ticket findPartner(Ticket ticket, long nowNanos) {
+        NavigableMap<Integer, Set<Ticket>> pool = pools.get(ticket.timeControl);
+        if (pool == null) {
+            return null;
+        }
+        int window = window(ticket, nowNanos);
+        int home = bucket(ticket.rating);
+        Ticket best = null;
+        int bestGap = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, Set<Ticket>> bucket : pool.subMap(bucket(ticket.rating - window), true,
+                bucket(ticket.rating + window), true).entrySet()) {
+            int index = bucket.getKey();
+            if (index > home && index * bucketWidth - ticket.rating >= bestGap) {
+                break;
+            }
+            for (Ticket candidate : bucket.getValue()) {
+                int gap = Math.abs(candidate.rating - ticket.rating);
+                if (candidate != ticket && gap < bestGap && gap <= window && gap <= window(candidate, nowNanos)) {
+                    best = candidate;
+                    bestGap = gap;
+                }
+            }
+        }
+        return best;
+    }
+
+    private void remove(Ticket ticket) {
+        ticket.queued = false;
+        tickets.remove(ticket.userId);
+        NavigableMap<Integer, Set<Ticket>> pool = pools.get(ticket.timeControl);
+        int index = bucket(ticket.rating);
+        Set<Ticket> bucket = pool.get(index);
+        if (bucket != null && bucket.remove(ticket) && bucket.isEmpty()) {
+            pool.remove(index);
+            if (pool.isEmpty()) {
+                pools.remove(ticket.timeControl);
+            }
+        }
+    }
+
+    private int bucket(int rating) {
+        return Math.floorDiv(rating, bucketWidth);
+    }
+
+    /**
+     * One player's place in the queue.
+     */
+    public static final class Ticket {
+        private final long userId;
+        private final int rating;
+        private final TimeControl timeControl;
+        private final long joinedNanos;
+        private boolean queued = true;
+
+        private Ticket(long userId, int rating, TimeControl timeControl, long joinedNanos) {
+            this.userId = userId;
+            this.rating = rating;
+            this.timeControl = timeControl;
+            this.joinedNanos = joinedNanos;
+        }
+
+        public long userId() {
+            return userId;
+        }
+
+        public int rating() {
+            return rating;
+        }
+
+        public TimeControl timeControl() {
+            return timeControl;
+        }
+
+        public long joinedNanos() {
+            return joinedNanos;
+        }
+    }
+
+    /**
+     * Two players to start a game, the one who waited longer first.
+     */
+    public record Match(Ticket first, Ticket second) {
+        public int ratingGap() {
+            return Math.abs(first.rating - second.rating);
+        }
+    }
+}
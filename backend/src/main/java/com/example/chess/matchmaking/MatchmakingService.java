@@ -0,0 +1,148 @@
+package com.example.chess.matchmaking;
+
+import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.UserRepository;
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameService;
+import com.example.chess.game.TimeControl;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Automatic pairing of the players on this node. Joining pairs the player at once when a waiting player
+ * fits; otherwise a periodic sweep retries as search windows widen. The queue is only locked for the
+ * bucket lookups, and games are created afterwards through {@link GameService#createGame}. A player who
+ * started another game while waiting, say from an invitation, is dropped when paired and the partner
+ * goes back to the queue.
+ */
+@Component
+public class MatchmakingService {
+    private static final Logger log = LoggerFactory.getLogger(MatchmakingService.class);
+
+    private final MatchmakingQueue queue;
+    private final GameService gameService;
+    private final UserRepository userRepository;
+    private final Timer waitTime;
+    private final Timer sweepTime;
+    private final DistributionSummary ratingGap;
+    private final Random random = new Random();
+    private volatile Consumer<GameEntity> matchListener = game -> { };
+
+    public MatchmakingService(GameService gameService,
+                              UserRepository userRepository,
+                              @Value("${chess.matchmaking.bucket-width:50}") int bucketWidth,
+                              @Value("${chess.matchmaking.initial-window:50}") int initialWindow,
+                              @Value("${chess.matchmaking.widen-per-second:25}") int widenPerSecond,
+                              @Value("${chess.matchmaking.max-window:400}") int maxWindow,
+                              MeterRegistry meterRegistry) {
+        this.queue = new MatchmakingQueue(bucketWidth, initialWindow, widenPerSecond, maxWindow);
+        this.gameService = gameService;
+        this.userRepository = userRepository;
+        this.waitTime = Timer.builder("chess.matchmaking.wait")
+                .description("Time from joining the queue to being paired")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sweepTime = Timer.builder("chess.matchmaking.sweep")
+                .description("Time spent pairing the queue in one sweep, excluding game creation")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.ratingGap = DistributionSummary.builder("chess.matchmaking.rating-gap")
+                .description("Rating difference between paired players")
+                .register(meterRegistry);
+        Gauge.builder("chess.matchmaking.queue.size", queue, q -> {
+                    synchronized (q) {
+                        return q.size();
+                    }
+                })
+                .description("Players waiting for a game on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets who announces new games to their players.
+     */
+    public void onMatch(Consumer<GameEntity> listener) {
+        this.matchListener = listener;
+    }
+
+    /**
+     * Queues {@code userId} for a game at {@code timeControl}, replacing any earlier request, and starts the
+     * game right away if a waiting player fits.
+     *
+     * @throws IllegalArgumentException if the user does not exist
+     */
+    public void join(Long userId, TimeControl timeControl) {
+        int rating = userRepository.findById(userId)
+                .map(UserEntity::getRating)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown user"));
+        MatchmakingQueue.Match match;
+        synchronized (queue) {
+            match = queue.join(userId, rating, timeControl, System.nanoTime());
+        }
+        if (match != null) {
+            start(match);
+        }
+    }
+
+    public boolean leave(Long userId) {
+        synchronized (queue) {
+            return queue.leave(userId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chess.matchmaking.sweep-interval:250ms}")
+    public void sweep() {
+        List<MatchmakingQueue.Match> matches;
+        long started = System.nanoTime();
+        synchronized (queue) {
+            if (queue.size() < 2) {
+                return;
+            }
+            matches = queue.sweep(started);
+        }
+        sweepTime.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        for (MatchmakingQueue.Match match : matches) {
+            start(match);
+        }
+    }
+
+    private void start(MatchmakingQueue.Match match) {
+        boolean firstBusy = gameService.hasActiveGame(match.first().userId());
+        boolean secondBusy = gameService.hasActiveGame(match.second().userId());
+        if (firstBusy || secondBusy) {
+            if (firstBusy != secondBusy) {
+                MatchmakingQueue.Match next;
+                synchronized (queue) {
+                    next = queue.requeue(firstBusy ? match.second() : match.first(), System.nanoTime());
+                }
+                if (next != null) {
+                    start(next);
+                }
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        waitTime.record(now - match.first().joinedNanos(), TimeUnit.NANOSECONDS);
+        waitTime.record(now - match.second().joinedNanos(), TimeUnit.NANOSECONDS);
+        ratingGap.record(match.ratingGap());
+        boolean firstIsWhite = random.nextBoolean();
+        Long whiteId = firstIsWhite ? match.first().userId() : match.second().userId();
+        Long blackId = firstIsWhite ? match.second().userId() : match.first().userId();
+        try {
+            matchListener.accept(gameService.createGame(whiteId, blackId, match.first().timeControl()));
+        } catch (RuntimeException ex) {
+            log.warn("Could not start a game between users {} and {}", whiteId, blackId, ex);
+        }
+    }
+}
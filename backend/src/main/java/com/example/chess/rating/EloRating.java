@@ -0,0 +1,34 @@
+package com.example.chess.rating;
+
+/**
+ * Elo updates. New players move faster: the K-factor is {@value #PROVISIONAL_K} for their first
+ * {@value #PROVISIONAL_GAMES} games and {@value #ESTABLISHED_K} afterwards.
+ */
+public final class EloRating {
+    public static final int INITIAL_RATING = 1500;
+    static final int PROVISIONAL_GAMES = 30;
+    static final int PROVISIONAL_K = 40;
+    static final int ESTABLISHED_K = 20;
+
+    private EloRating() {
+    }
+
+    /**
+     * Returns the player's new rating after scoring {@code score} (1, 0.5 or 0) against {@code opponentRating}.
+     */
+    public static int rate(int rating, int gamesPlayed, int opponentRating, double score) {
+        double expected = 1.0 / (1.0 + Math.pow(10.0, (opponentRating - rating) / 400.0));
+        int k = gamesPlayed < PROVISIONAL_GAMES ? PROVISIONAL_K : ESTABLISHED_K;
+        return rating + (int) Math.round(k * (score - expected));
+    }
+
+    /**
+     * White's score in a game won by {@code winnerUserId}, {@code null} meaning a draw.
+     */
+    public static double whiteScore(Long whiteUserId, Long winnerUserId) {
+        if (winnerUserId == null) {
+            return 0.5;
+        }
+        return winnerUserId.equals(whiteUserId) ? 1.0 : 0.0;
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.chess.rating;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Rated players ordered by rating, highest first, ties broken by user id. The order is kept in a treap
+ * whose nodes carry their subtree size, so updating a player, finding a player's rank and reading a page
+ * of the ranking from any offset all take logarithmic time (plus the page length). Readers share a lock;
+ * updates take it exclusively.
+ */
+public final class Leaderboard {
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SplittableRandom priorities = new SplittableRandom();
+    private Node root;
+
+    /**
+     * Places the player at {@code rating}, unless the board already reflects as many games for them.
+     *
+     * @return whether the board changed
+     */
+    public boolean update(long userId, String username, int rating, int gamesPlayed) {
+        lock.writeLock().lock();
+        try {
+            Node current = nodes.get(userId);
+            if (current != null) {
+                if (current.gamesPlayed >= gamesPlayed) {
+                    return false;
+                }
+                root = remove(root, current);
+            }
+            Node node = new Node(userId, username, rating, gamesPlayed, priorities.nextInt());
+            nodes.put(userId, node);
+            root = insert(root, node);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole board, for instance after ratings were recomputed.
+     */
+    public void replaceAll(List<LeaderboardEntry> entries) {
+        lock.writeLock().lock();
+        try {
+            nodes.clear();
+            root = null;
+            for (LeaderboardEntry entry : entries) {
+                Node node = new Node(entry.userId(), entry.username(), entry.rating(), entry.gamesPlayed(), priorities.nextInt());
+                nodes.put(entry.userId(), node);
+                root = insert(root, node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} players starting at the zero-based {@code offset}, with their ranks.
+     */
+    public List<LeaderboardEntry> top(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<LeaderboardEntry> page = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+            collect(root, offset, limit, 0, page);
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the player's entry with their one-based rank, or {@code null} if they are not rated.
+     */
+    public LeaderboardEntry entry(long userId) {
+        lock.readLock().lock();
+        try {
+            Node node = nodes.get(userId);
+            if (node == null) {
+                return null;
+            }
+            int before = 0;
+            Node cursor = root;
+            while (cursor != node) {
+                if (precedes(node, cursor)) {
+                    cursor = cursor.left;
+                } else {
+                    before += size(cursor.left) + 1;
+                    cursor = cursor.right;
+                }
+            }
+            return node.toEntry(before + size(node.left) + 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(Node node, int offset, int limit, int before, List<LeaderboardEntry> page) {
+        if (node == null || page.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        int rank = before + leftSize;
+        if (offset < rank) {
+            collect(node.left, offset, limit, before, page);
+        }
+        if (offset <= rank && page.size() < limit) {
+            page.add(node.toEntry(rank + 1));
+        }
+        collect(node.right, offset, limit, rank + 1, page);
+    }
+
+    private static Node insert(Node tree, Node node) {
+        if (tree == null) {
+            return node;
+        }
+        if (node.priority > tree.priority) {
+            split(tree, node);
+            return node.update();
+        }
+        if (precedes(node, tree)) {
+            tree.left = insert(tree.left, node);
+        } else {
+            tree.right = insert(tree.right, node);
+        }
+        return tree.update();
+    }
+
+    /**
+     * Splits {@code tree} around {@code pivot}, hanging the smaller keys on its left and the rest on its right.
+     */
+    private static void split(Node tree, Node pivot) {
+        if (tree == null) {
+            pivot.left = null;
+            pivot.right = null;
+            return;
+        }
+        if (precedes(tree, pivot)) {
+            split(tree.right, pivot);
+            tree.right = pivot.left;
+            pivot.left = tree.update();
+        } else {
+            split(tree.left, pivot);
+            tree.left = pivot.right;
+            pivot.right = tree.update();
+        }
+    }
+
+    private static Node remove(Node tree, Node node) {
+        if (tree == node) {
+            return merge(node.left, node.right);
+        }
+        if (precedes(node, tree)) {
+            tree.left = remove(tree.left, node);
+        } else {
+            tree.right = remove(tree.right, node);
+        }
+        return tree.update();
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        }
+        right.left = merge(left, right.left);
+        return right.update();
+    }
+
+    private static boolean precedes(Node a, Node b) {
+        return a.rating != b.rating ? a.rating > b.rating : a.userId < b.userId;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        private final long userId;
+        private final String username;
+        private final int rating;
+        private final int gamesPlayed;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long userId, String username, int rating, int gamesPlayed, int priority) {
+            this.userId = userId;
+            this.username = username;
+            this.rating = rating;
+            this.gamesPlayed = gamesPlayed;
+            this.priority = priority;
+        }
+
+        private Node update() {
+            size = 1 + size(left) + size(right);
+            return this;
+        }
+
+        private LeaderboardEntry toEntry(int rank) {
+            return new LeaderboardEntry(rank, userId, username, rating, gamesPlayed);
+        }
+    }
+}
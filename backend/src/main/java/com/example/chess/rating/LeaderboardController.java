@@ -0,0 +1,61 @@
+package com.example.chess.rating;
+
+import com.example.chess.auth.AuthService;
+import com.example.chess.auth.AuthenticatedUser;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/leaderboard")
+public class LeaderboardController {
+    private static final int MAX_LIMIT = 100;
+
+    private final AuthService authService;
+    private final RatingService ratingService;
+
+    public LeaderboardController(AuthService authService, RatingService ratingService) {
+        this.authService = authService;
+        this.ratingService = ratingService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<LeaderboardEntry>> top(@RequestHeader("Authorization") String authorization,
+                                                      @RequestParam(defaultValue = "0") int offset,
+                                                      @RequestParam(defaultValue = "20") int limit) {
+        if (requireUser(authorization) == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (offset < 0 || limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ratingService.top(offset, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<LeaderboardEntry> rank(@RequestHeader("Authorization") String authorization,
+                                                 @PathVariable Long userId) {
+        if (requireUser(authorization) == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LeaderboardEntry entry = ratingService.entry(userId);
+        if (entry == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(entry);
+    }
+
+    private AuthenticatedUser requireUser(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authorization.substring("Bearer ".length()).trim();
+        return authService.requireUser(token);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.chess.rating;
+
+public record LeaderboardEntry(int rank, Long userId, String username, int rating, int gamesPlayed) {
+}
@@ -0,0 +1,275 @@
+package com.example.chess.rating;
+
+import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.UserRepository;
+import com.example.chess.cluster.MessageBus;
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameRepository;
+import com.example.chess.game.GameResult;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Elo ratings and the leaderboard built from them. A finished game and both players' new ratings are
+ * written in one transaction, with the two user rows locked in id order; the in-memory {@link Leaderboard}
+ * is updated once that transaction has committed and the change is published to the other nodes.
+ *
+ * <p>{@link #recompute()} rebuilds every rating from the games table, replaying games in the order they
+ * ended. A game only depends on the previous game of each of its players, so games are grouped into
+ * levels, one past the latest level either player has reached, and each level is rated in parallel.
+ * The result is the same as rating the games one by one. Game finishes wait while the job runs.
+ */
+@Service
+public class RatingService {
+    private static final Logger log = LoggerFactory.getLogger(RatingService.class);
+    private static final String CHANNEL = "chess.ratings";
+    private static final byte RATED = 1;
+    private static final byte RELOAD = 2;
+    private static final int PARALLEL_LEVEL_SIZE = 512;
+    private static final int BATCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final GameRepository gameRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageBus bus;
+    private final boolean recomputeOnStartup;
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final ReadWriteLock recomputeLock = new ReentrantReadWriteLock();
+
+    public RatingService(UserRepository userRepository,
+                         GameRepository gameRepository,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         MessageBus bus,
+                         @Value("${chess.ratings.recompute-on-startup:false}") boolean recomputeOnStartup) {
+        this.userRepository = userRepository;
+        this.gameRepository = gameRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bus = bus;
+        this.recomputeOnStartup = recomputeOnStartup;
+        bus.subscribe(CHANNEL, this::receive);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (recomputeOnStartup) {
+            recompute();
+        } else {
+            reload();
+        }
+    }
+
+    /**
+     * Runs {@code save}, which persists the finished {@code game}, and rates both players in the same
+     * transaction.
+     */
+    public GameEntity recordResult(GameEntity game, Supplier<GameEntity> save) {
+        List<UserEntity> rated = new ArrayList<>(2);
+        GameEntity saved;
+        recomputeLock.readLock().lock();
+        try {
+            saved = transactionTemplate.execute(status -> {
+                GameEntity result = save.get();
+                rate(result, rated);
+                return result;
+            });
+        } finally {
+            recomputeLock.readLock().unlock();
+        }
+        for (UserEntity user : rated) {
+            leaderboard.update(user.getId(), user.getUsername(), user.getRating(), user.getGamesPlayed());
+            bus.publish(CHANNEL, ratedMessage(user));
+        }
+        return saved;
+    }
+
+    public List<LeaderboardEntry> top(int offset, int limit) {
+        return leaderboard.top(offset, limit);
+    }
+
+    public LeaderboardEntry entry(Long userId) {
+        return leaderboard.entry(userId);
+    }
+
+    /**
+     * Rebuilds all ratings from the finished games and reloads the leaderboard on every node.
+     *
+     * @return the number of games replayed
+     */
+    public int recompute() {
+        recomputeLock.writeLock().lock();
+        try {
+            long started = System.nanoTime();
+            List<GameResult> games = gameRepository.findFinishedResults();
+            Map<Long, Integer> players = new HashMap<>();
+            int[] white = new int[games.size()];
+            int[] black = new int[games.size()];
+            double[] whiteScore = new double[games.size()];
+            for (int i = 0; i < games.size(); i++) {
+                GameResult game = games.get(i);
+                white[i] = players.computeIfAbsent(game.whiteUserId(), id -> players.size());
+                black[i] = players.computeIfAbsent(game.blackUserId(), id -> players.size());
+                whiteScore[i] = EloRating.whiteScore(game.whiteUserId(), game.winnerUserId());
+            }
+            int[] ratings = new int[players.size()];
+            int[] played = new int[players.size()];
+            Arrays.fill(ratings, EloRating.INITIAL_RATING);
+            Levels levels = levels(white, black, players.size());
+            for (int level = 0; level < levels.count(); level++) {
+                IntStream slots = IntStream.range(levels.starts()[level], levels.starts()[level + 1]);
+                if (levels.size(level) >= PARALLEL_LEVEL_SIZE) {
+                    slots = slots.parallel();
+                }
+                slots.map(slot -> levels.order()[slot])
+                        .forEach(game -> rate(white[game], black[game], whiteScore[game], ratings, played));
+            }
+            List<Object[]> rows = new ArrayList<>(players.size());
+            players.forEach((userId, index) -> rows.add(new Object[] { ratings[index], played[index], userId }));
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("update users set rating = ?, games_played = 0", EloRating.INITIAL_RATING);
+                for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+                    jdbcTemplate.batchUpdate("update users set rating = ?, games_played = ? where id = ?",
+                            rows.subList(i, Math.min(rows.size(), i + BATCH_SIZE)));
+                }
+            });
+            reload();
+            bus.publish(CHANNEL, new byte[] { RELOAD });
+            log.info("Recomputed ratings of {} players from {} games in {} levels in {} ms", players.size(), games.size(),
+                    levels.count(), (System.nanoTime() - started) / 1_000_000);
+            return games.size();
+        } finally {
+            recomputeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Groups game indexes by level. A game's level is one past the latest level of either player's earlier
+     * games, so the games of one level share no player and only depend on earlier levels.
+     */
+    static Levels levels(int[] white, int[] black, int playerCount) {
+        int[] playerLevel = new int[playerCount];
+        int[] gameLevel = new int[white.length];
+        int levelCount = 0;
+        for (int i = 0; i < white.length; i++) {
+            int level = Math.max(playerLevel[white[i]], playerLevel[black[i]]);
+            gameLevel[i] = level;
+            playerLevel[white[i]] = level + 1;
+            playerLevel[black[i]] = level + 1;
+            levelCount = Math.max(levelCount, level + 1);
+        }
+        int[] starts = new int[levelCount + 1];
+        for (int level : gameLevel) {
+            starts[level + 1]++;
+        }
+        for (int level = 0; level < levelCount; level++) {
+            starts[level + 1] += starts[level];
+        }
+        int[] order = new int[white.length];
+        int[] next = Arrays.copyOf(starts, levelCount);
+        for (int i = 0; i < white.length; i++) {
+            order[next[gameLevel[i]]++] = i;
+        }
+        return new Levels(order, starts);
+    }
+
+    private void rate(GameEntity game, List<UserEntity> rated) {
+        if (game.getWhiteUserId().equals(game.getBlackUserId())) {
+            return;
+        }
+        List<UserEntity> users = userRepository.findAllForUpdate(List.of(game.getWhiteUserId(), game.getBlackUserId()));
+        if (users.size() != 2) {
+            log.warn("Game {} has unknown players, not rated", game.getId());
+            return;
+        }
+        UserEntity white = users.get(0).getId().equals(game.getWhiteUserId()) ? users.get(0) : users.get(1);
+        UserEntity black = white == users.get(0) ? users.get(1) : users.get(0);
+        double whiteScore = EloRating.whiteScore(game.getWhiteUserId(), game.getWinnerUserId());
+        int whiteRating = EloRating.rate(white.getRating(), white.getGamesPlayed(), black.getRating(), whiteScore);
+        int blackRating = EloRating.rate(black.getRating(), black.getGamesPlayed(), white.getRating(), 1.0 - whiteScore);
+        white.recordGame(whiteRating);
+        black.recordGame(blackRating);
+        rated.add(white);
+        rated.add(black);
+    }
+
+    private static void rate(int white, int black, double whiteScore, int[] ratings, int[] played) {
+        if (white == black) {
+            return;
+        }
+        int whiteRating = EloRating.rate(ratings[white], played[white], ratings[black], whiteScore);
+        int blackRating = EloRating.rate(ratings[black], played[black], ratings[white], 1.0 - whiteScore);
+        ratings[white] = whiteRating;
+        ratings[black] = blackRating;
+        played[white]++;
+        played[black]++;
+    }
+
+    private void reload() {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (UserEntity user : userRepository.findByGamesPlayedGreaterThan(0)) {
+            entries.add(new LeaderboardEntry(0, user.getId(), user.getUsername(), user.getRating(), user.getGamesPlayed()));
+        }
+        leaderboard.replaceAll(entries);
+    }
+
+    private void receive(byte[] message) {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        switch (buffer.get()) {
+            case RATED -> {
+                long userId = buffer.getLong();
+                int rating = buffer.getInt();
+                int gamesPlayed = buffer.getInt();
+                byte[] username = new byte[buffer.remaining()];
+                buffer.get(username);
+                leaderboard.update(userId, new String(username, StandardCharsets.UTF_8), rating, gamesPlayed);
+            }
+            case RELOAD -> reload();
+            default -> log.warn("Unknown rating message type {}", message[0]);
+        }
+    }
+
+    private static byte[] ratedMessage(UserEntity user) {
+        byte[] username = user.getUsername().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(17 + username.length)
+                .put(RATED)
+                .putLong(user.getId())
+                .putInt(user.getRating())
+                .putInt(user.getGamesPlayed())
+                .put(username)
+                .array();
+    }
+
+    /**
+     * Game indexes in level order; level {@code l} occupies {@code order[starts[l]]} up to
+     * {@code order[starts[l + 1]]}.
+     */
+    record Levels(int[] order, int[] starts) {
+        int count() {
+            return starts.length - 1;
+        }
+
+        int size(int level) {
+            return starts[level + 1] - starts[level];
+        }
+    }
+}
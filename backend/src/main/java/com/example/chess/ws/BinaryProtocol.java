@@ -0,0 +1,422 @@
+package com.example.chess.ws;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-layout, big-endian frames for the {@value #NAME} subprotocol. Every frame starts with a one-byte
+ * opcode; ids are 8 bytes, moves are the engine's 16-bit code and strings are a 2-byte length followed by
+ * UTF-8. Encoding writes into a caller-owned buffer and decoding fills a reusable {@link Frame}, so neither
+ * allocates once the frame's buffers have grown to fit.
+ */
+public final class BinaryProtocol {
+    public static final String NAME = "chess.bin.v1";
+
+    public static final byte MOVE = 0x01;
+    public static final byte RESIGN = 0x02;
+    public static final byte INVITE = 0x03;
+    public static final byte INVITE_RESPONSE = 0x04;
+    public static final byte PRESENCE_SYNC = 0x05;
+    public static final byte WATCH = 0x06;
+    public static final byte UNWATCH = 0x07;
+    public static final byte QUEUE_JOIN = 0x08;
+    public static final byte QUEUE_LEAVE = 0x09;
+
+    public static final byte MOVE_EVENT = (byte) 0x81;
+    public static final byte GAME_START = (byte) 0x82;
+    public static final byte GAME_OVER = (byte) 0x83;
+    public static final byte INVITE_EVENT = (byte) 0x84;
+    public static final byte INVITE_SENT = (byte) 0x85;
+    public static final byte INVITE_DECLINED = (byte) 0x86;
+    public static final byte ONLINE_USERS = (byte) 0x87;
+    public static final byte ERROR = (byte) 0x88;
+    public static final byte PRESENCE = (byte) 0x89;
+    public static final byte GAME_SNAPSHOT = (byte) 0x8A;
+    public static final byte QUEUE_JOINED = (byte) 0x8B;
+
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private BinaryProtocol() {
+    }
+
+    public static void encodeMove(ByteBuffer target, long gameId, short move) {
+        target.put(MOVE).putLong(gameId).putShort(move);
+    }
+
+    public static void encodeResign(ByteBuffer target, long gameId) {
+        target.put(RESIGN).putLong(gameId);
+    }
+
+    public static void encodeInvite(ByteBuffer target, long toUserId) {
+        target.put(INVITE).putLong(toUserId);
+    }
+
+    public static void encodeInviteResponse(ByteBuffer target, long fromUserId, boolean accepted) {
+        target.put(INVITE_RESPONSE).putLong(fromUserId).put((byte) (accepted ? 1 : 0));
+    }
+
+    public static void encodePresenceSync(ByteBuffer target) {
+        target.put(PRESENCE_SYNC);
+    }
+
+    public static void encodeWatch(ByteBuffer target, long gameId) {
+        target.put(WATCH).putLong(gameId);
+    }
+
+    public static void encodeUnwatch(ByteBuffer target, long gameId) {
+        target.put(UNWATCH).putLong(gameId);
+    }
+
+    public static void encodeQueueJoin(ByteBuffer target, String timeControl) {
+        target.put(QUEUE_JOIN);
+        putString(target, timeControl);
+    }
+
+    public static void encodeQueueLeave(ByteBuffer target) {
+        target.put(QUEUE_LEAVE);
+    }
+
+    /**
+     * Clocks are in milliseconds, -1 when the game is untimed.
+     */
+    public static void encodeMoveEvent(ByteBuffer target, long gameId, int moveNumber, short move, int piece, long byUserId,
+                                       int whiteClockMillis, int blackClockMillis) {
+        target.put(MOVE_EVENT).putLong(gameId).putInt(moveNumber).putShort(move).put((byte) piece).putLong(byUserId)
+                .putInt(whiteClockMillis).putInt(blackClockMillis);
+    }
+
+    public static void encodeGameStart(ByteBuffer target, long gameId, boolean white, long opponentId, String timeControl) {
+        target.put(GAME_START).putLong(gameId).put((byte) (white ? 1 : 0)).putLong(opponentId);
+        putString(target, timeControl);
+    }
+
+    public static void encodeGameOver(ByteBuffer target, long gameId, Long winnerUserId, String endReason) {
+        target.put(GAME_OVER).putLong(gameId).putLong(winnerUserId == null ? 0 : winnerUserId);
+        putString(target, endReason);
+    }
+
+    public static void encodeGameSnapshot(ByteBuffer target, long gameId, long whiteUserId, long blackUserId, boolean finished,
+                                          int moveNumber, String fen) {
+        target.put(GAME_SNAPSHOT).putLong(gameId).putLong(whiteUserId).putLong(blackUserId).put((byte) (finished ? 1 : 0))
+                .putInt(moveNumber);
+        putString(target, fen);
+    }
+
+    public static void encodeQueueJoined(ByteBuffer target, String timeControl) {
+        target.put(QUEUE_JOINED);
+        putString(target, timeControl);
+    }
+
+    public static void encodeInviteEvent(ByteBuffer target, long fromUserId, String fromUsername) {
+        target.put(INVITE_EVENT).putLong(fromUserId);
+        putString(target, fromUsername);
+    }
+
+    public static void encodeInviteSent(ByteBuffer target, long toUserId, String toUsername) {
+        target.put(INVITE_SENT).putLong(toUserId);
+        putString(target, toUsername);
+    }
+
+    public static void encodeInviteDeclined(ByteBuffer target, long fromUserId) {
+        target.put(INVITE_DECLINED).putLong(fromUserId);
+    }
+
+    public static void encodeOnlineUsers(ByteBuffer target, long version, Iterable<OnlineUser> users) {
+        target.put(ONLINE_USERS).putLong(version);
+        putUsers(target, users);
+    }
+
+    public static void encodePresence(ByteBuffer target, long baseVersion, long version, Iterable<OnlineUser> joined,
+                                      Iterable<Long> left) {
+        target.put(PRESENCE).putLong(baseVersion).putLong(version);
+        putUsers(target, joined);
+        int countPosition = target.position();
+        target.putInt(0);
+        int count = 0;
+        for (Long userId : left) {
+            target.putLong(userId);
+            count++;
+        }
+        target.putInt(countPosition, count);
+    }
+
+    public static void encodeError(ByteBuffer target, String message) {
+        target.put(ERROR);
+        putString(target, message);
+    }
+
+    /**
+     * Reads one frame into {@code frame}, overwriting the fields its opcode defines.
+     *
+     * @throws IllegalArgumentException if the opcode is unknown or the frame is truncated
+     */
+    public static void decode(ByteBuffer source, Frame frame) {
+        if (!source.hasRemaining()) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+        frame.type = source.get();
+        try {
+            switch (frame.type) {
+                case MOVE -> {
+                    frame.gameId = source.getLong();
+                    frame.move = source.getShort();
+                }
+                case RESIGN, WATCH, UNWATCH -> frame.gameId = source.getLong();
+                case INVITE, INVITE_DECLINED -> frame.userId = source.getLong();
+                case INVITE_RESPONSE -> {
+                    frame.userId = source.getLong();
+                    frame.flag = source.get() != 0;
+                }
+                case MOVE_EVENT -> {
+                    frame.gameId = source.getLong();
+                    frame.moveNumber = source.getInt();
+                    frame.move = source.getShort();
+                    frame.piece = source.get();
+                    frame.userId = source.getLong();
+                    frame.whiteClockMillis = source.getInt();
+                    frame.blackClockMillis = source.getInt();
+                }
+                case GAME_START -> {
+                    frame.gameId = source.getLong();
+                    frame.flag = source.get() != 0;
+                    frame.userId = source.getLong();
+                    getString(source, frame.text);
+                }
+                case GAME_OVER -> {
+                    frame.gameId = source.getLong();
+                    frame.userId = source.getLong();
+                    getString(source, frame.text);
+                }
+                case GAME_SNAPSHOT -> {
+                    frame.gameId = source.getLong();
+                    frame.userId = source.getLong();
+                    frame.blackUserId = source.getLong();
+                    frame.flag = source.get() != 0;
+                    frame.moveNumber = source.getInt();
+                    getString(source, frame.text);
+                }
+                case INVITE_EVENT, INVITE_SENT -> {
+                    frame.userId = source.getLong();
+                    getString(source, frame.text);
+                }
+                case QUEUE_JOIN, QUEUE_JOINED -> getString(source, frame.text);
+                case PRESENCE_SYNC, QUEUE_LEAVE -> {
+                }
+                case ONLINE_USERS -> {
+                    frame.version = source.getLong();
+                    getUsers(source, frame);
+                }
+                case PRESENCE -> {
+                    frame.baseVersion = source.getLong();
+                    frame.version = source.getLong();
+                    getUsers(source, frame);
+                    int count = source.getInt();
+                    if (count < 0 || count > source.remaining() / 8) {
+                        throw new IllegalArgumentException("Invalid user count");
+                    }
+                    if (count > frame.leftIds.length) {
+                        frame.leftIds = new long[Math.max(count, frame.leftIds.length * 2)];
+                    }
+                    for (int i = 0; i < count; i++) {
+                        frame.leftIds[i] = source.getLong();
+                    }
+                    frame.leftCount = count;
+                }
+                case ERROR -> getString(source, frame.text);
+                default -> throw new IllegalArgumentException("Unknown frame type " + (frame.type & 0xFF));
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Truncated frame", ex);
+        }
+    }
+
+    private static void putUsers(ByteBuffer target, Iterable<OnlineUser> users) {
+        int countPosition = target.position();
+        target.putInt(0);
+        int count = 0;
+        for (OnlineUser user : users) {
+            target.putLong(user.id());
+            putString(target, user.username());
+            count++;
+        }
+        target.putInt(countPosition, count);
+    }
+
+    private static void getUsers(ByteBuffer source, Frame frame) {
+        int count = source.getInt();
+        if (count < 0 || count > source.remaining() / 10) {
+            throw new IllegalArgumentException("Invalid user count");
+        }
+        frame.ensureUsers(count);
+        for (int i = 0; i < count; i++) {
+            frame.userIds[i] = source.getLong();
+            getString(source, frame.usernames[i]);
+        }
+        frame.userCount = count;
+    }
+
+    static void putString(ByteBuffer target, CharSequence value) {
+        int lengthPosition = target.position();
+        target.putShort((short) 0);
+        if (value == null) {
+            return;
+        }
+        int start = target.position();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                target.put((byte) c);
+            } else if (c < 0x800) {
+                target.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                target.put((byte) (0xF0 | (codePoint >> 18)))
+                        .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                        .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                        .put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                target.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F))).put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        int length = target.position() - start;
+        if (length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String too long for frame");
+        }
+        target.putShort(lengthPosition, (short) length);
+    }
+
+    static void getString(ByteBuffer source, StringBuilder target) {
+        target.setLength(0);
+        int end = (source.getShort() & 0xFFFF) + source.position();
+        if (end > source.limit()) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        while (source.position() < end) {
+            int b = source.get() & 0xFF;
+            if (b < 0x80) {
+                target.append((char) b);
+            } else if (b < 0xE0) {
+                target.append((char) (((b & 0x1F) << 6) | (source.get() & 0x3F)));
+            } else if (b < 0xF0) {
+                target.append((char) (((b & 0x0F) << 12) | ((source.get() & 0x3F) << 6) | (source.get() & 0x3F)));
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((source.get() & 0x3F) << 12) | ((source.get() & 0x3F) << 6)
+                        | (source.get() & 0x3F);
+                target.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+            }
+        }
+    }
+
+    /**
+     * Mutable view of the last decoded frame. {@code userId} holds whichever user the opcode names
+     * (invitee, inviter, opponent, mover or winner, 0 meaning none) and {@code flag} holds the
+     * accepted or plays-white bit. A game snapshot puts white in {@code userId}, sets {@code flag} when the
+     * game is finished and carries the FEN in {@code text}. Game start and queue frames carry the time control
+     * in {@code text}, empty when a game is untimed; move events carry both clocks, -1 when untimed.
+     */
+    public static final class Frame {
+        private byte type;
+        private long gameId;
+        private int moveNumber;
+        private short move;
+        private int piece;
+        private long userId;
+        private long blackUserId;
+        private int whiteClockMillis;
+        private int blackClockMillis;
+        private boolean flag;
+        private long version;
+        private long baseVersion;
+        private final StringBuilder text = new StringBuilder(64);
+        private int userCount;
+        private long[] userIds = new long[0];
+        private StringBuilder[] usernames = new StringBuilder[0];
+        private int leftCount;
+        private long[] leftIds = new long[0];
+
+        public byte type() {
+            return type;
+        }
+
+        public long gameId() {
+            return gameId;
+        }
+
+        public int moveNumber() {
+            return moveNumber;
+        }
+
+        public short move() {
+            return move;
+        }
+
+        public int piece() {
+            return piece;
+        }
+
+        public long userId() {
+            return userId;
+        }
+
+        public long blackUserId() {
+            return blackUserId;
+        }
+
+        public int whiteClockMillis() {
+            return whiteClockMillis;
+        }
+
+        public int blackClockMillis() {
+            return blackClockMillis;
+        }
+
+        public boolean flag() {
+            return flag;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public long baseVersion() {
+            return baseVersion;
+        }
+
+        public CharSequence text() {
+            return text;
+        }
+
+        public int userCount() {
+            return userCount;
+        }
+
+        public long userId(int index) {
+            return userIds[index];
+        }
+
+        public CharSequence username(int index) {
+            return usernames[index];
+        }
+
+        public int leftCount() {
+            return leftCount;
+        }
+
+        public long leftId(int index) {
+            return leftIds[index];
+        }
+
+        private void ensureUsers(int count) {
+            if (count > userIds.length) {
+                int size = Math.max(count, userIds.length * 2);
+                userIds = Arrays.copyOf(userIds, size);
+                int old = usernames.length;
+                usernames = Arrays.copyOf(usernames, size);
+                for (int i = old; i < size; i++) {
+                    usernames[i] = new StringBuilder(16);
+                }
+            }
+        }
+    }
+}
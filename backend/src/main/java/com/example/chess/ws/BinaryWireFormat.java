@@ -0,0 +1,102 @@
+package com.example.chess.ws;
+
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.GameStatus;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.TimeControl;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+public class BinaryWireFormat implements WireFormat {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+    private final FrameCache errors = new FrameCache(message -> write(buffer -> BinaryProtocol.encodeError(buffer, message)));
+
+    @Override
+    public String name() {
+        return BinaryProtocol.NAME;
+    }
+
+    @Override
+    public EncodedFrame move(MoveEntity move) {
+        return write(buffer -> BinaryProtocol.encodeMoveEvent(buffer, move.getGameId(), move.getMoveNumber(),
+                move.getPackedMove(), move.getPieceCode(), move.getByUserId(), clock(move.getWhiteClockMillis()),
+                clock(move.getBlackClockMillis())));
+    }
+
+    @Override
+    public EncodedFrame gameStart(GameEntity game, Long selfId, Long opponentId) {
+        return write(buffer -> BinaryProtocol.encodeGameStart(buffer, game.getId(), selfId.equals(game.getWhiteUserId()), opponentId,
+                game.isTimed() ? game.getTimeControl().toString() : null));
+    }
+
+    @Override
+    public EncodedFrame gameOver(GameEntity game) {
+        return write(buffer -> BinaryProtocol.encodeGameOver(buffer, game.getId(), game.getWinnerUserId(), game.getEndReason()));
+    }
+
+    @Override
+    public EncodedFrame gameSnapshot(GameSnapshot snapshot) {
+        return write(buffer -> BinaryProtocol.encodeGameSnapshot(buffer, snapshot.gameId(), snapshot.whiteUserId(),
+                snapshot.blackUserId(), snapshot.status() == GameStatus.FINISHED, snapshot.moveCount(), snapshot.fen()));
+    }
+
+    @Override
+    public EncodedFrame invite(Long fromUserId, String fromUsername) {
+        return write(buffer -> BinaryProtocol.encodeInviteEvent(buffer, fromUserId, fromUsername));
+    }
+
+    @Override
+    public EncodedFrame inviteSent(Long toUserId, String toUsername) {
+        return write(buffer -> BinaryProtocol.encodeInviteSent(buffer, toUserId, toUsername));
+    }
+
+    @Override
+    public EncodedFrame inviteDeclined(Long fromUserId) {
+        return write(buffer -> BinaryProtocol.encodeInviteDeclined(buffer, fromUserId));
+    }
+
+    @Override
+    public EncodedFrame queueJoined(TimeControl timeControl) {
+        return write(buffer -> BinaryProtocol.encodeQueueJoined(buffer, timeControl.toString()));
+    }
+
+    @Override
+    public EncodedFrame onlineUsers(long version, Collection<OnlineUser> users) {
+        return write(buffer -> BinaryProtocol.encodeOnlineUsers(buffer, version, users));
+    }
+
+    @Override
+    public EncodedFrame presence(long baseVersion, long version, Collection<OnlineUser> joined, Collection<Long> left) {
+        return write(buffer -> BinaryProtocol.encodePresence(buffer, baseVersion, version, joined, left));
+    }
+
+    @Override
+    public EncodedFrame error(String message) {
+        return errors.get(message);
+    }
+
+    private EncodedFrame write(Consumer<ByteBuffer> encoder) {
+        ByteBuffer buffer = scratch.get();
+        while (true) {
+            buffer.clear();
+            try {
+                encoder.accept(buffer);
+                break;
+            } catch (BufferOverflowException ex) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                scratch.set(buffer);
+            }
+        }
+        return EncodedFrame.binary(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    private static int clock(Long millis) {
+        return millis == null ? -1 : (int) Math.min(Integer.MAX_VALUE, millis);
+    }
+}
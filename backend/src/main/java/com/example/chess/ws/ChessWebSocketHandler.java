@@ -1,59 +1,95 @@
 package com.example.chess.ws;
 
 import com.example.chess.auth.AuthService;
-import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.AuthenticatedUser;
+import com.example.chess.game.ChessRules;
+import com.example.chess.game.GameClocks;
+import com.example.chess.game.GameCommandExecutor;
 import com.example.chess.game.GameEntity;
 import com.example.chess.game.GameService;
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.GameStatus;
+import com.example.chess.game.Move;
 import com.example.chess.game.MoveEntity;
+import com.example.chess.game.TimeControl;
+import com.example.chess.matchmaking.MatchmakingService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
 @Component
-public class ChessWebSocketHandler extends TextWebSocketHandler {
+public class ChessWebSocketHandler extends AbstractWebSocketHandler implements SubProtocolCapable {
     private static final String USER_ID_KEY = "userId";
     private static final String USERNAME_KEY = "username";
 
     private final AuthService authService;
     private final GameService gameService;
     private final SessionManager sessionManager;
-    private final OnlineUserRegistry onlineUserRegistry;
+    private final PresenceBroadcaster presence;
+    private final ClusterRouter router;
+    private final SpectatorHub spectators;
+    private final MatchmakingService matchmaking;
+    private final WireFormats wireFormats;
+    private final GameCommandExecutor gameExecutor;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadLocal<BinaryProtocol.Frame> inboundFrame = ThreadLocal.withInitial(BinaryProtocol.Frame::new);
     private final Random random = new Random();
 
     public ChessWebSocketHandler(AuthService authService,
                                  GameService gameService,
                                  SessionManager sessionManager,
-                                 OnlineUserRegistry onlineUserRegistry) {
+                                 PresenceBroadcaster presence,
+                                 ClusterRouter router,
+                                 SpectatorHub spectators,
+                                 MatchmakingService matchmaking,
+                                 WireFormats wireFormats,
+                                 GameCommandExecutor gameExecutor,
+                                 GameClocks clocks) {
         this.authService = authService;
         this.gameService = gameService;
         this.sessionManager = sessionManager;
-        this.onlineUserRegistry = onlineUserRegistry;
+        this.presence = presence;
+        this.router = router;
+        this.spectators = spectators;
+        this.matchmaking = matchmaking;
+        this.wireFormats = wireFormats;
+        this.gameExecutor = gameExecutor;
+        router.onCommand(this::handleRemoteCommand);
+        spectators.onCatchUp((gameId, session) -> requestSnapshot((Long) session.getAttributes().get(USER_ID_KEY), gameId));
+        matchmaking.onMatch(this::announceMatch);
+        clocks.onFlag(gameId -> gameExecutor.submit(gameId, () -> checkFlag(gameId)));
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return wireFormats.names();
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        wireFormats.negotiate(session);
         String token = extractToken(session.getUri());
-        UserEntity user = token == null ? null : authService.requireUser(token);
+        AuthenticatedUser user = token == null ? null : authService.requireUser(token);
         if (user == null) {
             session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Unauthorized"));
             return;
         }
-        session.getAttributes().put(USER_ID_KEY, user.getId());
-        session.getAttributes().put(USERNAME_KEY, user.getUsername());
-        sessionManager.register(user.getId(), session);
-        onlineUserRegistry.setOnline(user.getId(), user.getUsername());
-        broadcastOnlineUsers();
+        session.getAttributes().put(USER_ID_KEY, user.id());
+        session.getAttributes().put(USERNAME_KEY, user.username());
+        sessionManager.register(user.id(), session);
+        router.userJoined(user.id(), user.username());
+        presence.requestSnapshot(session);
     }
 
     @Override
@@ -65,10 +101,39 @@ public class ChessWebSocketHandler extends TextWebSocketHandler {
             return;
         }
         switch (type) {
-            case "invite" -> handleInvite(session, payload);
-            case "invite_response" -> handleInviteResponse(session, payload);
+            case "invite" -> handleInvite(session, parseLong(payload.get("toUserId")));
+            case "invite_response" -> handleInviteResponse(session, parseLong(payload.get("fromUserId")),
+                    payload.path("accepted").asBoolean(false));
             case "move" -> handleMove(session, payload);
-            case "resign" -> handleResign(session, payload);
+            case "resign" -> handleResign(session, parseLong(payload.get("gameId")));
+            case "watch" -> handleWatch(session, parseLong(payload.get("gameId")));
+            case "unwatch" -> handleUnwatch(session, parseLong(payload.get("gameId")));
+            case "queue_join" -> handleQueueJoin(session, payload.path("timeControl").asText(null));
+            case "queue_leave" -> matchmaking.leave((Long) session.getAttributes().get(USER_ID_KEY));
+            case "presence_sync" -> presence.requestSnapshot(session);
+            default -> sendError(session, "Unknown message type");
+        }
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        BinaryProtocol.Frame frame = inboundFrame.get();
+        try {
+            BinaryProtocol.decode(message.getPayload(), frame);
+        } catch (IllegalArgumentException ex) {
+            sendError(session, ex.getMessage());
+            return;
+        }
+        switch (frame.type()) {
+            case BinaryProtocol.INVITE -> handleInvite(session, frame.userId());
+            case BinaryProtocol.INVITE_RESPONSE -> handleInviteResponse(session, frame.userId(), frame.flag());
+            case BinaryProtocol.MOVE -> handleMove(session, frame.gameId(), Move.unpack(frame.move()));
+            case BinaryProtocol.RESIGN -> handleResign(session, frame.gameId());
+            case BinaryProtocol.WATCH -> handleWatch(session, frame.gameId());
+            case BinaryProtocol.UNWATCH -> handleUnwatch(session, frame.gameId());
+            case BinaryProtocol.QUEUE_JOIN -> handleQueueJoin(session, frame.text().toString());
+            case BinaryProtocol.QUEUE_LEAVE -> matchmaking.leave((Long) session.getAttributes().get(USER_ID_KEY));
+            case BinaryProtocol.PRESENCE_SYNC -> presence.requestSnapshot(session);
             default -> sendError(session, "Unknown message type");
         }
     }
@@ -77,189 +142,249 @@ public class ChessWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         Long userId = (Long) session.getAttributes().get(USER_ID_KEY);
         if (userId != null) {
-            sessionManager.unregister(userId);
-            onlineUserRegistry.setOffline(userId);
-            broadcastOnlineUsers();
+            spectators.unwatchAll(sessionManager.outbound(session));
+            if (sessionManager.unregister(userId, session)) {
+                matchmaking.leave(userId);
+                router.userLeft(userId);
+            }
         }
     }
 
-    private void handleInvite(WebSocketSession session, JsonNode payload) throws IOException {
-        Long toUserId = parseLong(payload.get("toUserId"));
+    private void handleInvite(WebSocketSession session, Long toUserId) throws IOException {
         if (toUserId == null) {
             sendError(session, "Invalid target user");
             return;
         }
-        WebSocketSession target = sessionManager.get(toUserId);
-        if (target == null || !target.isOpen()) {
+        String toUsername = router.username(toUserId);
+        Long fromUserId = (Long) session.getAttributes().get(USER_ID_KEY);
+        String fromUsername = (String) session.getAttributes().get(USERNAME_KEY);
+        if (toUsername == null || !router.sendToUser(toUserId, new OutboundEvent(format -> format.invite(fromUserId, fromUsername)))) {
             sendError(session, "User is offline");
             return;
         }
-        Map<String, Object> invite = new HashMap<>();
-        invite.put("type", "invite");
-        invite.put("fromUserId", session.getAttributes().get(USER_ID_KEY));
-        invite.put("fromUsername", session.getAttributes().get(USERNAME_KEY));
-        sendMessage(target, invite);
-
-        Map<String, Object> ack = new HashMap<>();
-        ack.put("type", "invite_sent");
-        ack.put("toUserId", toUserId);
-        ack.put("toUsername", target.getAttributes().get(USERNAME_KEY));
-        sendMessage(session, ack);
+        send(session, wireFormat(session).inviteSent(toUserId, toUsername));
     }
 
-    private void handleInviteResponse(WebSocketSession session, JsonNode payload) throws IOException {
-        Long fromUserId = parseLong(payload.get("fromUserId"));
-        boolean accepted = payload.path("accepted").asBoolean(false);
+    private void handleInviteResponse(WebSocketSession session, Long fromUserId, boolean accepted) throws IOException {
         if (fromUserId == null) {
             sendError(session, "Invalid response payload");
             return;
         }
-        WebSocketSession inviter = sessionManager.get(fromUserId);
-        if (inviter == null || !inviter.isOpen()) {
+        if (!router.isOnline(fromUserId)) {
             sendError(session, "Inviter is offline");
             return;
         }
+        Long responderId = (Long) session.getAttributes().get(USER_ID_KEY);
         if (!accepted) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("type", "invite_response");
-            response.put("accepted", false);
-            response.put("fromUserId", session.getAttributes().get(USER_ID_KEY));
-            sendMessage(inviter, response);
+            router.sendToUser(fromUserId, new OutboundEvent(format -> format.inviteDeclined(responderId)));
             return;
         }
-        Long responderId = (Long) session.getAttributes().get(USER_ID_KEY);
         Long whiteId = random.nextBoolean() ? responderId : fromUserId;
         Long blackId = whiteId.equals(responderId) ? fromUserId : responderId;
+        matchmaking.leave(responderId);
+        matchmaking.leave(fromUserId);
         GameEntity game = gameService.createGame(whiteId, blackId);
-        sendGameStart(inviter, game, fromUserId, responderId);
-        sendGameStart(session, game, responderId, fromUserId);
+        router.gameCreated(game.getId());
+        router.sendToUser(fromUserId, new OutboundEvent(format -> format.gameStart(game, fromUserId, responderId)));
+        send(session, wireFormat(session).gameStart(game, responderId, fromUserId));
+    }
+
+    private void handleQueueJoin(WebSocketSession session, String timeControlValue) throws IOException {
+        TimeControl timeControl;
+        try {
+            timeControl = TimeControl.parse(timeControlValue);
+        } catch (IllegalArgumentException ex) {
+            sendError(session, ex.getMessage());
+            return;
+        }
+        Long userId = (Long) session.getAttributes().get(USER_ID_KEY);
+        if (gameService.hasActiveGame(userId)) {
+            sendError(session, "Finish your current game first");
+            return;
+        }
+        send(session, wireFormat(session).queueJoined(timeControl));
+        matchmaking.join(userId, timeControl);
+    }
+
+    private void announceMatch(GameEntity game) {
+        Long whiteId = game.getWhiteUserId();
+        Long blackId = game.getBlackUserId();
+        router.gameCreated(game.getId());
+        router.sendToUser(whiteId, new OutboundEvent(format -> format.gameStart(game, whiteId, blackId)));
+        router.sendToUser(blackId, new OutboundEvent(format -> format.gameStart(game, blackId, whiteId)));
     }
 
     private void handleMove(WebSocketSession session, JsonNode payload) throws IOException {
         Long gameId = parseLong(payload.get("gameId"));
         String from = payload.path("from").asText(null);
         String to = payload.path("to").asText(null);
+        String promotion = payload.path("promotion").asText(null);
+        JsonNode packed = payload.get("move");
+        if (packed != null && packed.canConvertToInt()) {
+            int move = Move.unpack((short) packed.asInt());
+            from = ChessRules.squareName(Move.from(move));
+            to = ChessRules.squareName(Move.to(move));
+            promotion = Move.promotionLetter(move);
+        }
         if (gameId == null || from == null || to == null) {
             sendError(session, "Invalid move payload");
             return;
         }
-        GameEntity game = gameService.getGame(gameId);
+        submitMove((Long) session.getAttributes().get(USER_ID_KEY), gameId, from, to, promotion);
+    }
+
+    private void handleMove(WebSocketSession session, long gameId, int move) {
+        submitMove((Long) session.getAttributes().get(USER_ID_KEY), gameId, ChessRules.squareName(Move.from(move)),
+                ChessRules.squareName(Move.to(move)), Move.promotionLetter(move));
+    }
+
+    private void submitMove(Long userId, Long gameId, String from, String to, String promotion) {
+        if (!router.forwardMove(gameId, userId, from, to, promotion)) {
+            gameExecutor.submit(gameId, () -> playMove(userId, gameId, from, to, promotion));
+        }
+    }
+
+    private void handleRemoteCommand(ClusterRouter.RemoteCommand command) {
+        Long gameId = command.gameId();
+        Long userId = command.userId();
+        switch (command.type()) {
+            case MOVE -> gameExecutor.submit(gameId, () -> playMove(userId, gameId, command.from(), command.to(), command.promotion()));
+            case RESIGN -> gameExecutor.submit(gameId, () -> resign(userId, gameId));
+            case WATCH -> gameExecutor.submit(gameId, () -> sendSnapshot(userId, gameId));
+        }
+    }
+
+    private void playMove(Long userId, Long gameId, String from, String to, String promotion) {
+        GameEntity game = gameService.getGameForCommand(gameId);
         if (game == null) {
-            sendError(session, "Game not found");
+            sendError(userId, "Game not found");
             return;
         }
-        if (game.getStatus() == com.example.chess.game.GameStatus.FINISHED) {
-            sendError(session, "Game already finished");
+        if (game.getStatus() == GameStatus.FINISHED) {
+            sendError(userId, "Game already finished");
             return;
         }
-        Long userId = (Long) session.getAttributes().get(USER_ID_KEY);
         if (!userId.equals(game.getWhiteUserId()) && !userId.equals(game.getBlackUserId())) {
-            sendError(session, "Not a player in this game");
-            return;
-        }
-        long count = gameService.countMoves(gameId);
-        boolean whiteTurn = count % 2 == 0;
-        if (whiteTurn && !userId.equals(game.getWhiteUserId())) {
-            sendError(session, "Not your turn");
+            sendError(userId, "Not a player in this game");
             return;
         }
-        if (!whiteTurn && !userId.equals(game.getBlackUserId())) {
-            sendError(session, "Not your turn");
+        if (gameService.finishIfFlagFell(game)) {
+            sendError(userId, "Time is up");
+            broadcastGameOver(game);
             return;
         }
         MoveEntity move;
         try {
-            move = gameService.validateAndAddMove(game, from, to, userId);
+            move = gameService.validateAndAddMove(game, from, to, promotion, userId);
         } catch (IllegalArgumentException ex) {
-            sendError(session, ex.getMessage());
+            sendError(userId, ex.getMessage());
+            return;
+        } catch (OptimisticLockingFailureException ex) {
+            sendError(userId, "Game was updated elsewhere, try again");
             return;
+        } catch (IllegalStateException ex) {
+            sendError(userId, "Move could not be saved, try again");
+            return;
+        }
+        router.broadcastToGame(game, new OutboundEvent(format -> format.move(move)));
+        if (game.getStatus() == GameStatus.FINISHED) {
+            broadcastGameOver(game);
         }
-        Map<String, Object> event = new HashMap<>();
-        event.put("type", "move");
-        event.put("gameId", gameId);
-        event.put("from", move.getFromSquare());
-        event.put("to", move.getToSquare());
-        event.put("piece", move.getPiece());
-        event.put("moveNumber", move.getMoveNumber());
-        event.put("byUserId", move.getByUserId());
-        broadcastToGame(game, event);
     }
 
-    private void handleResign(WebSocketSession session, JsonNode payload) throws IOException {
-        Long gameId = parseLong(payload.get("gameId"));
+    private void checkFlag(Long gameId) {
+        GameEntity game = gameService.getGameForCommand(gameId);
+        if (game != null && gameService.flagTimerExpired(game)) {
+            broadcastGameOver(game);
+        }
+    }
+
+    private void handleResign(WebSocketSession session, Long gameId) throws IOException {
         if (gameId == null) {
             sendError(session, "Invalid resign payload");
             return;
         }
-        GameEntity game = gameService.getGame(gameId);
+        Long userId = (Long) session.getAttributes().get(USER_ID_KEY);
+        if (!router.forwardResign(gameId, userId)) {
+            gameExecutor.submit(gameId, () -> resign(userId, gameId));
+        }
+    }
+
+    private void resign(Long userId, Long gameId) {
+        GameEntity game = gameService.getGameForCommand(gameId);
         if (game == null) {
-            sendError(session, "Game not found");
+            sendError(userId, "Game not found");
             return;
         }
-        if (game.getStatus() == com.example.chess.game.GameStatus.FINISHED) {
-            sendError(session, "Game already finished");
+        if (game.getStatus() == GameStatus.FINISHED) {
+            sendError(userId, "Game already finished");
             return;
         }
-        Long userId = (Long) session.getAttributes().get(USER_ID_KEY);
         if (!userId.equals(game.getWhiteUserId()) && !userId.equals(game.getBlackUserId())) {
-            sendError(session, "Not a player in this game");
+            sendError(userId, "Not a player in this game");
             return;
         }
         Long winnerId = userId.equals(game.getWhiteUserId()) ? game.getBlackUserId() : game.getWhiteUserId();
         GameEntity finished = gameService.finishGame(game, winnerId, "resign");
-        Map<String, Object> event = new HashMap<>();
-        event.put("type", "game_over");
-        event.put("gameId", finished.getId());
-        event.put("winnerUserId", finished.getWinnerUserId());
-        event.put("endReason", finished.getEndReason());
-        broadcastToGame(finished, event);
+        broadcastGameOver(finished);
     }
 
-    private void sendGameStart(WebSocketSession session, GameEntity game, Long selfId, Long opponentId) throws IOException {
-        Map<String, Object> event = new HashMap<>();
-        event.put("type", "game_start");
-        event.put("gameId", game.getId());
-        event.put("color", selfId.equals(game.getWhiteUserId()) ? "white" : "black");
-        event.put("opponentId", opponentId);
-        event.put("moves", List.of());
-        sendMessage(session, event);
+    private void handleWatch(WebSocketSession session, Long gameId) throws IOException {
+        if (gameId == null) {
+            sendError(session, "Invalid watch payload");
+            return;
+        }
+        requestSnapshot((Long) session.getAttributes().get(USER_ID_KEY), gameId);
     }
 
-    private void broadcastToGame(GameEntity game, Map<String, Object> event) throws IOException {
-        WebSocketSession white = sessionManager.get(game.getWhiteUserId());
-        WebSocketSession black = sessionManager.get(game.getBlackUserId());
-        if (white != null && white.isOpen()) {
-            sendMessage(white, event);
+    private void handleUnwatch(WebSocketSession session, Long gameId) throws IOException {
+        if (gameId == null) {
+            sendError(session, "Invalid unwatch payload");
+            return;
         }
-        if (black != null && black.isOpen()) {
-            sendMessage(black, event);
+        spectators.unwatch(gameId, sessionManager.outbound(session));
+    }
+
+    private void requestSnapshot(Long userId, Long gameId) {
+        if (!router.forwardWatch(gameId, userId)) {
+            gameExecutor.submit(gameId, () -> sendSnapshot(userId, gameId));
         }
     }
 
-    private void broadcastOnlineUsers() {
-        Map<String, Object> message = new HashMap<>();
-        message.put("type", "online_users");
-        message.put("users", onlineUserRegistry.listOnline());
-        sessionManager.all().values().forEach(session -> {
-            if (session.isOpen()) {
-                try {
-                    sendMessage(session, message);
-                } catch (IOException ignored) {
-                }
-            }
-        });
+    private void sendSnapshot(Long userId, Long gameId) {
+        GameEntity game = gameService.getGameForCommand(gameId);
+        if (game == null) {
+            sendError(userId, "Game not found");
+            return;
+        }
+        GameSnapshot snapshot = gameService.snapshot(game);
+        OutboundEvent event = new OutboundEvent(format -> format.gameSnapshot(snapshot));
+        if (game.getStatus() == GameStatus.FINISHED) {
+            router.sendToUser(userId, event);
+        } else {
+            router.sendSnapshot(userId, gameId, event);
+        }
+    }
+
+    private void broadcastGameOver(GameEntity game) {
+        router.broadcastToGame(game, new OutboundEvent(format -> format.gameOver(game)));
+        router.gameFinished(game.getId());
+    }
+
+    private void sendError(Long userId, String message) {
+        router.sendToUser(userId, new OutboundEvent(format -> format.error(message)));
     }
 
     private void sendError(WebSocketSession session, String message) throws IOException {
-        Map<String, Object> error = new HashMap<>();
-        error.put("type", "error");
-        error.put("message", message);
-        sendMessage(session, error);
+        send(session, wireFormat(session).error(message));
+    }
+
+    private void send(WebSocketSession session, EncodedFrame frame) {
+        sessionManager.outbound(session).send(frame, false);
     }
 
-    private void sendMessage(WebSocketSession session, Object payload) throws IOException {
-        String json = objectMapper.writeValueAsString(payload);
-        session.sendMessage(new TextMessage(json));
+    private WireFormat wireFormat(WebSocketSession session) {
+        return wireFormats.of(session);
     }
 
     private String extractToken(URI uri) {
@@ -0,0 +1,414 @@
+package com.example.chess.ws;
+
+import com.example.chess.cluster.MessageBus;
+import com.example.chess.game.GameEntity;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes user-facing events, presence and game commands between nodes over a {@link MessageBus}.
+ *
+ * <p>Presence is replicated: every node applies joins and leaves from its peers to its own
+ * {@link OnlineUserRegistry}, which therefore knows which node each user is connected to. Events for a
+ * user connected elsewhere are encoded once per wire format here and published to that node's channel,
+ * where they are handed to the session unchanged.
+ *
+ * <p>Each game is owned by the node that created it, announced to the cluster, and only the owner runs its
+ * commands, so its live position stays on one JVM. Moves and resignations from players on other nodes are
+ * forwarded to the owner. Nodes heartbeat; when one goes quiet for longer than the node timeout, its users
+ * are marked offline and its games are taken over by whichever node next receives a command for them.
+ *
+ * <p>Spectating follows ownership too: a watch request goes to the owner, which sends the snapshot to the
+ * spectator's node and from then on publishes that game's events to it once, for the node's
+ * {@link SpectatorHub} to fan out.
+ */
+@Component
+public class ClusterRouter {
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+    static final String BROADCAST_CHANNEL = "chess.all";
+
+    private static final byte USER_EVENT = 1;
+    private static final byte USER_JOINED = 2;
+    private static final byte USER_LEFT = 3;
+    private static final byte HEARTBEAT = 4;
+    private static final byte GAME_OWNER = 5;
+    private static final byte MOVE_COMMAND = 6;
+    private static final byte RESIGN_COMMAND = 7;
+    private static final byte WATCH_COMMAND = 8;
+    private static final byte SPECTATOR_EVENT = 9;
+    private static final byte SPECTATOR_SNAPSHOT = 10;
+
+    private final MessageBus bus;
+    private final SessionManager sessionManager;
+    private final PresenceBroadcaster presence;
+    private final SpectatorHub spectators;
+    private final OnlineUserRegistry registry;
+    private final WireFormats wireFormats;
+    private final long nodeTimeoutNanos;
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+    private final Map<Long, String> gameOwners = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> remoteAudiences = new ConcurrentHashMap<>();
+    private volatile Consumer<RemoteCommand> commandListener = command -> { };
+
+    public ClusterRouter(MessageBus bus,
+                         SessionManager sessionManager,
+                         PresenceBroadcaster presence,
+                         SpectatorHub spectators,
+                         OnlineUserRegistry registry,
+                         WireFormats wireFormats,
+                         @Value("${chess.cluster.node-timeout:10s}") Duration nodeTimeout) {
+        this.bus = bus;
+        this.sessionManager = sessionManager;
+        this.presence = presence;
+        this.spectators = spectators;
+        this.registry = registry;
+        this.wireFormats = wireFormats;
+        this.nodeTimeoutNanos = nodeTimeout.toNanos();
+        bus.subscribe(BROADCAST_CHANNEL, this::receive);
+        bus.subscribe(nodeChannel(bus.nodeId()), this::receive);
+    }
+
+    public String nodeId() {
+        return bus.nodeId();
+    }
+
+    public void onCommand(Consumer<RemoteCommand> listener) {
+        this.commandListener = listener;
+    }
+
+    public void userJoined(Long userId, String username) {
+        presence.userJoined(userId, username);
+        bus.publish(BROADCAST_CHANNEL, joined(userId, username));
+    }
+
+    public void userLeft(Long userId) {
+        if (presence.userLeft(userId)) {
+            bus.publish(BROADCAST_CHANNEL, message(USER_LEFT, 8).putLong(userId).array());
+        }
+    }
+
+    public boolean isOnline(Long userId) {
+        return registry.get(userId) != null;
+    }
+
+    public String username(Long userId) {
+        OnlineUser user = registry.get(userId);
+        return user == null ? null : user.username();
+    }
+
+    /**
+     * Delivers {@code event} to the user's session on whichever node holds it.
+     *
+     * @return false if the user is not connected anywhere
+     */
+    public boolean sendToUser(Long userId, OutboundEvent event) {
+        OutboundSession local = sessionManager.get(userId);
+        if (local != null && local.isOpen()) {
+            return local.send(event.frameFor(wireFormats.of(local)), false);
+        }
+        String node = registry.remoteNodeOf(userId);
+        if (node == null) {
+            return false;
+        }
+        bus.publish(nodeChannel(node), eventMessage(USER_EVENT, event, userId));
+        return true;
+    }
+
+    /**
+     * Sends {@code event} to both players, then hands it to the game's spectators on every node.
+     */
+    public void broadcastToGame(GameEntity game, OutboundEvent event) {
+        sendToUser(game.getWhiteUserId(), event);
+        sendToUser(game.getBlackUserId(), event);
+        spectators.publish(game.getId(), event);
+        Set<String> nodes = remoteAudiences.get(game.getId());
+        if (nodes != null && !nodes.isEmpty()) {
+            byte[] message = eventMessage(SPECTATOR_EVENT, event, game.getId());
+            for (String node : nodes) {
+                bus.publish(nodeChannel(node), message);
+            }
+        }
+    }
+
+    /**
+     * Starts (or restarts) {@code userId}'s subscription to a game with {@code snapshot}. Called by the node
+     * running the game's commands, in order with its moves, so the snapshot lines up with the events after it.
+     */
+    public void sendSnapshot(Long userId, Long gameId, OutboundEvent snapshot) {
+        OutboundSession local = sessionManager.get(userId);
+        if (local != null && local.isOpen()) {
+            spectators.watch(gameId, local, snapshot);
+            return;
+        }
+        String node = registry.remoteNodeOf(userId);
+        if (node != null) {
+            remoteAudiences.computeIfAbsent(gameId, id -> ConcurrentHashMap.newKeySet()).add(node);
+            bus.publish(nodeChannel(node), eventMessage(SPECTATOR_SNAPSHOT, snapshot, userId, gameId));
+        }
+    }
+
+    public void gameCreated(Long gameId) {
+        gameOwners.put(gameId, nodeId());
+        publishOwner(BROADCAST_CHANNEL, gameId, nodeId());
+    }
+
+    public void gameFinished(Long gameId) {
+        remoteAudiences.remove(gameId);
+        spectators.close(gameId);
+        if (gameOwners.remove(gameId, nodeId())) {
+            publishOwner(BROADCAST_CHANNEL, gameId, "");
+        }
+    }
+
+    /**
+     * Sends a move to the game's owner if that is a live peer.
+     *
+     * @return false if this node should run the move itself
+     */
+    public boolean forwardMove(Long gameId, Long userId, String from, String to, String promotion) {
+        String owner = remoteOwner(gameId);
+        if (owner == null) {
+            return false;
+        }
+        byte[] from8 = utf8(from);
+        byte[] to8 = utf8(to);
+        byte[] promotion8 = utf8(promotion);
+        bus.publish(nodeChannel(owner), message(MOVE_COMMAND, 16 + from8.length + to8.length + promotion8.length)
+                .putLong(gameId).putLong(userId).put(from8).put(to8).put(promotion8).array());
+        return true;
+    }
+
+    public boolean forwardResign(Long gameId, Long userId) {
+        String owner = remoteOwner(gameId);
+        if (owner == null) {
+            return false;
+        }
+        bus.publish(nodeChannel(owner), message(RESIGN_COMMAND, 16).putLong(gameId).putLong(userId).array());
+        return true;
+    }
+
+    public boolean forwardWatch(Long gameId, Long userId) {
+        String owner = remoteOwner(gameId);
+        if (owner == null) {
+            return false;
+        }
+        bus.publish(nodeChannel(owner), message(WATCH_COMMAND, 16).putLong(gameId).putLong(userId).array());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${chess.cluster.heartbeat-interval:2s}")
+    public void heartbeat() {
+        bus.publish(BROADCAST_CHANNEL, message(HEARTBEAT, 0).array());
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<String, Long>> it = lastSeen.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Long> node = it.next();
+            if (now - node.getValue() > nodeTimeoutNanos) {
+                it.remove();
+                forgetNode(node.getKey());
+            }
+        }
+    }
+
+    private String remoteOwner(Long gameId) {
+        String owner = gameOwners.get(gameId);
+        if (owner == null || owner.equals(nodeId())) {
+            return null;
+        }
+        if (!lastSeen.containsKey(owner)) {
+            log.info("Owner {} of game {} is gone, taking the game over", owner, gameId);
+            gameOwners.put(gameId, nodeId());
+            publishOwner(BROADCAST_CHANNEL, gameId, nodeId());
+            return null;
+        }
+        return owner;
+    }
+
+    private void receive(byte[] bytes) {
+        ByteBuffer message = ByteBuffer.wrap(bytes);
+        String source;
+        try {
+            source = string(message);
+            if (source.equals(nodeId())) {
+                return;
+            }
+            if (lastSeen.put(source, System.nanoTime()) == null) {
+                introduceTo(source);
+            }
+            switch (message.get()) {
+                case USER_EVENT -> deliver(message.getLong(), message);
+                case SPECTATOR_EVENT -> {
+                    long gameId = message.getLong();
+                    spectators.publish(gameId, readEvent(message));
+                }
+                case SPECTATOR_SNAPSHOT -> {
+                    long userId = message.getLong();
+                    long gameId = message.getLong();
+                    OutboundSession session = sessionManager.get(userId);
+                    if (session != null && session.isOpen()) {
+                        spectators.watch(gameId, session, readEvent(message));
+                    }
+                }
+                case USER_JOINED -> presence.userJoined(message.getLong(), string(message), source);
+                case USER_LEFT -> presence.userLeft(message.getLong(), source);
+                case HEARTBEAT -> {
+                }
+                case GAME_OWNER -> {
+                    long gameId = message.getLong();
+                    String owner = string(message);
+                    if (owner.isEmpty()) {
+                        gameOwners.remove(gameId, source);
+                        spectators.close(gameId);
+                    } else {
+                        gameOwners.put(gameId, owner);
+                    }
+                }
+                case MOVE_COMMAND -> commandListener.accept(new RemoteCommand(RemoteCommand.Type.MOVE, message.getLong(),
+                        message.getLong(), string(message), string(message), emptyToNull(string(message))));
+                case RESIGN_COMMAND -> commandListener.accept(new RemoteCommand(RemoteCommand.Type.RESIGN, message.getLong(),
+                        message.getLong(), null, null, null));
+                case WATCH_COMMAND -> commandListener.accept(new RemoteCommand(RemoteCommand.Type.WATCH, message.getLong(),
+                        message.getLong(), null, null, null));
+                default -> log.debug("Ignoring unknown cluster message from {}", source);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            log.warn("Dropping malformed cluster message", ex);
+        }
+    }
+
+    private void introduceTo(String node) {
+        String channel = nodeChannel(node);
+        for (Long userId : sessionManager.all().keySet()) {
+            String username = username(userId);
+            if (username != null && registry.remoteNodeOf(userId) == null) {
+                bus.publish(channel, joined(userId, username));
+            }
+        }
+        gameOwners.forEach((gameId, owner) -> {
+            if (owner.equals(nodeId())) {
+                publishOwner(channel, gameId, owner);
+            }
+        });
+    }
+
+    private void forgetNode(String node) {
+        List<Long> users = registry.usersOn(node);
+        log.info("Cluster node {} timed out, {} users offline", node, users.size());
+        for (Long userId : users) {
+            presence.userLeft(userId, node);
+        }
+        gameOwners.values().removeIf(node::equals);
+        remoteAudiences.values().forEach(nodes -> nodes.remove(node));
+    }
+
+    private void deliver(long userId, ByteBuffer message) {
+        OutboundSession session = sessionManager.get(userId);
+        if (session != null && session.isOpen()) {
+            session.send(readEvent(message).frameFor(wireFormats.of(session)), false);
+        }
+    }
+
+    private byte[] joined(Long userId, String username) {
+        byte[] name = utf8(username);
+        return message(USER_JOINED, 8 + name.length).putLong(userId).put(name).array();
+    }
+
+    /**
+     * Encodes {@code event} once per wire format, after the given ids, so the receiving node can pass the
+     * frame for each session's format through unchanged.
+     */
+    private byte[] eventMessage(byte type, OutboundEvent event, long... ids) {
+        List<WireFormat> formats = wireFormats.all();
+        byte[][] names = new byte[formats.size()][];
+        EncodedFrame[] frames = new EncodedFrame[formats.size()];
+        int size = ids.length * 8 + 1;
+        for (int i = 0; i < frames.length; i++) {
+            names[i] = utf8(formats.get(i).name());
+            frames[i] = event.frameFor(formats.get(i));
+            size += names[i].length + 1 + 4 + frames[i].payload().length;
+        }
+        ByteBuffer message = message(type, size);
+        for (long id : ids) {
+            message.putLong(id);
+        }
+        message.put((byte) frames.length);
+        for (int i = 0; i < frames.length; i++) {
+            byte[] payload = frames[i].payload();
+            message.put(names[i]).put((byte) (frames[i].isText() ? 1 : 0)).putInt(payload.length).put(payload);
+        }
+        return message.array();
+    }
+
+    private OutboundEvent readEvent(ByteBuffer message) {
+        int count = message.get();
+        Map<String, EncodedFrame> frames = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String name = string(message);
+            boolean text = message.get() != 0;
+            byte[] payload = new byte[message.getInt()];
+            message.get(payload);
+            frames.put(name, text ? EncodedFrame.text(new String(payload, StandardCharsets.UTF_8)) : EncodedFrame.binary(payload));
+        }
+        return new OutboundEvent(format -> {
+            EncodedFrame frame = frames.get(format.name());
+            if (frame == null) {
+                throw new IllegalArgumentException("Cluster message has no " + format.name() + " frame");
+            }
+            return frame;
+        });
+    }
+
+    private void publishOwner(String channel, Long gameId, String owner) {
+        byte[] owner8 = utf8(owner);
+        bus.publish(channel, message(GAME_OWNER, 8 + owner8.length).putLong(gameId).put(owner8).array());
+    }
+
+    private ByteBuffer message(byte type, int bodySize) {
+        byte[] source = utf8(nodeId());
+        ByteBuffer buffer = ByteBuffer.allocate(source.length + 1 + bodySize);
+        return buffer.put(source).put(type);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(2 + bytes.length).putShort((short) bytes.length).put(bytes).array();
+    }
+
+    private static String string(ByteBuffer source) {
+        byte[] bytes = new byte[source.getShort() & 0xFFFF];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String nodeChannel(String node) {
+        return MessageBus.nodeChannel(node);
+    }
+
+    /**
+     * A command forwarded from another node; the squares are only set for a move.
+     */
+    public record RemoteCommand(Type type, long gameId, long userId, String from, String to, String promotion) {
+        public enum Type {
+            MOVE,
+            RESIGN,
+            WATCH
+        }
+    }
+}
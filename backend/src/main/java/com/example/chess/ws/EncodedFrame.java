@@ -0,0 +1,52 @@
+package com.example.chess.ws;
+
+import java.nio.ByteBuffer;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * An outbound event already serialized for one wire format. Frames are immutable and can be sent to any
+ * number of sessions; binary payloads get a fresh buffer view per send because the container consumes it.
+ */
+public final class EncodedFrame {
+    private final TextMessage text;
+    private final byte[] binary;
+
+    private EncodedFrame(TextMessage text, byte[] binary) {
+        this.text = text;
+        this.binary = binary;
+    }
+
+    public static EncodedFrame text(String payload) {
+        return new EncodedFrame(new TextMessage(payload), null);
+    }
+
+    public static EncodedFrame binary(byte[] payload) {
+        return new EncodedFrame(null, payload);
+    }
+
+    public WebSocketMessage<?> message() {
+        return text != null ? text : new BinaryMessage(ByteBuffer.wrap(binary), true);
+    }
+
+    public boolean isText() {
+        return text != null;
+    }
+
+    /**
+     * The raw payload, UTF-8 for text frames. Binary frames return the shared array, which must not be modified.
+     */
+    public byte[] payload() {
+        return text != null ? text.asBytes() : binary;
+    }
+
+    public int size() {
+        return text != null ? text.getPayloadLength() : binary.length;
+    }
+
+    @Override
+    public String toString() {
+        return text != null ? text.getPayload() : "binary frame (" + binary.length + " bytes)";
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.chess.ws;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Pre-encoded frames for events whose payload repeats, such as error messages. The cache stops growing
+ * at a fixed size so that messages built from user input cannot fill it.
+ */
+final class FrameCache {
+    private static final int MAX_ENTRIES = 256;
+
+    private final Map<String, EncodedFrame> frames = new ConcurrentHashMap<>();
+    private final Function<String, EncodedFrame> encoder;
+
+    FrameCache(Function<String, EncodedFrame> encoder) {
+        this.encoder = encoder;
+    }
+
+    EncodedFrame get(String key) {
+        EncodedFrame frame = frames.get(key);
+        if (frame != null) {
+            return frame;
+        }
+        if (key == null || frames.size() >= MAX_ENTRIES) {
+            return encoder.apply(key);
+        }
+        return frames.computeIfAbsent(key, encoder);
+    }
+}
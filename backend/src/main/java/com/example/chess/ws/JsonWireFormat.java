@@ -0,0 +1,163 @@
+package com.example.chess.ws;
+
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.GameStatus;
+import com.example.chess.game.Move;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.TimeControl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class JsonWireFormat implements WireFormat {
+    public static final String NAME = "chess.json.v1";
+
+    private final ObjectMapper objectMapper;
+    private final FrameCache errors = new FrameCache(this::encodeError);
+
+    public JsonWireFormat(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public EncodedFrame move(MoveEntity move) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "move");
+        event.put("gameId", move.getGameId());
+        event.put("from", move.getFromSquare());
+        event.put("to", move.getToSquare());
+        event.put("piece", move.getPiece());
+        event.put("promotion", move.getPromotion());
+        event.put("move", Move.unpack(move.getPackedMove()));
+        event.put("moveNumber", move.getMoveNumber());
+        event.put("byUserId", move.getByUserId());
+        if (move.getWhiteClockMillis() != null) {
+            event.put("whiteClockMillis", move.getWhiteClockMillis());
+            event.put("blackClockMillis", move.getBlackClockMillis());
+        }
+        return write(event);
+    }
+
+    @Override
+    public EncodedFrame gameStart(GameEntity game, Long selfId, Long opponentId) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "game_start");
+        event.put("gameId", game.getId());
+        event.put("color", selfId.equals(game.getWhiteUserId()) ? "white" : "black");
+        event.put("opponentId", opponentId);
+        if (game.isTimed()) {
+            event.put("timeControl", game.getTimeControl().toString());
+            event.put("whiteClockMillis", game.getWhiteClockMillis());
+            event.put("blackClockMillis", game.getBlackClockMillis());
+        }
+        event.put("moves", List.of());
+        return write(event);
+    }
+
+    @Override
+    public EncodedFrame gameOver(GameEntity game) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "game_over");
+        event.put("gameId", game.getId());
+        event.put("winnerUserId", game.getWinnerUserId());
+        event.put("endReason", game.getEndReason());
+        return write(event);
+    }
+
+    @Override
+    public EncodedFrame gameSnapshot(GameSnapshot snapshot) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "game_snapshot");
+        event.put("gameId", snapshot.gameId());
+        event.put("whiteUserId", snapshot.whiteUserId());
+        event.put("blackUserId", snapshot.blackUserId());
+        event.put("finished", snapshot.status() == GameStatus.FINISHED);
+        event.put("moveNumber", snapshot.moveCount());
+        event.put("fen", snapshot.fen());
+        return write(event);
+    }
+
+    @Override
+    public EncodedFrame invite(Long fromUserId, String fromUsername) {
+        Map<String, Object> invite = new HashMap<>();
+        invite.put("type", "invite");
+        invite.put("fromUserId", fromUserId);
+        invite.put("fromUsername", fromUsername);
+        return write(invite);
+    }
+
+    @Override
+    public EncodedFrame inviteSent(Long toUserId, String toUsername) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("type", "invite_sent");
+        ack.put("toUserId", toUserId);
+        ack.put("toUsername", toUsername);
+        return write(ack);
+    }
+
+    @Override
+    public EncodedFrame inviteDeclined(Long fromUserId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("type", "invite_response");
+        response.put("accepted", false);
+        response.put("fromUserId", fromUserId);
+        return write(response);
+    }
+
+    @Override
+    public EncodedFrame queueJoined(TimeControl timeControl) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("type", "queue_joined");
+        ack.put("timeControl", timeControl.toString());
+        return write(ack);
+    }
+
+    @Override
+    public EncodedFrame onlineUsers(long version, Collection<OnlineUser> users) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "online_users");
+        message.put("version", version);
+        message.put("users", users);
+        return write(message);
+    }
+
+    @Override
+    public EncodedFrame presence(long baseVersion, long version, Collection<OnlineUser> joined, Collection<Long> left) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "presence");
+        message.put("baseVersion", baseVersion);
+        message.put("version", version);
+        message.put("joined", joined);
+        message.put("left", left);
+        return write(message);
+    }
+
+    @Override
+    public EncodedFrame error(String message) {
+        return errors.get(message);
+    }
+
+    private EncodedFrame encodeError(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("type", "error");
+        error.put("message", message);
+        return write(error);
+    }
+
+    private EncodedFrame write(Object payload) {
+        try {
+            return EncodedFrame.text(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize " + payload, ex);
+        }
+    }
+}
@@ -1,20 +1,64 @@
 package com.example.chess.ws;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.stereotype.Component;
 
+/**
+ * Online users across the cluster. Users connected to another node are recorded with that node's id;
+ * users connected here have none.
+ */
 @Component
 public class OnlineUserRegistry {
     private final Map<Long, OnlineUser> onlineUsers = new ConcurrentHashMap<>();
+    private final Map<Long, String> remoteNodes = new ConcurrentHashMap<>();
 
     public void setOnline(Long userId, String username) {
+        setOnline(userId, username, null);
+    }
+
+    public synchronized void setOnline(Long userId, String username, String node) {
         onlineUsers.put(userId, new OnlineUser(userId, username));
+        if (node == null) {
+            remoteNodes.remove(userId);
+        } else {
+            remoteNodes.put(userId, node);
+        }
     }
 
-    public void setOffline(Long userId) {
+    /**
+     * Marks the user offline if they are still recorded on {@code node} (null meaning this node), so a late
+     * leave from a previous connection does not hide a newer one elsewhere.
+     */
+    public synchronized boolean setOffline(Long userId, String node) {
+        if (!onlineUsers.containsKey(userId) || !Objects.equals(remoteNodes.get(userId), node)) {
+            return false;
+        }
         onlineUsers.remove(userId);
+        remoteNodes.remove(userId);
+        return true;
+    }
+
+    public OnlineUser get(Long userId) {
+        return onlineUsers.get(userId);
+    }
+
+    public String remoteNodeOf(Long userId) {
+        return remoteNodes.get(userId);
+    }
+
+    public List<Long> usersOn(String node) {
+        List<Long> users = new ArrayList<>();
+        remoteNodes.forEach((userId, userNode) -> {
+            if (userNode.equals(node)) {
+                users.add(userId);
+            }
+        });
+        return users;
     }
 
     public Collection<OnlineUser> listOnline() {
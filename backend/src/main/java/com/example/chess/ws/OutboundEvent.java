@@ -0,0 +1,37 @@
+package com.example.chess.ws;
+
+import java.util.function.Function;
+
+/**
+ * One event fanned out to many sessions. It is encoded at most once per wire format, on first use, and
+ * every recipient on that format receives the same {@link EncodedFrame}.
+ */
+public final class OutboundEvent {
+    private final Function<WireFormat, EncodedFrame> encoder;
+    private WireFormat firstFormat;
+    private EncodedFrame firstFrame;
+    private WireFormat secondFormat;
+    private EncodedFrame secondFrame;
+
+    public OutboundEvent(Function<WireFormat, EncodedFrame> encoder) {
+        this.encoder = encoder;
+    }
+
+    public synchronized EncodedFrame frameFor(WireFormat format) {
+        if (format == firstFormat) {
+            return firstFrame;
+        }
+        if (format == secondFormat) {
+            return secondFrame;
+        }
+        EncodedFrame frame = encoder.apply(format);
+        if (firstFormat == null) {
+            firstFormat = format;
+            firstFrame = frame;
+        } else if (secondFormat == null) {
+            secondFormat = format;
+            secondFrame = frame;
+        }
+        return frame;
+    }
+}
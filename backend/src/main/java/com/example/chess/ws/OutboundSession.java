@@ -0,0 +1,277 @@
+package com.example.chess.ws;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+/**
+ * Bounded, non-blocking outbound buffer for one session. Callers only enqueue; a shared sender pool drains
+ * the buffer one frame at a time, so a slow client never holds up a broadcast and the container never sees
+ * concurrent sends on one session.
+ *
+ * <p>Once the buffer holds more than the size limit, droppable frames (presence) are refused, and essential
+ * frames first evict queued droppable ones. An essential frame that still does not fit, or a send that has
+ * been in flight longer than the time limit, closes the session: the client reconnects and resyncs instead
+ * of silently missing a move.
+ *
+ * <p>Bulk frames (spectator fan-out) are droppable and, when they are all the session has queued, drained
+ * on a separate bulk pool, so sessions watching busy games never delay the pool that carries players' moves.
+ * An essential frame queued behind them moves the drain back onto the main pool.
+ */
+public class OutboundSession extends WebSocketSessionDecorator {
+    private static final Logger log = LoggerFactory.getLogger(OutboundSession.class);
+    private static final String TOMCAT_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private static final int IDLE = 0;
+    private static final int BULK = 1;
+    private static final int PRIORITY = 2;
+
+    private final Executor sender;
+    private final Executor bulkSender;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    private final Meters meters;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final AtomicInteger scheduled = new AtomicInteger(IDLE);
+    private int backlogBytes;
+    private volatile long sendStartedAt;
+    private volatile boolean closed;
+
+    OutboundSession(WebSocketSession delegate, Executor sender, Executor bulkSender, long sendTimeLimitNanos,
+                    int bufferSizeLimit, Meters meters) {
+        super(delegate);
+        this.sender = sender;
+        this.bulkSender = bulkSender;
+        this.sendTimeLimitNanos = sendTimeLimitNanos;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.meters = meters;
+        if (delegate instanceof NativeWebSocketSession session
+                && session.getNativeSession() instanceof jakarta.websocket.Session nativeSession) {
+            nativeSession.getUserProperties().put(TOMCAT_SEND_TIMEOUT, sendTimeLimitNanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Queues {@code frame} for delivery.
+     *
+     * @return false if the frame was dropped or the session is closed
+     */
+    public boolean send(EncodedFrame frame, boolean droppable) {
+        return enqueue(new Entry(frame.message(), frame.size(), droppable, false));
+    }
+
+    /**
+     * Queues a droppable bulk frame.
+     *
+     * @return false if the frame was dropped or the session is closed
+     */
+    public boolean sendBulk(EncodedFrame frame) {
+        return enqueue(new Entry(frame.message(), frame.size(), true, true));
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        enqueue(new Entry(message, message.getPayloadLength(), false, false));
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && super.isOpen();
+    }
+
+    public int backlogBytes() {
+        lock.lock();
+        try {
+            return backlogBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queuedFrames() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isStuck(long now) {
+        long startedAt = sendStartedAt;
+        return startedAt != 0 && now - startedAt > sendTimeLimitNanos;
+    }
+
+    void closeIfStuck(long now) {
+        if (!closed && isStuck(now)) {
+            terminate("send time limit exceeded");
+        }
+    }
+
+    private boolean enqueue(Entry entry) {
+        if (closed) {
+            return false;
+        }
+        if (isStuck(System.nanoTime())) {
+            terminate("send time limit exceeded");
+            return false;
+        }
+        int backlog;
+        lock.lock();
+        try {
+            if (backlogBytes > 0 && backlogBytes + entry.size > bufferSizeLimit) {
+                if (entry.droppable) {
+                    meters.dropped.increment();
+                    return false;
+                }
+                evictDroppable(backlogBytes + entry.size - bufferSizeLimit);
+                if (backlogBytes > 0 && backlogBytes + entry.size > bufferSizeLimit) {
+                    backlog = -1;
+                } else {
+                    backlog = add(entry);
+                }
+            } else {
+                backlog = add(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (backlog < 0) {
+            terminate("outbound buffer limit exceeded");
+            return false;
+        }
+        meters.backlog.record(backlog);
+        schedule(entry.bulk);
+        return true;
+    }
+
+    private void schedule(boolean bulk) {
+        if (bulk) {
+            if (scheduled.compareAndSet(IDLE, BULK)) {
+                bulkSender.execute(this::drain);
+            }
+        } else if (scheduled.compareAndSet(IDLE, PRIORITY) || scheduled.compareAndSet(BULK, PRIORITY)) {
+            sender.execute(this::drain);
+        }
+    }
+
+    private int add(Entry entry) {
+        queue.add(entry);
+        backlogBytes += entry.size;
+        return backlogBytes;
+    }
+
+    private void evictDroppable(int bytesNeeded) {
+        int freed = 0;
+        for (Iterator<Entry> it = queue.iterator(); it.hasNext() && freed < bytesNeeded; ) {
+            Entry queued = it.next();
+            if (queued.droppable) {
+                it.remove();
+                backlogBytes -= queued.size;
+                freed += queued.size;
+                meters.dropped.increment();
+            }
+        }
+    }
+
+    private void drain() {
+        if (!sendLock.tryLock()) {
+            return;
+        }
+        try {
+            Entry entry;
+            while (!closed && (entry = poll()) != null) {
+                sendStartedAt = System.nanoTime();
+                try {
+                    getDelegate().sendMessage(entry.message);
+                } catch (IOException | RuntimeException ex) {
+                    log.debug("Send to session {} failed", getId(), ex);
+                    terminate("send failed");
+                    return;
+                } finally {
+                    sendStartedAt = 0;
+                    release(entry);
+                }
+            }
+        } finally {
+            sendLock.unlock();
+            scheduled.set(IDLE);
+            Entry next = closed ? null : peek();
+            if (next != null) {
+                schedule(next.bulk);
+            }
+        }
+    }
+
+    private Entry poll() {
+        lock.lock();
+        try {
+            return queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry peek() {
+        lock.lock();
+        try {
+            return queue.peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Entry entry) {
+        lock.lock();
+        try {
+            if (!closed) {
+                backlogBytes -= entry.size;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void terminate(String reason) {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            backlogBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+        meters.disconnects.increment();
+        log.info("Closing session {}: {}", getId(), reason);
+        sender.execute(() -> {
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+            } catch (IOException | RuntimeException ex) {
+                log.debug("Closing session {} failed", getId(), ex);
+            }
+        });
+    }
+
+    record Meters(DistributionSummary backlog, Counter dropped, Counter disconnects) {
+    }
+
+    private record Entry(WebSocketMessage<?> message, int size, boolean droppable, boolean bulk) {
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.chess.ws;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Publishes presence as a versioned stream. Joins and leaves are coalesced for one window and sent as a
+ * single delta from version N to N+1; a session not known to hold version N gets a full snapshot instead.
+ * Deltas are idempotent (joined is an upsert, left a removal), so a snapshot that already reflects part
+ * of the next delta stays consistent. All presence frames are sent from {@link #flush()}, which keeps
+ * snapshots and deltas in order for each session. They are the droppable traffic of an
+ * {@link OutboundSession}: a dropped frame queues a snapshot, and one evicted after queueing shows up to
+ * the client as a version gap, which it answers with {@code presence_sync}.
+ */
+@Component
+public class PresenceBroadcaster {
+    private static final Logger log = LoggerFactory.getLogger(PresenceBroadcaster.class);
+    private static final String VERSION_ATTRIBUTE = "presenceVersion";
+
+    private final OnlineUserRegistry registry;
+    private final SessionManager sessionManager;
+    private final WireFormats wireFormats;
+    private final Object lock = new Object();
+    private final Map<Long, OnlineUser> joined = new LinkedHashMap<>();
+    private final Set<Long> left = new LinkedHashSet<>();
+    private final Queue<WebSocketSession> snapshotRequests = new ConcurrentLinkedQueue<>();
+    private long version;
+
+    public PresenceBroadcaster(OnlineUserRegistry registry, SessionManager sessionManager, WireFormats wireFormats) {
+        this.registry = registry;
+        this.sessionManager = sessionManager;
+        this.wireFormats = wireFormats;
+    }
+
+    public void userJoined(Long userId, String username) {
+        userJoined(userId, username, null);
+    }
+
+    /**
+     * Records a join on {@code node}, null meaning this node.
+     */
+    public void userJoined(Long userId, String username, String node) {
+        synchronized (lock) {
+            registry.setOnline(userId, username, node);
+            left.remove(userId);
+            joined.put(userId, new OnlineUser(userId, username));
+        }
+    }
+
+    public boolean userLeft(Long userId) {
+        return userLeft(userId, null);
+    }
+
+    /**
+     * Records a leave from {@code node}; ignored if the user has since connected somewhere else.
+     */
+    public boolean userLeft(Long userId, String node) {
+        synchronized (lock) {
+            if (!registry.setOffline(userId, node)) {
+                return false;
+            }
+            joined.remove(userId);
+            left.add(userId);
+            return true;
+        }
+    }
+
+    public void requestSnapshot(WebSocketSession session) {
+        session.getAttributes().remove(VERSION_ATTRIBUTE);
+        snapshotRequests.add(session);
+    }
+
+    public long version() {
+        synchronized (lock) {
+            return version;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chess.presence.coalesce-window:100ms}")
+    public void flush() {
+        List<OnlineUser> joinedBatch;
+        List<Long> leftBatch;
+        List<OnlineUser> online;
+        long baseVersion;
+        long current;
+        synchronized (lock) {
+            boolean changed = !joined.isEmpty() || !left.isEmpty();
+            if (!changed && snapshotRequests.isEmpty()) {
+                return;
+            }
+            joinedBatch = List.copyOf(joined.values());
+            leftBatch = List.copyOf(left);
+            joined.clear();
+            left.clear();
+            baseVersion = version;
+            current = changed ? ++version : version;
+            online = List.copyOf(registry.listOnline());
+        }
+        OutboundEvent snapshot = new OutboundEvent(format -> format.onlineUsers(current, online));
+        if (current != baseVersion) {
+            OutboundEvent delta = new OutboundEvent(format -> format.presence(baseVersion, current, joinedBatch, leftBatch));
+            for (WebSocketSession session : sessionManager.all().values()) {
+                Object known = session.getAttributes().get(VERSION_ATTRIBUTE);
+                deliver(session, Long.valueOf(baseVersion).equals(known) ? delta : snapshot, current);
+            }
+        }
+        WebSocketSession requester;
+        for (int pending = snapshotRequests.size(); pending > 0 && (requester = snapshotRequests.poll()) != null; pending--) {
+            if (!Long.valueOf(current).equals(requester.getAttributes().get(VERSION_ATTRIBUTE))) {
+                deliver(requester, snapshot, current);
+            }
+        }
+    }
+
+    private void deliver(WebSocketSession session, OutboundEvent event, long current) {
+        if (!session.isOpen()) {
+            return;
+        }
+        if (sessionManager.outbound(session).send(event.frameFor(wireFormats.of(session)), true)) {
+            session.getAttributes().put(VERSION_ATTRIBUTE, current);
+        } else {
+            log.debug("Presence update to session {} was dropped, it will get a snapshot", session.getId());
+            requestSnapshot(session);
+        }
+    }
+}
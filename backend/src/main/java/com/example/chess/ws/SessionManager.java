@@ -1,27 +1,160 @@
 package com.example.chess.ws;
 
+import com.example.chess.config.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.WebSocketSession;
 
+/**
+ * Connected users and their {@link OutboundSession} buffers. Every frame for a session, including replies
+ * to the session's own messages, goes through its buffer; {@link #outbound(WebSocketSession)} finds it.
+ */
 @Component
-public class SessionManager {
-    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+public class SessionManager implements DisposableBean {
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
 
-    public void register(Long userId, WebSocketSession session) {
-        sessions.put(userId, session);
+    private final Map<Long, OutboundSession> sessions = new ConcurrentHashMap<>();
+    private final Executor sender;
+    private final Executor bulkSender;
+    private final long sendTimeLimitNanos;
+    private final int bufferSizeLimit;
+    private final OutboundSession.Meters meters;
+
+    @Autowired
+    public SessionManager(@Value("${chess.ws.sender-threads:0}") int senderThreads,
+                          @Value("${chess.ws.bulk-sender-threads:0}") int bulkSenderThreads,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                          @Value("${chess.ws.send-time-limit:10s}") Duration sendTimeLimit,
+                          @Value("${chess.ws.buffer-size-limit:512KB}") DataSize bufferSizeLimit,
+                          MeterRegistry meterRegistry) {
+        this(senderExecutor("ws-sender-", senderThreads, Math.max(4, Runtime.getRuntime().availableProcessors() * 2), virtualThreads),
+                senderExecutor("ws-bulk-sender-", bulkSenderThreads, Math.max(2, Runtime.getRuntime().availableProcessors()), virtualThreads),
+                sendTimeLimit, (int) bufferSizeLimit.toBytes(), meterRegistry);
+    }
+
+    SessionManager(Executor sender, Duration sendTimeLimit, int bufferSizeLimit, MeterRegistry meterRegistry) {
+        this(sender, sender, sendTimeLimit, bufferSizeLimit, meterRegistry);
     }
 
-    public void unregister(Long userId) {
-        sessions.remove(userId);
+    SessionManager(Executor sender, Executor bulkSender, Duration sendTimeLimit, int bufferSizeLimit, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.bulkSender = bulkSender;
+        this.sendTimeLimitNanos = sendTimeLimit.toNanos();
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.meters = new OutboundSession.Meters(
+                DistributionSummary.builder("chess.ws.outbound.backlog")
+                        .description("Bytes buffered for a session after each enqueued frame")
+                        .baseUnit("bytes")
+                        .publishPercentiles(0.5, 0.99)
+                        .register(meterRegistry),
+                Counter.builder("chess.ws.outbound.dropped")
+                        .description("Presence and spectator frames dropped for slow sessions")
+                        .register(meterRegistry),
+                Counter.builder("chess.ws.outbound.disconnects")
+                        .description("Sessions closed for exceeding the send time or buffer limit")
+                        .register(meterRegistry));
+        Gauge.builder("chess.ws.outbound.backlog.total", this, manager -> manager.backlog(false))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("chess.ws.outbound.backlog.max", this, manager -> manager.backlog(true))
+                .description("Largest backlog of any connected session")
+                .baseUnit("bytes")
+                .register(meterRegistry);
     }
 
-    public WebSocketSession get(Long userId) {
+    public OutboundSession register(Long userId, WebSocketSession session) {
+        OutboundSession outbound = outbound(session);
+        sessions.put(userId, outbound);
+        return outbound;
+    }
+
+    /**
+     * @return false if {@code session} was no longer the user's current session
+     */
+    public boolean unregister(Long userId, WebSocketSession session) {
+        return sessions.remove(userId, outbound(session));
+    }
+
+    public OutboundSession get(Long userId) {
         return sessions.get(userId);
     }
 
-    public Map<Long, WebSocketSession> all() {
+    public Map<Long, OutboundSession> all() {
         return sessions;
     }
+
+    public OutboundSession outbound(WebSocketSession session) {
+        if (session instanceof OutboundSession outbound) {
+            return outbound;
+        }
+        return (OutboundSession) session.getAttributes().computeIfAbsent(OUTBOUND_ATTRIBUTE,
+                key -> new OutboundSession(session, sender, bulkSender, sendTimeLimitNanos, bufferSizeLimit, meters));
+    }
+
+    @Scheduled(fixedDelayString = "${chess.ws.stuck-sweep-interval:1s}")
+    public void closeStuckSessions() {
+        long now = System.nanoTime();
+        for (OutboundSession session : sessions.values()) {
+            session.closeIfStuck(now);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (Executor pool : new Executor[] { sender, bulkSender }) {
+            if (pool instanceof ExecutorService executor) {
+                executor.shutdown();
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private double backlog(boolean max) {
+        long result = 0;
+        for (OutboundSession session : sessions.values()) {
+            int bytes = session.backlogBytes();
+            result = max ? Math.max(result, bytes) : result + bytes;
+        }
+        return result;
+    }
+
+    private static ExecutorService senderExecutor(String prefix, int threads, int defaultThreads, boolean virtualThreads) {
+        if (virtualThreads && VirtualThreads.isSupported()) {
+            return VirtualThreads.newThreadPerTaskExecutor(prefix);
+        }
+        return Executors.newFixedThreadPool(threads > 0 ? threads : defaultThreads, new SenderThreadFactory(prefix));
+    }
+
+    private static final class SenderThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private SenderThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
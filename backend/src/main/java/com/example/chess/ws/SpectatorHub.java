@@ -0,0 +1,211 @@
+package com.example.chess.ws;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spectators of each game on this node. A spectator starts from a position snapshot and then receives the
+ * game's events, each encoded once per wire format and queued as bulk frames on every spectator's
+ * {@link OutboundSession}.
+ *
+ * <p>Fan-out runs on a small pool of single-threaded stripes, chosen by game id, so publishing from a game's
+ * command thread costs one hand-off whatever the audience size, and a game's snapshot and events reach each
+ * spectator in order. A spectator whose buffer refuses a frame stops receiving events; once its buffer has
+ * drained, the catch-up listener is asked for a fresh snapshot, which resumes the stream.
+ */
+@Component
+public class SpectatorHub implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(SpectatorHub.class);
+    private static final String WATCHING_ATTRIBUTE = "watching";
+
+    private final Map<Long, Audience> audiences = new ConcurrentHashMap<>();
+    private final Executor[] stripes;
+    private final WireFormats wireFormats;
+    private final AtomicInteger spectatorCount = new AtomicInteger();
+    private final Counter catchUps;
+    private volatile BiConsumer<Long, OutboundSession> catchUpListener = (gameId, session) -> { };
+
+    @Autowired
+    public SpectatorHub(@Value("${chess.spectators.fanout-threads:1}") int fanoutThreads,
+                        WireFormats wireFormats,
+                        MeterRegistry meterRegistry) {
+        this(fanoutExecutors(fanoutThreads), wireFormats, meterRegistry);
+    }
+
+    SpectatorHub(Executor[] stripes, WireFormats wireFormats, MeterRegistry meterRegistry) {
+        this.stripes = stripes;
+        this.wireFormats = wireFormats;
+        this.catchUps = Counter.builder("chess.spectators.catch-ups")
+                .description("Snapshots requested for spectators that fell behind")
+                .register(meterRegistry);
+        Gauge.builder("chess.spectators.count", spectatorCount, AtomicInteger::get)
+                .description("Spectator subscriptions on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sets who supplies catch-up snapshots; it should answer with {@link #watch}.
+     */
+    public void onCatchUp(BiConsumer<Long, OutboundSession> listener) {
+        this.catchUpListener = listener;
+    }
+
+    /**
+     * Subscribes {@code session} to the game, or resynchronizes it if already subscribed, starting with
+     * {@code snapshot}.
+     */
+    public void watch(Long gameId, OutboundSession session, OutboundEvent snapshot) {
+        Audience audience = audiences.computeIfAbsent(gameId, id -> new Audience());
+        stripe(gameId).execute(() -> {
+            if (audiences.get(gameId) != audience) {
+                session.sendBulk(snapshot.frameFor(wireFormats.of(session)));
+                return;
+            }
+            Spectator spectator = audience.members.get(session);
+            if (spectator == null) {
+                spectator = new Spectator();
+                audience.members.put(session, spectator);
+                watching(session).add(gameId);
+                spectatorCount.incrementAndGet();
+            }
+            spectator.catchUpRequested = false;
+            spectator.lagging = !session.sendBulk(snapshot.frameFor(wireFormats.of(session)));
+        });
+    }
+
+    public void unwatch(Long gameId, OutboundSession session) {
+        stripe(gameId).execute(() -> {
+            Audience audience = audiences.get(gameId);
+            if (audience != null && audience.members.remove(session) != null) {
+                spectatorCount.decrementAndGet();
+            }
+            watching(session).remove(gameId);
+        });
+    }
+
+    public void unwatchAll(OutboundSession session) {
+        for (Long gameId : watching(session)) {
+            unwatch(gameId, session);
+        }
+    }
+
+    /**
+     * Queues {@code event} for the game's spectators. Returns at once; nothing is encoded or sent on the
+     * caller's thread.
+     */
+    public void publish(Long gameId, OutboundEvent event) {
+        Audience audience = audiences.get(gameId);
+        if (audience != null) {
+            stripe(gameId).execute(() -> fanOut(gameId, audience, event));
+        }
+    }
+
+    /**
+     * Drops the game's audience after its last event has been published. Audiences are registered as soon
+     * as {@link #watch} is called, so that events published right after it are not missed, and are kept
+     * until the game ends.
+     */
+    public void close(Long gameId) {
+        stripe(gameId).execute(() -> {
+            Audience audience = audiences.remove(gameId);
+            if (audience != null) {
+                for (OutboundSession session : audience.members.keySet()) {
+                    watching(session).remove(gameId);
+                }
+                spectatorCount.addAndGet(-audience.members.size());
+            }
+        });
+    }
+
+    public int spectators() {
+        return spectatorCount.get();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (Executor stripe : stripes) {
+            if (stripe instanceof ExecutorService executor) {
+                executor.shutdown();
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private void fanOut(Long gameId, Audience audience, OutboundEvent event) {
+        for (Iterator<Map.Entry<OutboundSession, Spectator>> it = audience.members.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<OutboundSession, Spectator> member = it.next();
+            OutboundSession session = member.getKey();
+            Spectator spectator = member.getValue();
+            if (!session.isOpen()) {
+                it.remove();
+                spectatorCount.decrementAndGet();
+                continue;
+            }
+            if (spectator.lagging) {
+                if (!spectator.catchUpRequested && session.backlogBytes() == 0) {
+                    spectator.catchUpRequested = true;
+                    catchUps.increment();
+                    catchUpListener.accept(gameId, session);
+                }
+                continue;
+            }
+            try {
+                spectator.lagging = !session.sendBulk(event.frameFor(wireFormats.of(session)));
+            } catch (RuntimeException ex) {
+                log.warn("Could not send game {} event to spectator {}", gameId, session.getId(), ex);
+            }
+        }
+    }
+
+    private Executor stripe(Long gameId) {
+        return stripes[Math.floorMod(gameId.hashCode(), stripes.length)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Long> watching(OutboundSession session) {
+        return (Set<Long>) session.getAttributes().computeIfAbsent(WATCHING_ATTRIBUTE, key -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static Executor[] fanoutExecutors(int threads) {
+        Executor[] stripes = new Executor[Math.max(1, threads)];
+        for (int i = 0; i < stripes.length; i++) {
+            String name = "spectator-fanout-" + (i + 1);
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return stripes;
+    }
+
+    /**
+     * Spectators of one game, touched only from the game's stripe.
+     */
+    private static final class Audience {
+        private final Map<OutboundSession, Spectator> members = new LinkedHashMap<>();
+    }
+
+    private static final class Spectator {
+        private boolean lagging;
+        private boolean catchUpRequested;
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.chess.ws;
 
 import com.example.chess.auth.AuthService;
-import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.AuthenticatedUser;
 import java.util.Collection;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,14 +23,14 @@ public class UserController {
 
     @GetMapping("/online")
     public ResponseEntity<Collection<OnlineUser>> online(@RequestHeader("Authorization") String authorization) {
-        UserEntity user = requireUser(authorization);
+        AuthenticatedUser user = requireUser(authorization);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         return ResponseEntity.ok(onlineUserRegistry.listOnline());
     }
 
-    private UserEntity requireUser(String authorization) {
+    private AuthenticatedUser requireUser(String authorization) {
         if (authorization == null || !authorization.startsWith("Bearer ")) {
             return null;
         }
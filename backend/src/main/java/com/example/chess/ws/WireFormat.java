@@ -0,0 +1,36 @@
+package com.example.chess.ws;
+
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.MoveEntity;
+import com.example.chess.game.TimeControl;
+import java.util.Collection;
+
+/**
+ * Encodes outbound events for one negotiated subprotocol.
+ */
+public interface WireFormat {
+    String name();
+
+    EncodedFrame move(MoveEntity move);
+
+    EncodedFrame gameStart(GameEntity game, Long selfId, Long opponentId);
+
+    EncodedFrame gameOver(GameEntity game);
+
+    EncodedFrame gameSnapshot(GameSnapshot snapshot);
+
+    EncodedFrame invite(Long fromUserId, String fromUsername);
+
+    EncodedFrame inviteSent(Long toUserId, String toUsername);
+
+    EncodedFrame inviteDeclined(Long fromUserId);
+
+    EncodedFrame queueJoined(TimeControl timeControl);
+
+    EncodedFrame onlineUsers(long version, Collection<OnlineUser> users);
+
+    EncodedFrame presence(long baseVersion, long version, Collection<OnlineUser> joined, Collection<Long> left);
+
+    EncodedFrame error(String message);
+}
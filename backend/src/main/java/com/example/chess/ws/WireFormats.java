@@ -0,0 +1,33 @@
+package com.example.chess.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+@Component
+public class WireFormats {
+    private static final String SESSION_ATTRIBUTE = "wireFormat";
+
+    private final WireFormat json = new JsonWireFormat(new ObjectMapper());
+    private final WireFormat binary = new BinaryWireFormat();
+
+    public List<String> names() {
+        return List.of(binary.name(), json.name());
+    }
+
+    public List<WireFormat> all() {
+        return List.of(binary, json);
+    }
+
+    public WireFormat negotiate(WebSocketSession session) {
+        WireFormat format = binary.name().equals(session.getAcceptedProtocol()) ? binary : json;
+        session.getAttributes().put(SESSION_ATTRIBUTE, format);
+        return format;
+    }
+
+    public WireFormat of(WebSocketSession session) {
+        WireFormat format = (WireFormat) session.getAttributes().get(SESSION_ATTRIBUTE);
+        return format != null ? format : json;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.chess.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class TokenServiceTest {
+	private static final String OLD_KEY = "k1:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+	private static final String NEW_KEY = "k2:" + Base64.getEncoder().encodeToString("fedcba9876543210fedcba9876543210".getBytes());
+	private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+	@Test
+	void verifiesWithoutStateAcrossNodes() {
+		TokenService issuer = service(NOW, OLD_KEY);
+		TokenService otherNode = service(NOW, OLD_KEY);
+		String token = issuer.issue(42L, "zoë:admin");
+
+		assertEquals(new AuthenticatedUser(42L, "zoë:admin"), otherNode.verify(token));
+	}
+
+	@Test
+	void rejectsTamperedExpiredAndUnknownKeyTokens() {
+		TokenService service = service(NOW, OLD_KEY);
+		String token = service.issue(42L, "alice");
+		String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+		String forged = Base64.getUrlEncoder().withoutPadding().encodeToString(payload.replace(":42:", ":1:").getBytes())
+				+ token.substring(token.indexOf('.'));
+
+		assertNull(service.verify(forged));
+		assertNull(service.verify("not-a-token"));
+		assertNull(service.verify(token + "x"));
+		assertNull(service(NOW.plus(Duration.ofHours(13)), OLD_KEY).verify(token));
+		assertNull(service(NOW, NEW_KEY).verify(token));
+	}
+
+	@Test
+	void rotatedKeyStillVerifiesOldTokens() {
+		String oldToken = service(NOW, OLD_KEY).issue(1L, "alice");
+		TokenService rotated = service(NOW, NEW_KEY, OLD_KEY);
+		String newToken = rotated.issue(2L, "bob");
+
+		assertEquals(1L, rotated.verify(oldToken).id());
+		assertEquals(2L, rotated.verify(newToken).id());
+		assertNull(service(NOW, OLD_KEY).verify(newToken));
+	}
+
+	@Test
+	void revokedTokensAreRejectedUntilTheyExpire() {
+		TokenService service = new TokenService(new String[] { OLD_KEY }, Duration.ofHours(12), 1,
+				Clock.fixed(NOW, ZoneOffset.UTC));
+		String token = service.issue(1L, "alice");
+		String other = service.issue(1L, "alice");
+
+		service.revoke(token);
+		assertNull(service.verify(token));
+		assertEquals(1L, service.verify(other).id());
+		assertThrows(IllegalStateException.class, () -> service.revoke(other));
+	}
+
+	private TokenService service(Instant now, String... keys) {
+		return new TokenService(keys, Duration.ofHours(12), 100, Clock.fixed(now, ZoneOffset.UTC));
+	}
+}
@@ -0,0 +1,231 @@
+package com.example.chess.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.ChessApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+/**
+ * Starts two application JVMs on this machine, joined by the TCP bus and sharing one H2 file database,
+ * and plays a game between a user on each.
+ */
+class MultiNodeClusterTest {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final HttpClient http = HttpClient.newHttpClient();
+	private static final List<Process> processes = new ArrayList<>();
+
+	@TempDir
+	static Path directory;
+
+	private static Node a;
+	private static Node b;
+
+	@BeforeAll
+	static void startNodes() throws Exception {
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		String signingKey = "cluster:" + Base64.getEncoder().encodeToString(secret);
+		int[] ports = { freePort(), freePort(), freePort(), freePort() };
+		a = new Node("a", ports[0], ports[1]);
+		b = new Node("b", ports[2], ports[3]);
+		a.start(signingKey, b);
+		b.start(signingKey, a);
+	}
+
+	@AfterAll
+	static void stopNodes() throws InterruptedException {
+		for (Process process : processes) {
+			process.destroy();
+		}
+		for (Process process : processes) {
+			if (!process.waitFor(10, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	@Test
+	void playsAGameBetweenUsersOnDifferentNodes() throws Exception {
+		JsonNode alice = a.register("alice-" + System.nanoTime());
+		JsonNode bob = b.register("bob-" + System.nanoTime());
+		long aliceId = alice.path("userId").asLong();
+		long bobId = bob.path("userId").asLong();
+		Client aliceClient = a.connect(alice.path("token").asText());
+		Client bobClient = b.connect(bob.path("token").asText());
+		awaitOnline(a, alice.path("token").asText(), bobId);
+		awaitOnline(b, bob.path("token").asText(), aliceId);
+
+		aliceClient.send("{\"type\":\"invite\",\"toUserId\":" + bobId + "}");
+		assertEquals(aliceId, bobClient.next("invite").path("fromUserId").asLong());
+		bobClient.send("{\"type\":\"invite_response\",\"fromUserId\":" + aliceId + ",\"accepted\":true}");
+		JsonNode aliceStart = aliceClient.next("game_start");
+		JsonNode bobStart = bobClient.next("game_start");
+		long gameId = aliceStart.path("gameId").asLong();
+		assertEquals(gameId, bobStart.path("gameId").asLong());
+
+		boolean aliceWhite = "white".equals(aliceStart.path("color").asText());
+		Client white = aliceWhite ? aliceClient : bobClient;
+		Client black = aliceWhite ? bobClient : aliceClient;
+		white.send("{\"type\":\"move\",\"gameId\":" + gameId + ",\"from\":\"e2\",\"to\":\"e4\"}");
+		assertEquals("e4", white.next("move").path("to").asText());
+		assertEquals("e4", black.next("move").path("to").asText());
+		black.send("{\"type\":\"move\",\"gameId\":" + gameId + ",\"from\":\"e7\",\"to\":\"e5\"}");
+		assertEquals(2, white.next("move").path("moveNumber").asInt());
+		assertEquals(2, black.next("move").path("moveNumber").asInt());
+
+		aliceClient.send("{\"type\":\"resign\",\"gameId\":" + gameId + "}");
+		assertEquals(bobId, aliceClient.next("game_over").path("winnerUserId").asLong());
+		assertEquals(bobId, bobClient.next("game_over").path("winnerUserId").asLong());
+	}
+
+	private static void awaitOnline(Node node, String token, long userId) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+		while (true) {
+			HttpResponse<String> response = http.send(HttpRequest.newBuilder(node.uri("/api/users/online"))
+					.header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+			for (JsonNode user : objectMapper.readTree(response.body())) {
+				if (user.path("id").asLong() == userId) {
+					return;
+				}
+			}
+			assertTrue(System.nanoTime() < deadline, "user " + userId + " never showed up on node " + node.name);
+			Thread.sleep(100);
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static final class Node {
+		final String name;
+		final int httpPort;
+		final int busPort;
+
+		Node(String name, int httpPort, int busPort) {
+			this.name = name;
+			this.httpPort = httpPort;
+			this.busPort = busPort;
+		}
+
+		void start(String signingKey, Node peer) throws Exception {
+			String java = ProcessHandle.current().info().command().orElse("java");
+			Path log = directory.resolve("node-" + name + ".log");
+			Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					ChessApplication.class.getName(),
+					"--server.port=" + httpPort,
+					"--spring.datasource.url=jdbc:h2:file:" + directory.resolve("db") + ";AUTO_SERVER=TRUE",
+					"--chess.auth.signing-keys=" + signingKey,
+					"--chess.moves.journal-path=" + directory.resolve("moves-" + name + ".journal"),
+					"--chess.cluster.transport=tcp",
+					"--chess.cluster.node-id=" + name,
+					"--chess.cluster.tcp.port=" + busPort,
+					"--chess.cluster.tcp.key=" + signingKey.substring(signingKey.indexOf(':') + 1),
+					"--chess.cluster.tcp.peers=localhost:" + peer.busPort,
+					"--chess.cluster.heartbeat-interval=500ms")
+					.redirectErrorStream(true)
+					.redirectOutput(log.toFile())
+					.start();
+			processes.add(process);
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+			while (true) {
+				assertTrue(process.isAlive(), () -> "node " + name + " exited:\n" + read(log));
+				try {
+					HttpResponse<String> health = http.send(HttpRequest.newBuilder(uri("/actuator/health")).build(),
+							HttpResponse.BodyHandlers.ofString());
+					if (health.statusCode() == 200) {
+						return;
+					}
+				} catch (IOException notYetListening) {
+					// still starting
+				}
+				assertTrue(System.nanoTime() < deadline, () -> "node " + name + " did not start:\n" + read(log));
+				Thread.sleep(250);
+			}
+		}
+
+		URI uri(String path) {
+			return URI.create("http://localhost:" + httpPort + path);
+		}
+
+		JsonNode register(String username) throws Exception {
+			HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"secret\"}"))
+					.build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, response.statusCode(), response.body());
+			return objectMapper.readTree(response.body());
+		}
+
+		Client connect(String token) throws Exception {
+			Client client = new Client();
+			client.session = new StandardWebSocketClient()
+					.execute(client, new WebSocketHttpHeaders(), URI.create("ws://localhost:" + httpPort + "/ws?token=" + token))
+					.get(10, TimeUnit.SECONDS);
+			return client;
+		}
+
+		private static String read(Path log) {
+			try {
+				return Files.readString(log);
+			} catch (IOException ex) {
+				return ex.toString();
+			}
+		}
+	}
+
+	private static final class Client extends TextWebSocketHandler {
+		private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+		private WebSocketSession session;
+
+		@Override
+		protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+			received.add(objectMapper.readTree(message.getPayload()));
+		}
+
+		void send(String json) throws IOException {
+			session.sendMessage(new TextMessage(json));
+		}
+
+		JsonNode next(String type) throws InterruptedException {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (true) {
+				JsonNode message = received.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				assertNotNull(message, "no " + type + " received");
+				assertTrue(!"error".equals(message.path("type").asText()), () -> "error: " + message);
+				if (type.equals(message.path("type").asText())) {
+					return message;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.example.chess.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TcpMessageBusTest {
+	private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+	private final List<TcpMessageBus> buses = new ArrayList<>();
+
+	@AfterEach
+	void stop() {
+		buses.forEach(TcpMessageBus::stop);
+	}
+
+	@Test
+	void sendsNodeChannelsToTheirNodeOnly() throws Exception {
+		int portB = freePort();
+		int portC = freePort();
+		TcpMessageBus a = start("a", freePort(), "localhost:" + portB, "localhost:" + portC);
+		TcpMessageBus b = start("b", portB);
+		TcpMessageBus c = start("c", portC);
+		List<String> received = new CopyOnWriteArrayList<>();
+		b.subscribe("chess.all", message -> received.add("b:" + text(message)));
+		c.subscribe("chess.all", message -> received.add("c:" + text(message)));
+		b.subscribe(MessageBus.nodeChannel("b"), message -> received.add("b:" + text(message)));
+		c.subscribe(MessageBus.nodeChannel("b"), message -> received.add("c:" + text(message)));
+
+		a.publish("chess.all", bytes("hello"));
+		await(() -> received.size() == 2);
+		a.publish(MessageBus.nodeChannel("b"), bytes("direct"));
+		a.publish("chess.all", bytes("done"));
+		await(() -> received.size() == 5);
+		assertEquals(List.of("b:direct", "b:done"), received.stream().filter(m -> m.startsWith("b:")).skip(1).toList());
+		assertEquals(List.of("c:hello", "c:done"), received.stream().filter(m -> m.startsWith("c:")).toList());
+	}
+
+	@Test
+	void dropsConnectionsSendingUnsignedFrames() throws Exception {
+		int port = freePort();
+		TcpMessageBus b = start("b", port);
+		List<String> received = new CopyOnWriteArrayList<>();
+		b.subscribe("chess.all", message -> received.add(text(message)));
+
+		try (Socket socket = new Socket("127.0.0.1", port)) {
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			out.write(new byte[16]);
+			in.readFully(new byte[16]);
+			in.readFully(new byte[in.readUnsignedShort() + 32]);
+			byte[] channel = bytes("chess.all");
+			byte[] payload = bytes("forged");
+			out.writeInt(32 + 2 + channel.length + payload.length);
+			out.write(new byte[32]);
+			out.writeShort(channel.length);
+			out.write(channel);
+			out.write(payload);
+			out.flush();
+			socket.setSoTimeout(5000);
+			assertThrows(EOFException.class, in::readByte);
+		}
+		assertEquals(List.of(), received);
+	}
+
+	@Test
+	void requiresAClusterKey() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new TcpMessageBus("a", "127.0.0.1", 0, "", List.of(), 10));
+	}
+
+	private TcpMessageBus start(String nodeId, int port, String... peers) {
+		TcpMessageBus bus = new TcpMessageBus(nodeId, "127.0.0.1", port, KEY, List.of(peers), 100);
+		bus.start();
+		buses.add(bus);
+		return bus;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String text(byte[] message) {
+		return new String(message, StandardCharsets.UTF_8);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class GameCommandExecutorTest {
+	private static final String[] OPENING = {
+			"e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6", "b5a4", "g8f6", "e1g1", "f8e7",
+			"f1e1", "b7b5", "a4b3", "d7d6", "c2c3", "e8g8", "h2h3", "c6b8", "d2d4", "b8d7"
+	};
+	private static final long WHITE = 1L;
+	private static final long BLACK = 2L;
+
+	@Autowired
+	private GameService gameService;
+
+	@Autowired
+	private GameCommandExecutor gameExecutor;
+
+	@Autowired
+	private MoveStore moveStore;
+
+	@Test
+	void concurrentMovesAndResignStayOrderedPerGame() throws Exception {
+		Long gameId = gameService.createGame(WHITE, BLACK).getId();
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		AtomicInteger accepted = new AtomicInteger();
+		List<CompletableFuture<Void>> results = new ArrayList<>();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+
+		for (int client = 0; client < 8; client++) {
+			boolean resigns = client == 7;
+			clients.execute(() -> {
+				awaitQuietly(start);
+				for (int i = 0; i < OPENING.length; i++) {
+					String uci = OPENING[i];
+					Long userId = i % 2 == 0 ? WHITE : BLACK;
+					CompletableFuture<Void> result = gameExecutor.submit(gameId, () -> {
+						maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+						try {
+							GameEntity game = gameService.getGame(gameId);
+							if (game.getStatus() == GameStatus.FINISHED) {
+								return;
+							}
+							gameService.validateAndAddMove(game, uci.substring(0, 2), uci.substring(2, 4), null, userId);
+							accepted.incrementAndGet();
+						} catch (IllegalArgumentException rejected) {
+							// duplicate submissions from other clients are expected to be rejected
+						} finally {
+							inFlight.decrementAndGet();
+						}
+					});
+					synchronized (results) {
+						results.add(result);
+					}
+					if (resigns && i == 12) {
+						CompletableFuture<Void> resign = gameExecutor.submit(gameId, () -> {
+							GameEntity game = gameService.getGame(gameId);
+							if (game.getStatus() != GameStatus.FINISHED) {
+								gameService.finishGame(game, WHITE, "resign");
+							}
+						});
+						synchronized (results) {
+							results.add(resign);
+						}
+					}
+				}
+			});
+		}
+		start.countDown();
+		clients.shutdown();
+		assertTrue(clients.awaitTermination(30, TimeUnit.SECONDS));
+		CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+		assertEquals(1, maxInFlight.get());
+		GameEntity game = gameService.getGame(gameId);
+		assertEquals(GameStatus.FINISHED, game.getStatus());
+		assertEquals("resign", game.getEndReason());
+
+		List<MoveEntity> moves = moveStore.findByGameId(gameId);
+		// client 7 submits its e2e4 before resigning, so at least the first move is in
+		assertTrue(accepted.get() >= 1);
+		assertEquals(accepted.get(), moves.size());
+		assertEquals(accepted.get(), game.getMoveCount());
+		for (int i = 0; i < moves.size(); i++) {
+			MoveEntity move = moves.get(i);
+			assertEquals(i + 1, move.getMoveNumber());
+			assertEquals(OPENING[i], move.getFromSquare() + move.getToSquare());
+		}
+		ChessRules.buildBoard(moves);
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.auth.AuthRequest;
+import com.example.chess.auth.AuthResponse;
+import com.example.chess.auth.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class GameControllerTest {
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private GameService gameService;
+
+	@Test
+	void movesSyncIncrementallyAndAnswerNotModifiedWhenUnchanged() {
+		AuthResponse white = authService.register(new AuthRequest("sync-w-" + System.nanoTime(), "secret")).join();
+		AuthResponse black = authService.register(new AuthRequest("sync-b-" + System.nanoTime(), "secret")).join();
+		GameEntity game = gameService.createGame(white.userId(), black.userId());
+		String[] plies = { "e2e4", "e7e5", "g1f3", "b8c6", "f1b5" };
+		for (int i = 0; i < 4; i++) {
+			play(game, plies[i], i % 2 == 0 ? white.userId() : black.userId());
+		}
+		String url = "/api/games/" + game.getId() + "/moves";
+
+		ResponseEntity<MoveDto[]> all = get(url, white, null);
+		assertEquals(4, all.getBody().length);
+		String etag = all.getHeaders().getETag();
+		assertNotNull(etag);
+		ResponseEntity<MoveDto[]> unchanged = get(url + "?since=4", white, etag);
+		assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+		assertNull(unchanged.getBody());
+
+		play(game, plies[4], white.userId());
+		ResponseEntity<MoveDto[]> delta = get(url + "?since=4", white, etag);
+		assertEquals(HttpStatus.OK, delta.getStatusCode());
+		assertEquals(1, delta.getBody().length);
+		assertEquals(5, delta.getBody()[0].moveNumber());
+
+		ResponseEntity<MoveDto[]> page = get(url + "?since=1&limit=2", white, null);
+		assertEquals(2, page.getBody()[0].moveNumber());
+		assertEquals(2, page.getBody().length);
+		assertTrue(page.getHeaders().getFirst(HttpHeaders.LINK).contains("since=3&limit=2>; rel=\"next\""));
+		ResponseEntity<MoveDto[]> last = get(url + "?since=3&limit=2", white, null);
+		assertEquals(2, last.getBody().length);
+		assertNull(last.getHeaders().getFirst(HttpHeaders.LINK));
+	}
+
+	private void play(GameEntity game, String uci, Long userId) {
+		gameService.validateAndAddMove(gameService.getGame(game.getId()), uci.substring(0, 2), uci.substring(2), null, userId);
+	}
+
+	private ResponseEntity<MoveDto[]> get(String url, AuthResponse user, String ifNoneMatch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth(user.token());
+		if (ifNoneMatch != null) {
+			headers.setIfNoneMatch(ifNoneMatch);
+		}
+		return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), MoveDto[].class);
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+@SpringBootTest
+class GameServiceTest {
+	private static final Long WHITE = 9101L;
+	private static final Long BLACK = 9102L;
+
+	@Autowired
+	private GameService gameService;
+
+	@Test
+	void moveCommitsTurnStateAndRejectsStaleGame() {
+		Long gameId = gameService.createGame(WHITE, BLACK, TimeControl.parse("10+0")).getId();
+		GameEntity stale = gameService.getGame(gameId);
+		GameEntity game = gameService.getGameForCommand(gameId);
+		gameService.validateAndAddMove(game, "e2", "e4", null, WHITE);
+		assertSame(game, gameService.getGameForCommand(gameId));
+
+		GameEntity stored = gameService.getGame(gameId);
+		assertEquals(1, stored.getMoveCount());
+		assertEquals("b", stored.getSideToMove());
+		assertEquals(stale.getVersion() + 1, stored.getVersion());
+		assertEquals(game.getWhiteClockMillis(), stored.getWhiteClockMillis());
+		assertNull(gameService.createGame(WHITE, BLACK).getTimeControl());
+
+		assertThrows(OptimisticLockingFailureException.class,
+				() -> gameService.validateAndAddMove(stale, "e7", "e5", null, BLACK));
+		gameService.validateAndAddMove(gameService.getGameForCommand(gameId), "e7", "e5", null, BLACK);
+		assertEquals(2, gameService.getGame(gameId).getMoveCount());
+		assertEquals(2, gameService.getMoves(gameId).size());
+		assertEquals("w", gameService.getGame(gameId).getSideToMove());
+	}
+}
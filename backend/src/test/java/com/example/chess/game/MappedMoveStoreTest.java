@@ -0,0 +1,73 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class MappedMoveStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rollsSegmentsAndRecoversIndexOnReopen() throws Exception {
+		DataSize segmentSize = DataSize.ofBytes(MoveJournal.RECORD_SIZE * 3L);
+		MappedMoveStore store = new MappedMoveStore(dir, segmentSize, false);
+		for (int i = 1; i <= 4; i++) {
+			store.append(new MoveEntity(1L, i, Move.pack(Move.of(6, 21, Move.QUIET)), "wN", 1L));
+			store.append(new MoveEntity(2L, i, Move.pack(Move.of(62, 45, Move.QUIET)), "bN", 2L));
+		}
+		store.flush();
+
+		try (Stream<Path> files = Files.list(dir)) {
+			assertEquals(3, files.count());
+		}
+
+		MappedMoveStore reopened = new MappedMoveStore(dir, segmentSize, false);
+		List<MoveEntity> first = reopened.findByGameId(1L);
+		assertEquals(4, first.size());
+		assertEquals(List.of(1, 2, 3, 4), first.stream().map(MoveEntity::getMoveNumber).toList());
+		assertEquals("bN", reopened.findByGameId(2L).get(3).getPiece());
+
+		reopened.append(new MoveEntity(1L, 5, Move.pack(Move.of(21, 6, Move.QUIET)), "wN", 1L));
+		assertEquals(5, new MappedMoveStore(dir, segmentSize, false).findByGameId(1L).size());
+	}
+
+	@Test
+	void discardedMoveStaysOutAfterReopen() throws Exception {
+		DataSize segmentSize = DataSize.ofKilobytes(4);
+		MappedMoveStore store = new MappedMoveStore(dir, segmentSize, true);
+		store.append(new MoveEntity(1L, 1, Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH)), "wP", 1L));
+		MoveEntity rolledBack = new MoveEntity(1L, 2, Move.pack(Move.of(62, 45, Move.QUIET)), "bN", 2L);
+		store.append(rolledBack);
+		store.discard(rolledBack);
+
+		assertEquals(1, store.findByGameId(1L).size());
+		assertEquals(1, new MappedMoveStore(dir, segmentSize, true).findByGameId(1L).size());
+	}
+
+	@Test
+	void repeatedMoveNumberReplacesTheStoredMove() throws Exception {
+		DataSize segmentSize = DataSize.ofKilobytes(4);
+		MappedMoveStore store = new MappedMoveStore(dir, segmentSize, true);
+		store.append(new MoveEntity(1L, 1, Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH)), "wP", 1L));
+		store.append(new MoveEntity(1L, 2, Move.pack(Move.of(62, 45, Move.QUIET)), "bN", 2L));
+		store.append(new MoveEntity(1L, 2, Move.pack(Move.of(52, 36, Move.DOUBLE_PAWN_PUSH)), "bP", 2L));
+		store.append(new MoveEntity(1L, 3, Move.pack(Move.of(6, 21, Move.QUIET)), "wN", 1L));
+		assertThrows(IllegalStateException.class,
+				() -> store.append(new MoveEntity(1L, 5, Move.pack(Move.of(57, 42, Move.QUIET)), "bN", 2L)));
+
+		for (MappedMoveStore reader : List.of(store, new MappedMoveStore(dir, segmentSize, true))) {
+			List<MoveEntity> moves = reader.findByGameId(1L);
+			assertEquals(List.of("wP", "bP", "wN"), moves.stream().map(MoveEntity::getPiece).toList());
+			assertEquals(List.of("wN"), reader.findByGameId(1L, 2, 10).stream().map(MoveEntity::getPiece).toList());
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MoveJournalTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void replaysRecordsAndDropsTornTail() throws Exception {
+		Path path = dir.resolve("moves.journal");
+		try (MoveJournal journal = new MoveJournal(path)) {
+			journal.append(new MoveEntity(7L, 1, Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH)), "wP", 1L));
+			journal.append(new MoveEntity(7L, 2, Move.pack(Move.promotion(52, 60, Piece.QUEEN, false)), "bP", 2L));
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+		}
+
+		try (MoveJournal journal = new MoveJournal(path)) {
+			List<MoveEntity> moves = journal.readAll();
+			assertEquals(2, moves.size());
+			MoveEntity first = moves.get(0);
+			assertEquals(7L, first.getGameId());
+			assertEquals("e2", first.getFromSquare());
+			assertEquals("e4", first.getToSquare());
+			assertEquals("wP", first.getPiece());
+			assertNull(first.getPromotion());
+			assertEquals("q", moves.get(1).getPromotion());
+			assertEquals(2L * MoveJournal.RECORD_SIZE, path.toFile().length());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+@SpringBootTest
+class MoveWriteBehindTest {
+	private static final Long WHITE = 9201L;
+	private static final Long BLACK = 9202L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private GameService gameService;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void rotatesJournalAndDeadLettersRejectedMoves() throws Exception {
+		Long gameId = gameService.createGame(WHITE, BLACK).getId();
+		Path journalPath = dir.resolve("moves.journal");
+		MoveWriteBehind writeBehind = new MoveWriteBehind(jdbcTemplate, transactionManager, journalPath, 128,
+				Duration.ofMinutes(1), 16, Duration.ofMillis(100), DataSize.ofBytes(2L * MoveJournal.RECORD_SIZE));
+		jdbcTemplate.execute("alter table moves add constraint ck_moves_poison check (move_number <> 999)");
+		writeBehind.start();
+		try {
+			short e4 = Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH));
+			writeBehind.enqueue(new MoveEntity(gameId, 1, e4, "wP", WHITE));
+			writeBehind.enqueue(new MoveEntity(gameId, 2, e4, "bP", BLACK));
+			assertEquals(0L, Files.size(journalPath));
+			writeBehind.enqueue(new MoveEntity(gameId, 999, e4, "wP", WHITE));
+			writeBehind.flush();
+		} finally {
+			writeBehind.stop();
+			jdbcTemplate.execute("alter table moves drop constraint ck_moves_poison");
+		}
+
+		assertEquals(2, jdbcTemplate.queryForObject("select count(*) from moves where game_id = ?", Integer.class,
+				gameId));
+		assertFalse(Files.exists(dir.resolve("moves.journal.sealed")));
+		assertEquals(0L, Files.size(journalPath));
+		try (MoveJournal deadLetters = new MoveJournal(dir.resolve("moves.journal.dead"))) {
+			List<MoveEntity> rejected = deadLetters.readAll();
+			assertEquals(1, rejected.size());
+			assertEquals(999, rejected.get(0).getMoveNumber());
+		}
+	}
+
+	@Test
+	void discardsMovesWhoseTransactionRolledBack() {
+		Long gameId = gameService.createGame(WHITE, BLACK).getId();
+		MoveWriteBehind writeBehind = new MoveWriteBehind(jdbcTemplate, transactionManager, dir.resolve("moves.journal"),
+				128, Duration.ofMinutes(1), 16, Duration.ofMillis(100), DataSize.ofMegabytes(1));
+		writeBehind.start();
+		try {
+			short e4 = Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH));
+			MoveEntity written = new MoveEntity(gameId, 1, e4, "wP", WHITE);
+			writeBehind.enqueue(written);
+			writeBehind.flush();
+			MoveEntity waiting = new MoveEntity(gameId, 2, e4, "bP", BLACK);
+			writeBehind.enqueue(waiting);
+
+			writeBehind.discard(written);
+			writeBehind.discard(waiting);
+			assertTrue(writeBehind.pendingMoves(gameId).isEmpty());
+			writeBehind.flush();
+		} finally {
+			writeBehind.stop();
+		}
+
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from moves where game_id = ?", Integer.class,
+				gameId));
+	}
+
+	@Test
+	void replayDropsMovesPastTheGameMoveCount() throws Exception {
+		Long gameId = gameService.createGame(WHITE, BLACK).getId();
+		Path journalPath = dir.resolve("moves.journal");
+		try (MoveJournal journal = new MoveJournal(journalPath)) {
+			journal.append(new MoveEntity(gameId, 1, Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH)), "wP", WHITE));
+		}
+		MoveWriteBehind writeBehind = new MoveWriteBehind(jdbcTemplate, transactionManager, journalPath, 128,
+				Duration.ofMinutes(1), 16, Duration.ofMillis(100), DataSize.ofMegabytes(1));
+		writeBehind.start();
+		writeBehind.stop();
+
+		assertEquals(0, jdbcTemplate.queryForObject("select count(*) from moves where game_id = ?", Integer.class,
+				gameId));
+	}
+}
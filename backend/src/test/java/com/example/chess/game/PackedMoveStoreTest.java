@@ -0,0 +1,123 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = {
+		"chess.moves.store=packed",
+		"spring.datasource.url=jdbc:h2:mem:packed-moves;DB_CLOSE_DELAY=-1"
+})
+class PackedMoveStoreTest {
+	private static final long WHITE = 1L;
+	private static final long BLACK = 2L;
+
+	@Autowired
+	private GameService gameService;
+
+	@Autowired
+	private MoveStore moveStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void storesOneTwoBytesPerPlyRowPerGame() {
+		GameEntity game = gameService.createGame(WHITE, BLACK);
+		String[] plies = { "e2e4", "d7d5", "e4d5", "g8f6", "f1b5", "c7c6", "g1f3", "c6b5", "e1g1" };
+		for (int i = 0; i < plies.length; i++) {
+			String uci = plies[i];
+			gameService.validateAndAddMove(game, uci.substring(0, 2), uci.substring(2), null, i % 2 == 0 ? WHITE : BLACK);
+		}
+
+		assertInstanceOf(PackedMoveStore.class, moveStore);
+		byte[] stored = jdbcTemplate.queryForObject("select moves from game_moves where game_id = ?", byte[].class, game.getId());
+		assertEquals(plies.length * 2, stored.length);
+
+		List<MoveEntity> moves = moveStore.findByGameId(game.getId());
+		assertEquals(plies.length, moves.size());
+		assertEquals("wP", moves.get(2).getPiece());
+		assertEquals(BLACK, moves.get(7).getByUserId());
+		assertEquals("e1", moves.get(8).getFromSquare());
+		assertEquals(Move.KING_CASTLE, Move.flags(Move.unpack(moves.get(8).getPackedMove())));
+
+		MoveEntity stale = new MoveEntity(game.getId(), 3, moves.get(2).getPackedMove(), "wP", WHITE);
+		assertThrows(IllegalStateException.class, () -> moveStore.append(stale));
+	}
+
+	@Test
+	void splitsLongGamesIntoChunks() {
+		GameEntity game = gameService.createGame(WHITE, BLACK);
+		int[][] shuffle = { { 6, 21 }, { 62, 45 }, { 21, 6 }, { 45, 62 } };
+		int plies = GameMovesEntity.CHUNK_PLIES + 6;
+		for (int ply = 0; ply < plies; ply++) {
+			int[] squares = shuffle[ply % shuffle.length];
+			moveStore.append(new MoveEntity(game.getId(), ply + 1, Move.pack(Move.of(squares[0], squares[1], Move.QUIET)),
+					ply % 2 == 0 ? "wN" : "bN", ply % 2 == 0 ? WHITE : BLACK));
+		}
+
+		List<Integer> counts = jdbcTemplate.queryForList("select move_count from game_moves where game_id = ? order by chunk",
+				Integer.class, game.getId());
+		assertEquals(List.of(GameMovesEntity.CHUNK_PLIES, 6), counts);
+		List<MoveEntity> moves = moveStore.findByGameId(game.getId());
+		assertEquals(plies, moves.size());
+		assertEquals("g1", moves.get(GameMovesEntity.CHUNK_PLIES).getFromSquare());
+		assertEquals("bN", moves.get(plies - 1).getPiece());
+		assertEquals(BLACK, moves.get(plies - 1).getByUserId());
+		MoveEntity skipped = new MoveEntity(game.getId(), plies + 2, moves.get(0).getPackedMove(), "wN", WHITE);
+		assertThrows(IllegalStateException.class, () -> moveStore.append(skipped));
+	}
+
+	@Test
+	void readsMovesAfterTheSnapshotFromItsChunkOn() {
+		GameEntity game = gameService.createGame(WHITE, BLACK);
+		int[][] shuffle = { { 6, 21 }, { 62, 45 }, { 21, 6 }, { 45, 62 } };
+		int snapshotPly = GameMovesEntity.CHUNK_PLIES + 2;
+		Position position = Position.initial();
+		for (int ply = 0; ply < snapshotPly + 4; ply++) {
+			int[] squares = shuffle[ply % shuffle.length];
+			int move = Move.of(squares[0], squares[1], Move.QUIET);
+			moveStore.append(new MoveEntity(game.getId(), ply + 1, Move.pack(move), ply % 2 == 0 ? "wN" : "bN",
+					ply % 2 == 0 ? WHITE : BLACK));
+			if (ply < snapshotPly) {
+				position.makeMove(move);
+			}
+		}
+		long[] hashes = position.recentHashes();
+		ByteBuffer packed = ByteBuffer.allocate(hashes.length * Long.BYTES);
+		packed.asLongBuffer().put(hashes);
+		jdbcTemplate.update("update games set snapshot_ply = ?, snapshot_fen = ?, snapshot_hashes = ? where id = ?",
+				snapshotPly, position.toFen(), packed.array(), game.getId());
+		jdbcTemplate.update("delete from game_moves where game_id = ? and chunk = 0", game.getId());
+
+		List<MoveEntity> moves = moveStore.findByGameId(game.getId(), snapshotPly + 1, 2);
+		assertEquals(List.of(snapshotPly + 2, snapshotPly + 3), moves.stream().map(MoveEntity::getMoveNumber).toList());
+		assertEquals("f6", moves.get(0).getFromSquare());
+		assertEquals("bN", moves.get(0).getPiece());
+		assertEquals(BLACK, moves.get(0).getByUserId());
+		assertEquals("g1", moves.get(1).getFromSquare());
+		assertEquals(WHITE, moves.get(1).getByUserId());
+		assertEquals(List.of(), moveStore.findByGameId(game.getId(), snapshotPly + 4, 10));
+	}
+
+	@Test
+	void rejectedAppendLeavesTheGamesRowUnchanged() {
+		GameEntity game = gameService.createGame(WHITE, BLACK, TimeControl.parse("10+0"));
+		GameEntity live = gameService.getGameForCommand(game.getId());
+		moveStore.append(new MoveEntity(game.getId(), 1, Move.pack(Move.of(12, 28, Move.DOUBLE_PAWN_PUSH)), "wP", WHITE));
+
+		assertThrows(DuplicateKeyException.class, () -> gameService.validateAndAddMove(live, "d2", "d4", null, WHITE));
+		GameEntity stored = gameService.getGame(game.getId());
+		assertEquals(0, stored.getMoveCount());
+		assertEquals(game.getVersion(), stored.getVersion());
+		assertEquals(game.getWhiteClockMillis(), stored.getWhiteClockMillis());
+	}
+}
@@ -0,0 +1,30 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class PerftTest {
+
+	static Stream<Arguments> positions() {
+		return Stream.of(
+				Arguments.of("start", Position.START_FEN, 5, 4865609L),
+				Arguments.of("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4085603L),
+				Arguments.of("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674624L),
+				Arguments.of("position4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422333L),
+				Arguments.of("position5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4, 2103487L),
+				Arguments.of("position6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4, 3894594L));
+	}
+
+	@ParameterizedTest(name = "{0} depth {2}")
+	@MethodSource("positions")
+	void nodeCountsMatchReference(String name, String fen, int depth, long expected) {
+		Position position = Position.fromFen(fen);
+
+		assertEquals(expected, Perft.perft(position, depth));
+		assertEquals(fen, position.toFen());
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.UserRepository;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "chess.pgn.page-size=2")
+class PgnExportServiceTest {
+
+	@Autowired
+	private PgnExportService pgnExport;
+
+	@Autowired
+	private GameService gameService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void sanCoversDisambiguationPromotionCastlingAndMate() {
+		Position knights = Position.fromFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+		assertEquals("Nbd2", san(knights, "b1", "d2", Piece.NONE));
+		Position rooks = Position.fromFen("R7/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+		assertEquals("R1a4", san(rooks, "a1", "a4", Piece.NONE));
+		Position promotion = Position.fromFen("1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+		assertEquals("axb8=Q+", san(promotion, "a7", "b8", Piece.QUEEN));
+		assertEquals("a8=N", san(promotion, "a7", "a8", Piece.KNIGHT));
+		Position castling = Position.fromFen("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+		assertEquals("O-O-O", san(castling, "e1", "c1", Piece.NONE));
+		Position backRank = Position.fromFen("6k1/5ppp/8/8/8/8/8/R3K3 w - - 0 1");
+		assertEquals("Ra8#", san(backRank, "a1", "a8", Piece.NONE));
+		assertEquals("6k1/5ppp/8/8/8/8/8/R3K3 w - - 0 1", backRank.toFen());
+	}
+
+	@Test
+	void exportsAUsersFinishedGamesAcrossPages() throws Exception {
+		Long white = userRepository.save(new UserEntity("pgn-white-" + System.nanoTime(), "x")).getId();
+		Long black = userRepository.save(new UserEntity("pgn-black-" + System.nanoTime(), "x")).getId();
+		Instant from = Instant.now().minus(1, ChronoUnit.SECONDS);
+		GameEntity mated = gameService.createGame(white, black, TimeControl.parse("5+3"));
+		String[] plies = { "f2f3", "e7e5", "g2g4", "d8h4" };
+		for (int i = 0; i < plies.length; i++) {
+			gameService.validateAndAddMove(mated, plies[i].substring(0, 2), plies[i].substring(2), null, i % 2 == 0 ? white : black);
+		}
+		for (int i = 0; i < 4; i++) {
+			gameService.finishGame(gameService.createGame(white, black), white, "resign");
+		}
+		gameService.createGame(black, white);
+
+		StringWriter out = new StringWriter();
+		assertEquals(5, pgnExport.exportFinishedGames(black, out));
+		String pgn = out.toString();
+		assertTrue(pgn.startsWith("[Event \"Online game\"]\n"), pgn);
+		assertTrue(pgn.contains("[TimeControl \"300+3\"]\n[Termination \"Normal\"]\n\n1. f3 e5 2. g4 Qh4# 0-1\n\n"), pgn);
+		assertEquals(4, pgn.split("\n1-0\n", -1).length - 1);
+
+		StringWriter range = new StringWriter();
+		assertEquals(6, pgnExport.exportCreatedBetween(from, Instant.now().plusSeconds(1), range));
+		assertTrue(range.toString().endsWith("[Result \"*\"]\n\n*\n\n"), range.toString());
+	}
+
+	private static String san(Position position, String from, String to, int promotion) {
+		int move = ChessRules.findLegalMove(position, ChessRules.squareIndex(from), ChessRules.squareIndex(to), promotion);
+		return ChessRules.toSan(position, move);
+	}
+}
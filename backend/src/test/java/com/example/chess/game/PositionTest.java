@@ -0,0 +1,74 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PositionTest {
+
+	@Test
+	void incrementalHashMatchesFreshPosition() {
+		Position position = Position.initial();
+		Random random = new Random(7);
+		for (int ply = 0; ply < 120; ply++) {
+			MoveList moves = ChessRules.generateLegalMoves(position);
+			if (moves.isEmpty()) {
+				break;
+			}
+			position.makeMove(moves.get(random.nextInt(moves.size())));
+			assertEquals(Position.fromFen(position.toFen()).hash(), position.hash());
+		}
+	}
+
+	@Test
+	void detectsThreefoldRepetition() {
+		Position position = Position.initial();
+		String[] shuffle = { "g1f3", "g8f6", "f3g1", "f6g8" };
+		for (int round = 0; round < 2; round++) {
+			for (String uci : shuffle) {
+				assertFalse(position.isThreefoldRepetition());
+				play(position, uci);
+			}
+		}
+		assertTrue(position.isThreefoldRepetition());
+	}
+
+	@Test
+	void snapshotKeepsRepetitionHistory() {
+		Position position = Position.initial();
+		String[] shuffle = { "g1f3", "g8f6", "f3g1", "f6g8" };
+		for (String uci : shuffle) {
+			play(position, uci);
+		}
+		play(position, "g1f3");
+		GameEntity game = new GameEntity(1L, 2L);
+		game.recordSnapshot(5, position);
+
+		Position restored = game.restoreSnapshot();
+		assertEquals(5, game.getSnapshotPly());
+		assertEquals(position.toFen(), restored.toFen());
+		assertEquals(position.hash(), restored.hash());
+		for (int i = 1; i < shuffle.length; i++) {
+			assertFalse(restored.isThreefoldRepetition());
+			play(restored, shuffle[i]);
+		}
+		assertTrue(restored.isThreefoldRepetition());
+	}
+
+	@Test
+	void detectsFiftyMoveRule() {
+		Position position = Position.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 99 80");
+		assertFalse(position.isFiftyMoveDraw());
+		play(position, "a1a2");
+		assertTrue(position.isFiftyMoveDraw());
+	}
+
+	private static void play(Position position, String uci) {
+		int move = ChessRules.findLegalMove(position, ChessRules.squareIndex(uci.substring(0, 2)),
+				ChessRules.squareIndex(uci.substring(2, 4)), Piece.NONE);
+		position.makeMove(move);
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.chess.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+	@Test
+	void firesEveryTimeoutOnceAndNotBeforeItsDeadline() throws Exception {
+		int count = 2_000;
+		long[] due = new long[count];
+		long[] firedAt = new long[count];
+		CountDownLatch fired = new CountDownLatch(count);
+		try (TimingWheel wheel = new TimingWheel(1, 8, "wheel-test", timeout -> {
+			firedAt[(int) timeout.key()] = System.nanoTime();
+			fired.countDown();
+		})) {
+			Random random = new Random(21);
+			for (int key = 0; key < count; key++) {
+				// a wheel of 8 buckets needs four levels for delays up to 1.5 s
+				int delay = random.nextInt(1_500);
+				due[key] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+				wheel.schedule(key, delay);
+			}
+			assertTrue(fired.await(5, TimeUnit.SECONDS));
+			assertEquals(0, wheel.size());
+		}
+		for (int key = 0; key < count; key++) {
+			long lateMillis = TimeUnit.NANOSECONDS.toMillis(firedAt[key] - due[key]);
+			assertTrue(lateMillis >= -1 && lateMillis < 100, "timeout " + key + " fired " + lateMillis + " ms late");
+		}
+	}
+
+	@Test
+	void cancelledTimeoutsDoNotFire() throws Exception {
+		CountDownLatch fired = new CountDownLatch(1);
+		Map<Long, Boolean> seen = new ConcurrentHashMap<>();
+		try (TimingWheel wheel = new TimingWheel(1, 64, "wheel-test", timeout -> {
+			seen.put(timeout.key(), true);
+			fired.countDown();
+		})) {
+			TimingWheel.Timeout cancelled = wheel.schedule(1, 50);
+			wheel.schedule(2, 100);
+			assertTrue(cancelled.cancel());
+			assertFalse(cancelled.cancel());
+			assertEquals(1, wheel.size());
+
+			assertTrue(fired.await(2, TimeUnit.SECONDS));
+			assertEquals(Map.of(2L, true), seen);
+			assertEquals(0, wheel.size());
+		}
+	}
+}
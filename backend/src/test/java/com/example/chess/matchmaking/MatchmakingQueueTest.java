@@ -0,0 +1,113 @@
+package com.example.chess.matchmaking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.game.TimeControl;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class MatchmakingQueueTest {
+	private static final TimeControl BLITZ = TimeControl.parse("5+0");
+	private static final TimeControl RAPID = TimeControl.parse("10+5");
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final MatchmakingQueue queue = new MatchmakingQueue(50, 50, 25, 400);
+
+	@Test
+	void pairsTheClosestRatingInTheSameTimeControl() {
+		assertNull(queue.join(1L, 1500, BLITZ, 0));
+		assertNull(queue.join(2L, 1580, BLITZ, 0));
+		assertNull(queue.join(3L, 1550, RAPID, 0));
+
+		MatchmakingQueue.Match match = queue.join(4L, 1545, BLITZ, 0);
+		assertNotNull(match);
+		assertEquals(2L, match.first().userId());
+		assertEquals(4L, match.second().userId());
+		assertEquals(35, match.ratingGap());
+		assertEquals(2, queue.size());
+		assertTrue(queue.contains(1L));
+		assertTrue(queue.contains(3L));
+	}
+
+	@Test
+	void requeueKeepsTheTimeThePlayerJoined() {
+		assertNull(queue.join(3L, 1700, BLITZ, 0));
+		assertNull(queue.join(1L, 1500, BLITZ, 0));
+		MatchmakingQueue.Match cancelled = queue.join(2L, 1510, BLITZ, SECOND);
+		assertEquals(1L, cancelled.first().userId());
+
+		MatchmakingQueue.Match match = queue.requeue(cancelled.first(), 6 * SECOND);
+		assertNotNull(match);
+		assertEquals(200, match.ratingGap());
+		assertEquals(Set.of(1L, 3L), Set.of(match.first().userId(), match.second().userId()));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void widensTheWindowWhilePlayersWait() {
+		assertNull(queue.join(1L, 1500, BLITZ, 0));
+		assertNull(queue.join(2L, 1700, BLITZ, 0));
+		assertTrue(queue.sweep(5 * SECOND).isEmpty());
+
+		List<MatchmakingQueue.Match> matches = queue.sweep(6 * SECOND);
+		assertEquals(1, matches.size());
+		assertEquals(200, matches.get(0).ratingGap());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void bothWindowsMustCoverTheGap() {
+		assertNull(queue.join(1L, 1500, BLITZ, 0));
+		assertNull(queue.join(2L, 1620, BLITZ, 10 * SECOND));
+		assertTrue(queue.sweep(10 * SECOND).isEmpty());
+		assertEquals(1, queue.sweep(13 * SECOND).size());
+	}
+
+	@Test
+	void leavingOrRejoiningReplacesTheTicket() {
+		assertNull(queue.join(1L, 1500, BLITZ, 0));
+		assertNull(queue.join(1L, 1500, RAPID, 0));
+		assertEquals(1, queue.size());
+		assertNull(queue.join(2L, 1500, BLITZ, 0));
+		assertTrue(queue.leave(1L));
+		assertFalse(queue.leave(1L));
+		assertNull(queue.join(3L, 1500, RAPID, 0));
+	}
+
+	@Test
+	void pairsThousandsOfPlayersWithinTheirWindows() {
+		Random random = new Random(19);
+		TimeControl[] timeControls = { BLITZ, RAPID, TimeControl.parse("1+0"), TimeControl.parse("3+2") };
+		int immediate = 0;
+		for (long userId = 1; userId <= 5_000; userId++) {
+			int rating = (int) Math.round(1500 + random.nextGaussian() * 350);
+			long joined = random.nextInt(30) * SECOND;
+			MatchmakingQueue.Match match = queue.join(userId, rating, timeControls[random.nextInt(timeControls.length)], joined);
+			if (match != null) {
+				assertTrue(match.ratingGap() <= 50);
+				immediate++;
+			}
+		}
+		assertTrue(immediate > 2_000);
+
+		Set<Long> paired = new HashSet<>();
+		int waiting = queue.size();
+		List<MatchmakingQueue.Match> matches = queue.sweep(60 * SECOND);
+		for (MatchmakingQueue.Match match : matches) {
+			assertEquals(match.first().timeControl(), match.second().timeControl());
+			assertTrue(match.ratingGap() <= 400);
+			assertTrue(paired.add(match.first().userId()));
+			assertTrue(paired.add(match.second().userId()));
+		}
+		assertEquals(waiting - 2 * matches.size(), queue.size());
+		assertTrue(queue.sweep(60 * SECOND).isEmpty(), "no two leftover players fit each other");
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.chess.rating;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LeaderboardTest {
+	private static final Comparator<int[]> ORDER = Comparator.<int[]>comparingInt(entry -> -entry[1]).thenComparingInt(entry -> entry[0]);
+
+	private final Leaderboard leaderboard = new Leaderboard();
+
+	@Test
+	void ranksByRatingThenUserId() {
+		leaderboard.update(1L, "alice", 1500, 1);
+		leaderboard.update(2L, "bob", 1600, 1);
+		leaderboard.update(3L, "carol", 1500, 1);
+
+		assertEquals(List.of(2L, 1L, 3L), leaderboard.top(0, 10).stream().map(LeaderboardEntry::userId).toList());
+		assertEquals(3, leaderboard.entry(3L).rank());
+		assertEquals("carol", leaderboard.entry(3L).username());
+		assertNull(leaderboard.entry(4L));
+
+		assertTrue(leaderboard.update(3L, "carol", 1700, 2));
+		assertFalse(leaderboard.update(3L, "carol", 1400, 2), "stale updates are ignored");
+		assertEquals(1, leaderboard.entry(3L).rank());
+		assertEquals(List.of(2L, 1L), leaderboard.top(1, 5).stream().map(LeaderboardEntry::userId).toList());
+		assertEquals(3, leaderboard.size());
+	}
+
+	@Test
+	void matchesASortedListUnderRandomUpdates() {
+		Random random = new Random(20);
+		Map<Integer, int[]> expected = new HashMap<>();
+		for (int step = 0; step < 20_000; step++) {
+			int userId = random.nextInt(2_000);
+			int[] current = expected.get(userId);
+			int played = current == null ? 1 : current[2] + 1;
+			int rating = 1000 + random.nextInt(1000);
+			expected.put(userId, new int[] { userId, rating, played });
+			leaderboard.update(userId, "user" + userId, rating, played);
+		}
+		List<int[]> sorted = new ArrayList<>(expected.values());
+		sorted.sort(ORDER);
+
+		assertEquals(sorted.size(), leaderboard.size());
+		for (int i = 0; i < sorted.size(); i += 37) {
+			LeaderboardEntry entry = leaderboard.entry(sorted.get(i)[0]);
+			assertEquals(i + 1, entry.rank());
+			assertEquals(sorted.get(i)[1], entry.rating());
+		}
+		List<LeaderboardEntry> page = leaderboard.top(500, 50);
+		assertEquals(50, page.size());
+		for (int i = 0; i < page.size(); i++) {
+			assertEquals(501 + i, page.get(i).rank());
+			assertEquals(sorted.get(500 + i)[0], page.get(i).userId().intValue());
+		}
+		assertEquals(3, leaderboard.top(sorted.size() - 3, 10).size());
+	}
+}
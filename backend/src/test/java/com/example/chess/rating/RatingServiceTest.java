@@ -0,0 +1,117 @@
+package com.example.chess.rating;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.auth.UserEntity;
+import com.example.chess.auth.UserRepository;
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class RatingServiceTest {
+
+	@Autowired
+	private RatingService ratingService;
+
+	@Autowired
+	private GameService gameService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void finishingAGameRatesBothPlayersAndUpdatesTheLeaderboard() {
+		List<UserEntity> users = newUsers("elo", 2);
+		Long white = users.get(0).getId();
+		Long black = users.get(1).getId();
+		gameService.finishGame(gameService.createGame(white, black), white, "resign");
+
+		assertEquals(1520, userRepository.findById(white).orElseThrow().getRating());
+		assertEquals(1480, userRepository.findById(black).orElseThrow().getRating());
+		assertEquals(1, userRepository.findById(black).orElseThrow().getGamesPlayed());
+		LeaderboardEntry winner = ratingService.entry(white);
+		LeaderboardEntry loser = ratingService.entry(black);
+		assertEquals(1520, winner.rating());
+		assertTrue(winner.rank() < loser.rank());
+		assertEquals(winner, ratingService.top(winner.rank() - 1, 1).get(0));
+	}
+
+	@Test
+	void recomputeReproducesIncrementalRatings() {
+		List<UserEntity> users = newUsers("replay", 40);
+		Random random = new Random(20);
+		for (int i = 0; i < 400; i++) {
+			int a = random.nextInt(users.size());
+			int b = (a + 1 + random.nextInt(users.size() - 1)) % users.size();
+			Long white = users.get(a).getId();
+			Long black = users.get(b).getId();
+			int outcome = random.nextInt(3);
+			GameEntity game = gameService.createGame(white, black);
+			gameService.finishGame(game, outcome == 0 ? white : outcome == 1 ? black : null, outcome == 2 ? "stalemate" : "resign");
+		}
+		Map<Long, LeaderboardEntry> incremental = users.stream()
+				.collect(Collectors.toMap(UserEntity::getId, user -> ratingService.entry(user.getId())));
+
+		assertTrue(ratingService.recompute() >= 400);
+		for (UserEntity user : users) {
+			UserEntity stored = userRepository.findById(user.getId()).orElseThrow();
+			assertEquals(incremental.get(user.getId()).rating(), stored.getRating(), "rating of " + user.getUsername());
+			assertEquals(incremental.get(user.getId()).gamesPlayed(), stored.getGamesPlayed());
+			assertEquals(stored.getRating(), ratingService.entry(user.getId()).rating());
+		}
+	}
+
+	@Test
+	void levelsOnlyHoldGamesWithDistinctPlayers() {
+		Random random = new Random(7);
+		int players = 5_000;
+		int[] white = new int[50_000];
+		int[] black = new int[white.length];
+		for (int i = 0; i < white.length; i++) {
+			white[i] = random.nextInt(players);
+			black[i] = (white[i] + 1 + random.nextInt(players - 1)) % players;
+		}
+		RatingService.Levels levels = RatingService.levels(white, black, players);
+
+		int[] lastLevel = new int[players];
+		Arrays.fill(lastLevel, -1);
+		int[] levelOf = new int[white.length];
+		Set<Integer> seen = new HashSet<>();
+		for (int level = 0; level < levels.count(); level++) {
+			Set<Integer> busy = new HashSet<>();
+			for (int slot = levels.starts()[level]; slot < levels.starts()[level + 1]; slot++) {
+				int game = levels.order()[slot];
+				assertTrue(seen.add(game));
+				assertTrue(busy.add(white[game]) && busy.add(black[game]), "a player appears twice in level " + level);
+				levelOf[game] = level;
+			}
+		}
+		assertEquals(white.length, seen.size());
+		for (int game = 0; game < white.length; game++) {
+			assertTrue(levelOf[game] > lastLevel[white[game]] && levelOf[game] > lastLevel[black[game]]);
+			lastLevel[white[game]] = levelOf[game];
+			lastLevel[black[game]] = levelOf[game];
+		}
+		assertTrue(levels.count() < white.length / 100, "levels should be wide enough to run in parallel");
+	}
+
+	private List<UserEntity> newUsers(String prefix, int count) {
+		List<UserEntity> users = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			users.add(userRepository.save(new UserEntity(prefix + "-" + System.nanoTime() + "-" + i, "hash")));
+		}
+		return users;
+	}
+}
@@ -0,0 +1,184 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.game.Move;
+import com.example.chess.game.Piece;
+import com.example.chess.game.Position;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BinaryProtocolTest {
+	private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+	private final BinaryProtocol.Frame frame = new BinaryProtocol.Frame();
+
+	@Test
+	void clientFramesRoundTrip() {
+		short move = (short) Move.promotion(52, 60, Piece.KNIGHT, false);
+		BinaryProtocol.encodeMove(buffer, 42L, move);
+		decode();
+		assertEquals(BinaryProtocol.MOVE, frame.type());
+		assertEquals(42L, frame.gameId());
+		assertEquals(move, frame.move());
+
+		BinaryProtocol.encodeResign(buffer, 43L);
+		decode();
+		assertEquals(BinaryProtocol.RESIGN, frame.type());
+		assertEquals(43L, frame.gameId());
+
+		BinaryProtocol.encodeInvite(buffer, 7L);
+		decode();
+		assertEquals(BinaryProtocol.INVITE, frame.type());
+		assertEquals(7L, frame.userId());
+
+		BinaryProtocol.encodeInviteResponse(buffer, 8L, true);
+		decode();
+		assertEquals(BinaryProtocol.INVITE_RESPONSE, frame.type());
+		assertEquals(8L, frame.userId());
+		assertTrue(frame.flag());
+
+		BinaryProtocol.encodePresenceSync(buffer);
+		decode();
+		assertEquals(BinaryProtocol.PRESENCE_SYNC, frame.type());
+
+		BinaryProtocol.encodeWatch(buffer, 44L);
+		decode();
+		assertEquals(BinaryProtocol.WATCH, frame.type());
+		assertEquals(44L, frame.gameId());
+
+		BinaryProtocol.encodeQueueJoin(buffer, "3+2");
+		decode();
+		assertEquals(BinaryProtocol.QUEUE_JOIN, frame.type());
+		assertEquals("3+2", frame.text().toString());
+
+		BinaryProtocol.encodeQueueLeave(buffer);
+		decode();
+		assertEquals(BinaryProtocol.QUEUE_LEAVE, frame.type());
+	}
+
+	@Test
+	void serverFramesRoundTrip() {
+		short move = (short) Move.of(4, 6, Move.KING_CASTLE);
+		BinaryProtocol.encodeMoveEvent(buffer, 42L, 9, move, Piece.of(Piece.WHITE, Piece.KING), 1L, 61_500, -1);
+		decode();
+		assertEquals(BinaryProtocol.MOVE_EVENT, frame.type());
+		assertEquals(9, frame.moveNumber());
+		assertEquals(move, frame.move());
+		assertEquals("wK", Piece.name(frame.piece()));
+		assertEquals(1L, frame.userId());
+		assertEquals(61_500, frame.whiteClockMillis());
+		assertEquals(-1, frame.blackClockMillis());
+
+		BinaryProtocol.encodeGameSnapshot(buffer, 42L, 1L, 2L, false, 0, Position.START_FEN);
+		decode();
+		assertEquals(BinaryProtocol.GAME_SNAPSHOT, frame.type());
+		assertEquals(42L, frame.gameId());
+		assertEquals(1L, frame.userId());
+		assertEquals(2L, frame.blackUserId());
+		assertFalse(frame.flag());
+		assertEquals(Position.START_FEN, frame.text().toString());
+
+		BinaryProtocol.encodeGameStart(buffer, 42L, false, 3L, "3+2");
+		decode();
+		assertEquals(BinaryProtocol.GAME_START, frame.type());
+		assertFalse(frame.flag());
+		assertEquals(3L, frame.userId());
+		assertEquals("3+2", frame.text().toString());
+
+		BinaryProtocol.encodeGameOver(buffer, 42L, null, "stalemate");
+		decode();
+		assertEquals(BinaryProtocol.GAME_OVER, frame.type());
+		assertEquals(0L, frame.userId());
+		assertEquals("stalemate", frame.text().toString());
+
+		BinaryProtocol.encodeInviteEvent(buffer, 5L, "Zoë ♞ 😀");
+		decode();
+		assertEquals(BinaryProtocol.INVITE_EVENT, frame.type());
+		assertEquals("Zoë ♞ 😀", frame.text().toString());
+
+		BinaryProtocol.encodeInviteSent(buffer, 6L, "bob");
+		decode();
+		assertEquals(BinaryProtocol.INVITE_SENT, frame.type());
+		assertEquals("bob", frame.text().toString());
+
+		BinaryProtocol.encodeQueueJoined(buffer, "30s+0");
+		decode();
+		assertEquals(BinaryProtocol.QUEUE_JOINED, frame.type());
+		assertEquals("30s+0", frame.text().toString());
+
+		BinaryProtocol.encodeInviteDeclined(buffer, 6L);
+		decode();
+		assertEquals(BinaryProtocol.INVITE_DECLINED, frame.type());
+		assertEquals(6L, frame.userId());
+
+		BinaryProtocol.encodeOnlineUsers(buffer, 12L, List.of(new OnlineUser(1L, "alice"), new OnlineUser(2L, "bob")));
+		decode();
+		assertEquals(BinaryProtocol.ONLINE_USERS, frame.type());
+		assertEquals(12L, frame.version());
+		assertEquals(2, frame.userCount());
+		assertEquals(2L, frame.userId(1));
+		assertEquals("alice", frame.username(0).toString());
+
+		BinaryProtocol.encodePresence(buffer, 12L, 13L, List.of(new OnlineUser(3L, "carol")), List.of(1L, 2L));
+		decode();
+		assertEquals(BinaryProtocol.PRESENCE, frame.type());
+		assertEquals(12L, frame.baseVersion());
+		assertEquals(13L, frame.version());
+		assertEquals(1, frame.userCount());
+		assertEquals("carol", frame.username(0).toString());
+		assertEquals(2, frame.leftCount());
+		assertEquals(2L, frame.leftId(1));
+
+		BinaryProtocol.encodeError(buffer, null);
+		decode();
+		assertEquals(BinaryProtocol.ERROR, frame.type());
+		assertEquals("", frame.text().toString());
+	}
+
+	@Test
+	void rejectsTruncatedAndUnknownFrames() {
+		BinaryProtocol.encodeMove(buffer, 42L, (short) 1);
+		buffer.flip().limit(buffer.limit() - 1);
+		assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.decode(buffer, frame));
+		assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.decode(ByteBuffer.wrap(new byte[] { 0x7F }), frame));
+		assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.decode(ByteBuffer.allocate(0), frame));
+	}
+
+	@Test
+	void encodeAndDecodeDoNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		short move = (short) Move.of(12, 28, Move.DOUBLE_PAWN_PUSH);
+		for (int i = 0; i < 20_000; i++) {
+			roundTripMoveAndError(move, i);
+		}
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < 100_000; i++) {
+			roundTripMoveAndError(move, i);
+		}
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+		assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+	}
+
+	private void roundTripMoveAndError(short move, int i) {
+		buffer.clear();
+		BinaryProtocol.encodeMoveEvent(buffer, i, i, move, Piece.of(Piece.WHITE, Piece.PAWN), 1L, 1_000, 2_000);
+		buffer.flip();
+		BinaryProtocol.decode(buffer, frame);
+		buffer.clear();
+		BinaryProtocol.encodeError(buffer, "Not your turn");
+		buffer.flip();
+		BinaryProtocol.decode(buffer, frame);
+	}
+
+	private void decode() {
+		buffer.flip();
+		BinaryProtocol.decode(buffer, frame);
+		assertFalse(buffer.hasRemaining());
+		buffer.clear();
+	}
+}
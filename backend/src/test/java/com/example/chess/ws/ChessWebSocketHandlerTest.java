@@ -0,0 +1,159 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.auth.AuthRequest;
+import com.example.chess.auth.AuthResponse;
+import com.example.chess.auth.AuthService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ChessWebSocketHandlerTest {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private AuthService authService;
+
+	@Test
+	void negotiatesBinaryProtocolAtHandshake() throws Exception {
+		AuthResponse user = authService.register(new AuthRequest("binary-" + System.nanoTime(), "secret")).join();
+		Client client = new Client();
+		WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+		headers.setSecWebSocketProtocol(List.of(BinaryProtocol.NAME));
+		WebSocketSession session = new StandardWebSocketClient()
+				.execute(client, headers, URI.create("ws://localhost:" + port + "/ws?token=" + user.token()))
+				.get(5, TimeUnit.SECONDS);
+
+		assertEquals(BinaryProtocol.NAME, session.getAcceptedProtocol());
+		BinaryProtocol.Frame frame = new BinaryProtocol.Frame();
+		BinaryProtocol.decode(assertInstanceOf(BinaryMessage.class, client.next()).getPayload(), frame);
+		assertEquals(BinaryProtocol.ONLINE_USERS, frame.type());
+
+		ByteBuffer resign = ByteBuffer.allocate(16);
+		BinaryProtocol.encodeResign(resign, Long.MAX_VALUE);
+		session.sendMessage(new BinaryMessage(resign.flip()));
+		BinaryProtocol.decode(assertInstanceOf(BinaryMessage.class, client.next()).getPayload(), frame);
+		assertEquals(BinaryProtocol.ERROR, frame.type());
+		assertEquals("Game not found", frame.text().toString());
+		session.close();
+	}
+
+	@Test
+	void fallsBackToJsonWithoutSubprotocol() throws Exception {
+		AuthResponse user = authService.register(new AuthRequest("json-" + System.nanoTime(), "secret")).join();
+		Client client = new Client();
+		WebSocketSession session = new StandardWebSocketClient()
+				.execute(client, new WebSocketHttpHeaders(), URI.create("ws://localhost:" + port + "/ws?token=" + user.token()))
+				.get(5, TimeUnit.SECONDS);
+
+		TextMessage message = assertInstanceOf(TextMessage.class, client.next());
+		assertTrue(message.getPayload().contains("\"online_users\""));
+		session.close();
+	}
+
+	@Test
+	void pairsPlayersQueuedForTheSameTimeControl() throws Exception {
+		AuthResponse alice = authService.register(new AuthRequest("queue-a-" + System.nanoTime(), "secret")).join();
+		AuthResponse bob = authService.register(new AuthRequest("queue-b-" + System.nanoTime(), "secret")).join();
+		Client aliceClient = new Client();
+		Client bobClient = new Client();
+		WebSocketSession aliceSession = connect(aliceClient, alice);
+		WebSocketSession bobSession = connect(bobClient, bob);
+
+		aliceSession.sendMessage(new TextMessage("{\"type\":\"queue_join\",\"timeControl\":\"7+1\"}"));
+		assertEquals("7+1", aliceClient.next("queue_joined").path("timeControl").asText());
+		bobSession.sendMessage(new TextMessage("{\"type\":\"queue_join\",\"timeControl\":\"7+1\"}"));
+		JsonNode aliceStart = aliceClient.next("game_start");
+		JsonNode bobStart = bobClient.next("game_start");
+		assertEquals(aliceStart.path("gameId").asLong(), bobStart.path("gameId").asLong());
+		assertEquals((long) bob.userId(), aliceStart.path("opponentId").asLong());
+		assertNotEquals(aliceStart.path("color").asText(), bobStart.path("color").asText());
+		assertEquals("7+1", aliceStart.path("timeControl").asText());
+		assertEquals(420_000L, aliceStart.path("blackClockMillis").asLong());
+
+		bobSession.sendMessage(new TextMessage("{\"type\":\"queue_join\",\"timeControl\":\"7+1\"}"));
+		assertEquals("Finish your current game first", bobClient.next("error").path("message").asText());
+
+		bobSession.sendMessage(new TextMessage("{\"type\":\"queue_join\",\"timeControl\":\"fast\"}"));
+		assertEquals("Invalid time control", bobClient.next("error").path("message").asText());
+		aliceSession.close();
+		bobSession.close();
+	}
+
+	@Test
+	void flagFallFinishesTheGameOnTime() throws Exception {
+		AuthResponse alice = authService.register(new AuthRequest("clock-a-" + System.nanoTime(), "secret")).join();
+		AuthResponse bob = authService.register(new AuthRequest("clock-b-" + System.nanoTime(), "secret")).join();
+		Client aliceClient = new Client();
+		Client bobClient = new Client();
+		WebSocketSession aliceSession = connect(aliceClient, alice);
+		WebSocketSession bobSession = connect(bobClient, bob);
+
+		aliceSession.sendMessage(new TextMessage("{\"type\":\"queue_join\",\"timeControl\":\"1s+0\"}"));
+		bobSession.sendMessage(new TextMessage("{\"type\":\"queue_join\",\"timeControl\":\"1s+0\"}"));
+		JsonNode aliceStart = aliceClient.next("game_start");
+		long started = System.nanoTime();
+		boolean aliceWhite = "white".equals(aliceStart.path("color").asText());
+		JsonNode gameOver = bobClient.next("game_over");
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+		assertEquals("timeout", gameOver.path("endReason").asText());
+		assertEquals((long) (aliceWhite ? bob.userId() : alice.userId()), gameOver.path("winnerUserId").asLong());
+		assertTrue(elapsedMillis < 1_500, "flag fell after " + elapsedMillis + " ms");
+		aliceSession.close();
+		bobSession.close();
+	}
+
+	private WebSocketSession connect(Client client, AuthResponse user) throws Exception {
+		return new StandardWebSocketClient()
+				.execute(client, new WebSocketHttpHeaders(), URI.create("ws://localhost:" + port + "/ws?token=" + user.token()))
+				.get(5, TimeUnit.SECONDS);
+	}
+
+	private static final class Client extends AbstractWebSocketHandler {
+		private final BlockingQueue<WebSocketMessage<?>> received = new LinkedBlockingQueue<>();
+
+		@Override
+		public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) {
+			received.add(message);
+		}
+
+		WebSocketMessage<?> next() throws InterruptedException {
+			WebSocketMessage<?> message = received.poll(5, TimeUnit.SECONDS);
+			assertTrue(message != null, "no message received");
+			return message;
+		}
+
+		JsonNode next(String type) throws Exception {
+			while (true) {
+				JsonNode message = new ObjectMapper().readTree(((TextMessage) next()).getPayload());
+				if (type.equals(message.path("type").asText())) {
+					return message;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.cluster.LoopbackMessageBus;
+import com.example.chess.game.GameEntity;
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.GameStatus;
+import com.example.chess.game.Position;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+class ClusterRouterTest {
+	private final String hub = UUID.randomUUID().toString();
+	private final Node a = new Node("a");
+	private final Node b = new Node("b");
+
+	@AfterEach
+	void stop() {
+		a.bus.destroy();
+		b.bus.destroy();
+	}
+
+	@Test
+	void replicatesPresenceAndRoutesEventsToTheUsersNode() throws Exception {
+		RecordingSession alice = a.connect(1L, "alice", null);
+		RecordingSession bob = b.connect(2L, "bob", BinaryProtocol.NAME);
+		await(() -> a.router.isOnline(2L) && b.router.isOnline(1L));
+		assertEquals("bob", a.router.username(2L));
+
+		assertTrue(a.router.sendToUser(2L, new OutboundEvent(format -> format.invite(1L, "alice"))));
+		await(() -> sent(bob) == 1);
+		BinaryProtocol.Frame frame = new BinaryProtocol.Frame();
+		BinaryProtocol.decode(ByteBuffer.wrap(((BinaryMessage) message(bob, 0)).getPayload().array()), frame);
+		assertEquals(BinaryProtocol.INVITE_EVENT, frame.type());
+		assertEquals(1L, frame.userId());
+		assertEquals("alice", frame.text().toString());
+
+		b.router.sendToUser(1L, new OutboundEvent(format -> format.inviteDeclined(2L)));
+		await(() -> sent(alice) == 1);
+		JsonNode declined = new ObjectMapper().readTree(((TextMessage) message(alice, 0)).getPayload());
+		assertEquals(2L, declined.path("fromUserId").asLong());
+
+		b.router.userLeft(2L);
+		await(() -> !a.router.isOnline(2L));
+		assertFalse(a.router.sendToUser(2L, new OutboundEvent(format -> format.error("gone"))));
+	}
+
+	@Test
+	void forwardsCommandsToTheGameOwner() throws Exception {
+		a.connect(1L, "alice", null);
+		b.connect(2L, "bob", null);
+		await(() -> a.router.isOnline(2L) && b.router.isOnline(1L));
+		b.router.gameCreated(7L);
+
+		await(() -> a.router.forwardMove(7L, 1L, "e2", "e4", null));
+		a.router.forwardResign(7L, 1L);
+		await(() -> b.commands.size() == 2);
+		ClusterRouter.RemoteCommand move = b.commands.get(0);
+		assertEquals(7L, move.gameId());
+		assertEquals(1L, move.userId());
+		assertEquals("e4", move.to());
+		assertNull(move.promotion());
+		assertEquals(ClusterRouter.RemoteCommand.Type.RESIGN, b.commands.get(1).type());
+		assertFalse(b.router.forwardMove(7L, 2L, "e7", "e5", null));
+
+		b.router.gameFinished(7L);
+		await(() -> !a.router.forwardMove(7L, 1L, "d2", "d4", null));
+	}
+
+	@Test
+	void takesOverWhenAPeerGoesQuiet() throws Exception {
+		a.connect(1L, "alice", null);
+		b.connect(2L, "bob", null);
+		b.router.gameCreated(9L);
+		await(() -> a.router.isOnline(2L) && a.router.forwardResign(9L, 1L));
+
+		b.bus.destroy();
+		Thread.sleep(300);
+		a.router.heartbeat();
+		assertFalse(a.router.isOnline(2L));
+		assertFalse(a.router.forwardMove(9L, 1L, "e2", "e4", null));
+	}
+
+	@Test
+	void streamsGamesToSpectatorsOnOtherNodes() throws Exception {
+		a.connect(1L, "alice", null);
+		RecordingSession carol = b.connect(3L, "carol", null);
+		await(() -> a.router.isOnline(3L) && b.router.isOnline(1L));
+		a.router.gameCreated(7L);
+		await(() -> b.router.forwardWatch(7L, 3L));
+		await(() -> a.commands.size() == 1);
+		assertEquals(ClusterRouter.RemoteCommand.Type.WATCH, a.commands.get(0).type());
+
+		GameSnapshot snapshot = new GameSnapshot(7L, 1L, 2L, GameStatus.ACTIVE, 0, Position.START_FEN);
+		a.router.sendSnapshot(3L, 7L, new OutboundEvent(format -> format.gameSnapshot(snapshot)));
+		GameEntity game = new GameEntity(1L, 2L);
+		ReflectionTestUtils.setField(game, "id", 7L);
+		a.router.broadcastToGame(game, new OutboundEvent(format -> format.error("e2e4")));
+		await(() -> sent(carol) == 2);
+		ObjectMapper objectMapper = new ObjectMapper();
+		assertEquals("game_snapshot", objectMapper.readTree(((TextMessage) message(carol, 0)).getPayload()).path("type").asText());
+		assertEquals("e2e4", objectMapper.readTree(((TextMessage) message(carol, 1)).getPayload()).path("message").asText());
+		assertEquals(1, b.spectators.spectators());
+
+		a.router.gameFinished(7L);
+		await(() -> b.spectators.spectators() == 0);
+	}
+
+	private static int sent(RecordingSession session) {
+		synchronized (session) {
+			return session.sent.size();
+		}
+	}
+
+	private static WebSocketMessage<?> message(RecordingSession session, int index) {
+		synchronized (session) {
+			return session.sent.get(index);
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met in time");
+			Thread.sleep(10);
+		}
+	}
+
+	private final class Node {
+		final OnlineUserRegistry registry = new OnlineUserRegistry();
+		final SessionManager sessions = PresenceBroadcasterTest.newSessionManager();
+		final WireFormats wireFormats = new WireFormats();
+		final SpectatorHub spectators = new SpectatorHub(new Executor[] { Runnable::run }, wireFormats, new SimpleMeterRegistry());
+		final LoopbackMessageBus bus;
+		final ClusterRouter router;
+		final List<ClusterRouter.RemoteCommand> commands = new CopyOnWriteArrayList<>();
+
+		Node(String name) {
+			bus = new LoopbackMessageBus(name, hub);
+			router = new ClusterRouter(bus, sessions, new PresenceBroadcaster(registry, sessions, wireFormats), spectators, registry,
+					wireFormats, Duration.ofMillis(200));
+			router.onCommand(commands::add);
+		}
+
+		RecordingSession connect(long userId, String username, String protocol) {
+			RecordingSession session = new RecordingSession(username, protocol);
+			wireFormats.negotiate(session);
+			sessions.register(userId, session);
+			router.userJoined(userId, username);
+			return session;
+		}
+	}
+}
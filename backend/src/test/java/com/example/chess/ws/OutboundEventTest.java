@@ -0,0 +1,49 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+
+class OutboundEventTest {
+	private final WireFormat json = new JsonWireFormat(new ObjectMapper());
+	private final WireFormat binary = new BinaryWireFormat();
+
+	@Test
+	void encodesOncePerFormat() {
+		AtomicInteger encodes = new AtomicInteger();
+		List<OnlineUser> users = List.of(new OnlineUser(1L, "alice"));
+		OutboundEvent event = new OutboundEvent(format -> {
+			encodes.incrementAndGet();
+			return format.onlineUsers(1L, users);
+		});
+
+		EncodedFrame first = event.frameFor(json);
+		for (int i = 0; i < 10; i++) {
+			assertSame(first, event.frameFor(json));
+			event.frameFor(binary);
+		}
+		assertEquals(2, encodes.get());
+	}
+
+	@Test
+	void binaryFramesCanBeSentRepeatedly() {
+		EncodedFrame frame = binary.inviteDeclined(5L);
+		BinaryMessage first = (BinaryMessage) frame.message();
+		first.getPayload().position(first.getPayloadLength());
+		BinaryMessage second = (BinaryMessage) frame.message();
+		assertNotSame(first.getPayload(), second.getPayload());
+		assertEquals(frame.size(), second.getPayload().remaining());
+	}
+
+	@Test
+	void errorFramesArePreEncoded() {
+		assertSame(json.error("Not your turn"), json.error("Not your turn"));
+		assertSame(binary.error("Illegal move"), binary.error("Illegal move"));
+	}
+}
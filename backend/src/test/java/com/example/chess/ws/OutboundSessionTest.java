@@ -0,0 +1,184 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+
+class OutboundSessionTest {
+	private static final EncodedFrame MOVE = EncodedFrame.text("m".repeat(40));
+	private static final EncodedFrame PRESENCE = EncodedFrame.text("p".repeat(40));
+
+	private final ExecutorService sender = Executors.newFixedThreadPool(4);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@AfterEach
+	void tearDown() {
+		sender.shutdownNow();
+	}
+
+	@Test
+	void slowSessionDoesNotBlockBroadcaster() throws Exception {
+		SessionManager manager = new SessionManager(sender, Duration.ofSeconds(10), 1024, meterRegistry);
+		GatedSession slow = new GatedSession("slow");
+		RecordingSession fast = new RecordingSession("fast", null);
+		OutboundSession slowOut = manager.register(1L, slow);
+		OutboundSession fastOut = manager.register(2L, fast);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(slowOut.send(MOVE, false));
+			assertTrue(fastOut.send(MOVE, false));
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+		awaitSent(fast, 10);
+		assertEquals(0, slow.sent.size());
+		assertTrue(slowOut.backlogBytes() >= 10 * MOVE.size() - MOVE.size());
+
+		slow.gate.countDown();
+		awaitSent(slow, 10);
+		assertEquals(1, slow.maxConcurrentSends.get());
+		assertEquals(0, slowOut.backlogBytes());
+	}
+
+	@Test
+	void dropsPresenceKeepsMovesAndDisconnectsWhenFull() throws Exception {
+		SessionManager manager = new SessionManager(sender, Duration.ofSeconds(10), 200, meterRegistry);
+		GatedSession slow = new GatedSession("slow");
+		OutboundSession out = manager.register(1L, slow);
+
+		assertTrue(out.send(MOVE, false));
+		awaitInFlight(slow);
+		for (int i = 0; i < 4; i++) {
+			assertTrue(out.send(PRESENCE, true));
+		}
+		assertFalse(out.send(PRESENCE, true), "presence over the limit is dropped");
+		assertTrue(out.send(MOVE, false), "a move evicts queued presence");
+		assertTrue(out.send(MOVE, false));
+		assertEquals(3.0, meterRegistry.get("chess.ws.outbound.dropped").counter().count());
+		assertTrue(slow.isOpen());
+
+		assertTrue(out.send(MOVE, false));
+		assertTrue(out.send(MOVE, false));
+		assertFalse(out.send(MOVE, false), "a move that cannot fit closes the session");
+		awaitClosed(slow);
+		assertEquals(CloseStatus.SESSION_NOT_RELIABLE.getCode(), slow.closeStatus.getCode());
+		assertEquals(1.0, meterRegistry.get("chess.ws.outbound.disconnects").counter().count());
+		assertFalse(out.isOpen());
+	}
+
+	@Test
+	void closesSessionStuckPastSendTimeLimit() throws Exception {
+		SessionManager manager = new SessionManager(sender, Duration.ofMillis(50), 1024, meterRegistry);
+		GatedSession stuck = new GatedSession("stuck");
+		OutboundSession out = manager.register(1L, stuck);
+		assertTrue(out.send(MOVE, false));
+		awaitInFlight(stuck);
+
+		manager.closeStuckSessions();
+		assertTrue(stuck.isOpen());
+		Thread.sleep(100);
+		manager.closeStuckSessions();
+		awaitClosed(stuck);
+		assertFalse(out.send(MOVE, false));
+	}
+
+	private static void awaitSent(RecordingSession session, int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (sentCount(session) < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, sentCount(session));
+	}
+
+	@Test
+	void drainsBulkFramesOnTheBulkPoolUntilAnEssentialFrameArrives() {
+		List<Runnable> main = new ArrayList<>();
+		List<Runnable> bulk = new ArrayList<>();
+		SessionManager manager = new SessionManager(main::add, bulk::add, Duration.ofSeconds(10), 1024, meterRegistry);
+		RecordingSession session = new RecordingSession("spectator", null);
+		OutboundSession out = manager.register(1L, session);
+
+		assertTrue(out.sendBulk(PRESENCE));
+		assertTrue(out.sendBulk(PRESENCE));
+		assertEquals(1, bulk.size());
+		assertEquals(0, main.size());
+		bulk.remove(0).run();
+		assertEquals(2, session.sent.size());
+
+		assertTrue(out.sendBulk(PRESENCE));
+		assertTrue(out.send(MOVE, false));
+		assertEquals(1, main.size());
+		main.remove(0).run();
+		assertEquals(4, session.sent.size());
+		bulk.remove(0).run();
+		assertEquals(4, session.sent.size());
+		assertEquals(0, out.backlogBytes());
+	}
+
+	private static int sentCount(RecordingSession session) {
+		synchronized (session) {
+			return session.sent.size();
+		}
+	}
+
+	private static void awaitInFlight(GatedSession session) throws InterruptedException {
+		assertTrue(session.entered.await(5, TimeUnit.SECONDS));
+	}
+
+	private static void awaitClosed(GatedSession session) throws InterruptedException {
+		assertTrue(session.closed.await(5, TimeUnit.SECONDS));
+	}
+
+	private static final class GatedSession extends RecordingSession {
+		final CountDownLatch gate = new CountDownLatch(1);
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch closed = new CountDownLatch(1);
+		final AtomicInteger concurrentSends = new AtomicInteger();
+		final AtomicInteger maxConcurrentSends = new AtomicInteger();
+		volatile CloseStatus closeStatus;
+
+		GatedSession(String id) {
+			super(id, null);
+		}
+
+		@Override
+		public void sendMessage(WebSocketMessage<?> message) {
+			maxConcurrentSends.accumulateAndGet(concurrentSends.incrementAndGet(), Math::max);
+			try {
+				entered.countDown();
+				gate.await();
+				super.sendMessage(message);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} finally {
+				concurrentSends.decrementAndGet();
+			}
+		}
+
+		@Override
+		public boolean isOpen() {
+			return closed.getCount() > 0;
+		}
+
+		@Override
+		public void close(CloseStatus status) {
+			closeStatus = status;
+			closed.countDown();
+			gate.countDown();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+class PresenceBroadcasterTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final OnlineUserRegistry registry = new OnlineUserRegistry();
+	private final SessionManager sessions = newSessionManager();
+	private final WireFormats wireFormats = new WireFormats();
+	private final PresenceBroadcaster presence = new PresenceBroadcaster(registry, sessions, wireFormats);
+
+	@Test
+	void sendsSnapshotThenCoalescedDeltas() throws Exception {
+		RecordingSession alice = connect(1L);
+		presence.flush();
+		JsonNode snapshot = last(alice);
+		assertEquals("online_users", snapshot.path("type").asText());
+		assertEquals(1, snapshot.path("users").size());
+
+		RecordingSession bob = connect(2L);
+		RecordingSession carol = connect(3L);
+		presence.userLeft(3L);
+		sessions.unregister(3L, carol);
+		presence.flush();
+
+		JsonNode delta = last(alice);
+		assertEquals("presence", delta.path("type").asText());
+		assertEquals(snapshot.path("version").asLong(), delta.path("baseVersion").asLong());
+		assertEquals(1, delta.path("joined").size());
+		assertEquals(2L, delta.path("joined").get(0).path("id").asLong());
+		assertEquals(3L, delta.path("left").get(0).asLong());
+		assertEquals(2, alice.sent.size());
+		assertEquals("online_users", last(bob).path("type").asText());
+		assertEquals(1, bob.sent.size());
+	}
+
+	@Test
+	void laggingSessionGetsFreshSnapshot() throws Exception {
+		RecordingSession alice = connect(1L);
+		presence.flush();
+		alice.getAttributes().remove("presenceVersion");
+		connect(2L);
+		presence.flush();
+		assertEquals("online_users", last(alice).path("type").asText());
+		assertEquals(2, last(alice).path("users").size());
+
+		presence.requestSnapshot(alice);
+		presence.flush();
+		assertEquals(3, alice.sent.size());
+		presence.flush();
+		assertEquals(3, alice.sent.size());
+	}
+
+	@Test
+	void bytesPerLoginGrowLinearlyWithConnectedUsers() {
+		int[] populations = { 250, 500, 1000, 2000 };
+		List<long[]> rows = new ArrayList<>();
+		for (int connected : populations) {
+			rows.add(measureLogin(connected));
+		}
+		for (int i = 1; i < rows.size(); i++) {
+			double deltaGrowth = (double) rows.get(i)[0] / rows.get(i - 1)[0];
+			double fullGrowth = (double) rows.get(i)[1] / rows.get(i - 1)[1];
+			assertTrue(deltaGrowth < 2.5, "delta bytes grew " + deltaGrowth + "x");
+			assertTrue(fullGrowth > 3.5, "full-list bytes grew " + fullGrowth + "x");
+		}
+	}
+
+	private long[] measureLogin(int connected) {
+		OnlineUserRegistry users = new OnlineUserRegistry();
+		SessionManager manager = newSessionManager();
+		PresenceBroadcaster broadcaster = new PresenceBroadcaster(users, manager, wireFormats);
+		List<RecordingSession> all = new ArrayList<>();
+		for (long id = 1; id <= connected; id++) {
+			all.add(connect(broadcaster, manager, id));
+		}
+		broadcaster.flush();
+		long before = all.stream().mapToLong(session -> session.bytesSent).sum();
+
+		RecordingSession newcomer = connect(broadcaster, manager, connected + 1L);
+		broadcaster.flush();
+		long deltaBytes = all.stream().mapToLong(session -> session.bytesSent).sum() - before + newcomer.bytesSent;
+
+		int fullListBytes = wireFormats.of(newcomer).onlineUsers(1L, List.copyOf(users.listOnline())).size();
+		return new long[] { deltaBytes, (long) fullListBytes * (connected + 1) };
+	}
+
+	static SessionManager newSessionManager() {
+		return new SessionManager(Runnable::run, Duration.ofSeconds(10), 512 * 1024, new SimpleMeterRegistry());
+	}
+
+	private RecordingSession connect(long userId) {
+		return connect(presence, sessions, userId);
+	}
+
+	private RecordingSession connect(PresenceBroadcaster broadcaster, SessionManager manager, long userId) {
+		RecordingSession session = new RecordingSession("s" + userId, null);
+		manager.register(userId, session);
+		broadcaster.userJoined(userId, "user-" + userId);
+		broadcaster.requestSnapshot(session);
+		return session;
+	}
+
+	private JsonNode last(RecordingSession session) throws Exception {
+		return objectMapper.readTree(((TextMessage) session.sent.get(session.sent.size() - 1)).getPayload());
+	}
+}
@@ -0,0 +1,104 @@
+package com.example.chess.ws;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.chess.game.GameSnapshot;
+import com.example.chess.game.GameStatus;
+import com.example.chess.game.Position;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+
+class SpectatorHubTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final WireFormats wireFormats = new WireFormats();
+	private final SpectatorHub hub = new SpectatorHub(new Executor[] { Runnable::run }, wireFormats, new SimpleMeterRegistry());
+	private final List<Runnable> pendingSends = new ArrayList<>();
+
+	@Test
+	void sendsSnapshotThenEventsEncodedOnce() throws Exception {
+		SessionManager sessions = PresenceBroadcasterTest.newSessionManager();
+		RecordingSession alice = new RecordingSession("alice", null);
+		RecordingSession bob = new RecordingSession("bob", null);
+		hub.watch(5L, sessions.register(1L, alice), snapshot(5L, 0));
+		hub.watch(5L, sessions.register(2L, bob), snapshot(5L, 0));
+		int[] encodings = new int[1];
+		hub.publish(5L, new OutboundEvent(format -> {
+			encodings[0]++;
+			return format.error("move 1");
+		}));
+		hub.publish(6L, new OutboundEvent(format -> format.error("other game")));
+
+		assertEquals(1, encodings[0]);
+		assertEquals(2, hub.spectators());
+		assertEquals("game_snapshot", json(alice, 0).path("type").asText());
+		assertEquals(Position.START_FEN, json(alice, 0).path("fen").asText());
+		assertEquals("move 1", json(alice, 1).path("message").asText());
+		assertEquals(2, bob.sent.size());
+
+		hub.unwatch(5L, sessions.get(2L));
+		hub.publish(5L, new OutboundEvent(format -> format.error("move 2")));
+		assertEquals(3, alice.sent.size());
+		assertEquals(2, bob.sent.size());
+
+		hub.close(5L);
+		hub.publish(5L, new OutboundEvent(format -> format.error("move 3")));
+		assertEquals(3, alice.sent.size());
+		assertEquals(0, hub.spectators());
+	}
+
+	@Test
+	void slowSpectatorIsResyncedWithSnapshot() throws Exception {
+		SessionManager sessions = new SessionManager(pendingSends::add, Duration.ofSeconds(10), 200, new SimpleMeterRegistry());
+		RecordingSession slow = new RecordingSession("slow", null);
+		OutboundSession out = sessions.register(1L, slow);
+		List<Long> catchUps = new ArrayList<>();
+		hub.onCatchUp((gameId, session) -> catchUps.add(gameId));
+
+		hub.watch(5L, out, snapshot(5L, 0));
+		hub.publish(5L, move("move 1"));
+		hub.publish(5L, move("move 2"));
+		drain();
+		assertEquals(1, slow.sent.size());
+
+		hub.publish(5L, move("move 3"));
+		hub.publish(5L, move("move 4"));
+		assertEquals(List.of(5L), catchUps);
+		drain();
+		assertEquals(1, slow.sent.size());
+
+		hub.watch(5L, out, snapshot(5L, 3));
+		drain();
+		hub.publish(5L, move("move 4"));
+		drain();
+		assertEquals(3, slow.sent.size());
+		assertEquals(3, json(slow, 1).path("moveNumber").asInt());
+		assertTrue(json(slow, 2).path("message").asText().startsWith("move 4"));
+	}
+
+	private void drain() {
+		while (!pendingSends.isEmpty()) {
+			pendingSends.remove(0).run();
+		}
+	}
+
+	private static OutboundEvent snapshot(long gameId, int moveCount) {
+		GameSnapshot snapshot = new GameSnapshot(gameId, 1L, 2L, GameStatus.ACTIVE, moveCount, Position.START_FEN);
+		return new OutboundEvent(format -> format.gameSnapshot(snapshot));
+	}
+
+	private static OutboundEvent move(String text) {
+		return new OutboundEvent(format -> format.error(text + " " + "x".repeat(150)));
+	}
+
+	private JsonNode json(RecordingSession session, int index) throws Exception {
+		return objectMapper.readTree(((TextMessage) session.sent.get(index)).getPayload());
+	}
+}
@@ -33,6 +33,8 @@ export class GameComponent implements OnInit, OnDestroy {
   files = ['a', 'b', 'c', 'd', 'e', 'f', 'g', 'h'];
   ranks = [8, 7, 6, 5, 4, 3, 2, 1];
   replayIndex = 0;
+  private movesEtag: string | null = null;
+  private synced = false;
   isReplaying = false;
   replaySpeedMs = 700;
   private replayTimer: number | null = null;
@@ -53,6 +55,13 @@ export class GameComponent implements OnInit, OnDestroy {
   ngOnInit(): void {
     this.ws.connect();
     this.sub.add(this.ws.messages$.subscribe((msg) => this.handleMessage(msg)));
+    this.sub.add(
+      this.ws.connected$.subscribe(() => {
+        if (this.synced) {
+          this.syncMoves();
+        }
+      })
+    );
     this.sub.add(
       this.route.paramMap.subscribe((params) => {
         const id = Number(params.get('id'));
@@ -213,6 +222,7 @@ export class GameComponent implements OnInit, OnDestroy {
           fromSquare: String(message.from),
           toSquare: String(message.to),
           piece: String(message.piece),
+          promotion: message.promotion ?? undefined,
           byUserId: Number(message.byUserId),
           createdAt: new Date().toISOString()
         };
@@ -221,13 +231,20 @@ export class GameComponent implements OnInit, OnDestroy {
       }
       if (message.type === 'game_over' && Number(message.gameId) === this.gameId) {
         this.gameOver = true;
+        if (message.winnerUserId == null) {
+          this.gameOverMessage = 'Nulle';
+          this.toast = `Partie nulle: ${this.endReasonLabel(message.endReason)}.`;
+          this.toastIcon = '½';
+          this.toastType = '';
+          this.scheduleExit();
+          this.cdr.detectChanges();
+          return;
+        }
         const winnerId = Number(message.winnerUserId);
         const isWinner = this.auth.user?.userId === winnerId;
         this.gameOverMessage = isWinner ? 'Victoire' : 'Defaite';
-        const reason = message.endReason === 'resign' ? 'abandon' : 'fin de partie';
-        this.toast = isWinner
-          ? `Victoire: l'adversaire a ${reason}.`
-          : `Defaite: vous avez ${reason}.`;
+        const reason = this.endReasonLabel(message.endReason);
+        this.toast = isWinner ? `Victoire: ${reason}.` : `Defaite: ${reason}.`;
         this.toastIcon = isWinner ? '🏆' : '☹';
         this.toastType = isWinner ? 'win' : 'lose';
         this.scheduleExit();
@@ -240,10 +257,23 @@ export class GameComponent implements OnInit, OnDestroy {
     });
   }
 
+  private endReasonLabel(endReason?: string): string {
+    const labels: Record<string, string> = {
+      resign: 'abandon',
+      checkmate: 'echec et mat',
+      stalemate: 'pat',
+      threefold_repetition: 'triple repetition',
+      fifty_move_rule: 'regle des cinquante coups'
+    };
+    return (endReason && labels[endReason]) || 'fin de partie';
+  }
+
   private loadGame(): void {
     this.board = this.createInitialBoard();
     this.moves = [];
     this.replayIndex = 0;
+    this.movesEtag = null;
+    this.synced = false;
     this.gameOver = false;
     this.gameOverMessage = '';
     this.api.getActiveGame().subscribe({
@@ -251,15 +281,15 @@ export class GameComponent implements OnInit, OnDestroy {
         if (state && state.gameId === this.gameId) {
           this.setPlayerColor(state);
           this.applyMoves(state.moves);
+          this.synced = true;
           if (state.status === 'FINISHED') {
             this.gameOver = true;
-            this.gameOverMessage = state.winnerUserId === this.auth.user?.userId ? 'Victoire' : 'Defaite';
+            this.gameOverMessage = state.winnerUserId == null
+              ? 'Nulle'
+              : state.winnerUserId === this.auth.user?.userId ? 'Victoire' : 'Defaite';
           }
         } else {
-          this.api.getMoves(this.gameId).subscribe({
-            next: (moves) => this.applyMoves(moves),
-            error: () => (this.status = 'Impossible de charger la partie')
-          });
+          this.syncMoves();
         }
       },
       error: () => (this.status = 'Impossible de charger la partie')
@@ -275,11 +305,42 @@ export class GameComponent implements OnInit, OnDestroy {
     this.myColor = userId === state.whiteUserId ? 'white' : 'black';
   }
 
+  /**
+   * Fetches only the moves after the last one shown, e.g. once the socket is back after a drop. The
+   * stored ETag turns an unchanged game into an empty 304.
+   */
+  private syncMoves(): void {
+    if (!this.gameId) {
+      return;
+    }
+    const gameId = this.gameId;
+    const since = this.moves.length ? this.moves[this.moves.length - 1].moveNumber : 0;
+    this.api.getMoves(gameId, since, this.movesEtag).subscribe({
+      next: (page) => {
+        if (gameId !== this.gameId) {
+          return;
+        }
+        this.movesEtag = page.etag;
+        this.applyMoves(page.moves);
+        this.synced = true;
+        this.cdr.detectChanges();
+      },
+      error: () => {
+        if (!this.synced) {
+          this.status = 'Impossible de charger la partie';
+        }
+      }
+    });
+  }
+
   private applyMoves(moves: MoveDto[]): void {
     moves.forEach((move) => this.applyMove(move));
   }
 
   private applyMove(move: MoveDto): void {
+    if (this.moves.some((known) => known.moveNumber === move.moveNumber)) {
+      return;
+    }
     this.moves = [...this.moves, move].sort((a, b) => a.moveNumber - b.moveNumber);
     if (!this.isReplaying) {
       this.replayIndex = this.moves.length;
@@ -341,8 +402,18 @@ export class GameComponent implements OnInit, OnDestroy {
       const from = this.parseSquare(move.fromSquare);
       const to = this.parseSquare(move.toSquare);
       const moving = this.board[from.row][from.col] || move.piece;
+      const color = moving.charAt(0);
+      if (moving.charAt(1) === 'P' && from.col !== to.col && !this.board[to.row][to.col]) {
+        this.board[from.row][to.col] = '';
+      }
+      if (moving.charAt(1) === 'K' && Math.abs(to.col - from.col) === 2) {
+        const rookFrom = to.col > from.col ? 7 : 0;
+        const rookTo = to.col > from.col ? 5 : 3;
+        this.board[from.row][rookTo] = this.board[from.row][rookFrom];
+        this.board[from.row][rookFrom] = '';
+      }
       this.board[from.row][from.col] = '';
-      this.board[to.row][to.col] = moving;
+      this.board[to.row][to.col] = move.promotion ? color + move.promotion.toUpperCase() : moving;
     });
   }
 
@@ -23,6 +23,7 @@ export class LobbyComponent implements OnInit, OnDestroy {
   invites: Invite[] = [];
   notifications: string[] = [];
   pendingInvites = new Set<number>();
+  private presenceVersion: number | null = null;
   private sub = new Subscription();
 
   constructor(
@@ -86,10 +87,15 @@ export class LobbyComponent implements OnInit, OnDestroy {
   private handleMessage(message: WsMessage): void {
     this.zone.run(() => {
       if (message.type === 'online_users') {
+        this.presenceVersion = message.version ?? null;
         this.onlineUsers$.next(this.normalizeOnlineUsers(message.users));
         this.cdr.detectChanges();
         return;
       }
+      if (message.type === 'presence') {
+        this.applyPresence(message);
+        return;
+      }
       if (message.type === 'invite') {
         const invite = {
           fromUserId: Number(message.fromUserId),
@@ -134,6 +140,27 @@ export class LobbyComponent implements OnInit, OnDestroy {
     return this.auth.user?.userId ?? null;
   }
 
+  private applyPresence(message: WsMessage): void {
+    if (this.presenceVersion === null || message.baseVersion !== this.presenceVersion) {
+      this.presenceVersion = null;
+      this.ws.requestPresenceSync();
+      return;
+    }
+    const left = new Set(message.left ?? []);
+    const users = new Map<number, OnlineUser>();
+    for (const user of this.onlineUsers$.value) {
+      if (!left.has(user.id)) {
+        users.set(user.id, user);
+      }
+    }
+    for (const user of message.joined ?? []) {
+      users.set(user.id, user);
+    }
+    this.presenceVersion = message.version ?? null;
+    this.onlineUsers$.next([...users.values()]);
+    this.cdr.detectChanges();
+  }
+
   private normalizeOnlineUsers(input: unknown): OnlineUser[] {
     if (Array.isArray(input)) {
       return input as OnlineUser[];
@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { HttpClient, HttpErrorResponse, HttpHeaders } from '@angular/common/http';
+import { Observable, of, throwError } from 'rxjs';
+import { catchError, map } from 'rxjs/operators';
 
 export interface OnlineUser {
   id: number;
@@ -13,6 +14,7 @@ export interface MoveDto {
   fromSquare: string;
   toSquare: string;
   piece: string;
+  promotion?: string;
   byUserId: number;
   createdAt: string;
 }
@@ -27,6 +29,11 @@ export interface GameStateDto {
   moves: MoveDto[];
 }
 
+export interface MovesPage {
+  moves: MoveDto[];
+  etag: string | null;
+}
+
 @Injectable({ providedIn: 'root' })
 export class ApiService {
   private readonly apiUrl = 'http://localhost:8080/api';
@@ -41,7 +48,21 @@ export class ApiService {
     return this.http.get<GameStateDto | null>(`${this.apiUrl}/games/active`);
   }
 
-  getMoves(gameId: number): Observable<MoveDto[]> {
-    return this.http.get<MoveDto[]>(`${this.apiUrl}/games/${gameId}/moves`);
+  /**
+   * Moves after move number `since`. With the ETag of an earlier response, an unchanged game answers
+   * 304 and the page comes back empty with the same ETag.
+   */
+  getMoves(gameId: number, since = 0, etag: string | null = null): Observable<MovesPage> {
+    const headers = etag ? new HttpHeaders({ 'If-None-Match': etag }) : undefined;
+    return this.http
+      .get<MoveDto[]>(`${this.apiUrl}/games/${gameId}/moves`, { params: { since }, headers, observe: 'response' })
+      .pipe(
+        map((response) => ({ moves: response.body ?? [], etag: response.headers.get('ETag') })),
+        catchError((error) =>
+          error instanceof HttpErrorResponse && error.status === 304
+            ? of({ moves: [], etag })
+            : throwError(() => error)
+        )
+      );
   }
 }
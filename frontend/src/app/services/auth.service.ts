@@ -30,6 +30,12 @@ export class AuthService {
   }
 
   logout(): void {
+    const token = this.token;
+    if (token) {
+      this.http
+        .post<void>(`${this.apiUrl}/logout`, null, { headers: { Authorization: `Bearer ${token}` } })
+        .subscribe({ error: () => undefined });
+    }
     localStorage.removeItem(this.tokenKey);
     localStorage.removeItem(this.userKey);
   }
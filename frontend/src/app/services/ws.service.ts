@@ -9,9 +9,15 @@ export interface WsMessage {
   from?: string;
   to?: string;
   piece?: string;
+  promotion?: string | null;
+  move?: number;
   byUserId?: number;
   message?: string;
   users?: unknown;
+  version?: number;
+  baseVersion?: number;
+  joined?: { id: number; username: string }[];
+  left?: number[];
   fromUserId?: number;
   fromUsername?: string;
   accepted?: boolean;
@@ -25,7 +31,12 @@ export interface WsMessage {
 export class WsService {
   private socket: WebSocket | null = null;
   private messagesSubject = new Subject<WsMessage>();
+  private connectedSubject = new Subject<void>();
+  private reconnectTimer: ReturnType<typeof setTimeout> | null = null;
+  private closedByClient = false;
   messages$ = this.messagesSubject.asObservable();
+  /** Emits each time the socket opens, including after a dropped connection is re-established. */
+  connected$ = this.connectedSubject.asObservable();
 
   constructor(private auth: AuthService, private zone: NgZone) {}
 
@@ -34,9 +45,12 @@ export class WsService {
     if (!token || this.socket) {
       return;
     }
+    this.closedByClient = false;
     const url = `ws://localhost:8080/ws?token=${encodeURIComponent(token)}`;
-    this.socket = new WebSocket(url);
-    this.socket.onmessage = (event) => {
+    const socket = new WebSocket(url);
+    this.socket = socket;
+    socket.onopen = () => this.zone.run(() => this.connectedSubject.next());
+    socket.onmessage = (event) => {
       try {
         const parsed = JSON.parse(event.data) as WsMessage;
         this.zone.run(() => this.messagesSubject.next(parsed));
@@ -44,12 +58,25 @@ export class WsService {
         // ignore invalid payloads
       }
     };
-    this.socket.onclose = () => {
-      this.socket = null;
+    socket.onclose = () => {
+      if (this.socket === socket) {
+        this.socket = null;
+      }
+      if (!this.closedByClient && !this.reconnectTimer) {
+        this.reconnectTimer = setTimeout(() => {
+          this.reconnectTimer = null;
+          this.connect();
+        }, 1000);
+      }
     };
   }
 
   disconnect(): void {
+    this.closedByClient = true;
+    if (this.reconnectTimer) {
+      clearTimeout(this.reconnectTimer);
+      this.reconnectTimer = null;
+    }
     if (this.socket) {
       this.socket.close();
       this.socket = null;
@@ -68,6 +95,10 @@ export class WsService {
     this.send({ type: 'move', gameId, from, to, piece });
   }
 
+  requestPresenceSync(): void {
+    this.send({ type: 'presence_sync' });
+  }
+
   resign(gameId: number): void {
     this.send({ type: 'resign', gameId });
   }